@@ -1,11 +1,14 @@
 package com.mapnaom.foodreservation;
 
+import com.mapnaom.foodreservation.repositories.StreamingJpaRepositoryImpl;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
+@EnableJpaRepositories(repositoryBaseClass = StreamingJpaRepositoryImpl.class)
 public class FoodReservationApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,41 @@
+package com.mapnaom.foodreservation.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Second, read-only DataSource for the HR database that holds {@code EMPLOYEES_DATA_VIEW}, configured under
+ * {@code hr.datasource.*} (pool settings under {@code hr.datasource.hikari.*}). Only created when
+ * {@code hr.datasource.url} is set.
+ * <p>
+ * Both beans are not default candidates, so the auto-configured application DataSource, and everything injected
+ * by type, stays as it is; inject these with {@code @Qualifier("hr")}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "hr.datasource", name = "url")
+public class HrDataSourceConfig {
+
+    @Bean(defaultCandidate = false)
+    @Qualifier("hr")
+    @ConfigurationProperties("hr.datasource")
+    public DataSourceProperties hrDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean(defaultCandidate = false)
+    @Qualifier("hr")
+    @ConfigurationProperties("hr.datasource.hikari")
+    public HikariDataSource hrDataSource(@Qualifier("hr") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("hr");
+        dataSource.setReadOnly(true);
+        // The sync reads through a single cursor; hr.datasource.hikari.maximum-pool-size overrides this
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+}
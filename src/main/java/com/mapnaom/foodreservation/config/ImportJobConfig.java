@@ -0,0 +1,62 @@
+package com.mapnaom.foodreservation.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors of the import machinery. Background import jobs run on {@code importJobExecutor}, where both the number
+ * of workers and the number of waiting jobs are bounded; uploads beyond that are rejected instead of piling up temp
+ * files and memory.
+ * <p>
+ * The stages of every running import share three fixed pools: one that streams files, one that binds rows and one
+ * that validates them. Their queues are not bounded because each import already bounds the chunks it has in flight.
+ * A pool size of 0 picks a default from the number of processors.
+ */
+@Configuration
+public class ImportJobConfig {
+
+    private static final int PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+    @Bean
+    public ThreadPoolTaskExecutor importJobExecutor(
+            @Value("${import.jobs.pool-size:2}") int poolSize,
+            @Value("${import.jobs.queue-capacity:10}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("import-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * Parser threads, one per running import; further imports wait for a free parser.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importParserExecutor(@Value("${import.pipeline.parser-pool-size:4}") int poolSize) {
+        return stageExecutor("import-parser-", poolSize, 4);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor importBinderExecutor(@Value("${import.pipeline.binder-pool-size:0}") int poolSize) {
+        return stageExecutor("import-binder-", poolSize, PROCESSORS);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor importValidatorExecutor(@Value("${import.pipeline.validator-pool-size:0}") int poolSize) {
+        return stageExecutor("import-validator-", poolSize, Math.max(2, PROCESSORS / 2));
+    }
+
+    private static ThreadPoolTaskExecutor stageExecutor(String threadNamePrefix, int poolSize, int defaultPoolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize > 0 ? poolSize : defaultPoolSize);
+        executor.setMaxPoolSize(poolSize > 0 ? poolSize : defaultPoolSize);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setDaemon(true);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
@@ -1,9 +1,16 @@
 package com.mapnaom.foodreservation.controllers;
 
 import com.mapnaom.foodreservation.dtos.BranchDto;
+import com.mapnaom.foodreservation.dtos.ImportJobDto;
+import com.mapnaom.foodreservation.dtos.ImportResponse;
+import com.mapnaom.foodreservation.enums.ImportFormat;
 import com.mapnaom.foodreservation.dtos.Select;
 import com.mapnaom.foodreservation.searchForms.BranchSearchForm;
 import com.mapnaom.foodreservation.services.BranchService;
+import com.mapnaom.foodreservation.services.ImportAdmissionService;
+import com.mapnaom.foodreservation.services.ChunkedUploadService;
+import com.mapnaom.foodreservation.services.ImportJobService;
+import com.mapnaom.foodreservation.utils.ExcelImporter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
@@ -13,8 +20,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.net.URI;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * کنترلر برای مدیریت عملیات‌های مربوط به شعب
@@ -26,6 +33,9 @@ import java.util.Objects;
 public class BranchController {
 
     private final BranchService branchService;
+    private final ImportJobService importJobService;
+    private final ChunkedUploadService chunkedUploadService;
+    private final ImportAdmissionService importAdmissionService;
 
     /**
      * دریافت تمام شعب به صورت صفحه‌بندی شده با شرایط جستجو
@@ -108,20 +118,75 @@ public class BranchController {
     /**
      * Endpoint to import foods from an uploaded Excel file.
      *
-     * @param file The uploaded Excel file containing food data.
+     * @param file    The uploaded Excel file containing food data.
+     * @param summary If true, only the counts and the error sample are returned, without the imported rows.
+     * @param dryRun  If true, rows are only parsed and validated; nothing is saved.
      * @return ResponseEntity containing ImportResponse with import results.
      */
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> importFoodsFromExcel(
-            @RequestParam("file") MultipartFile file){
-          try {
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "summary", defaultValue = "false") boolean summary,
+            @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        if (ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename()).isEmpty()) {
+            return new ResponseEntity<>("Invalid file type. Please upload an Excel, CSV or TSV file.", HttpStatus.BAD_REQUEST);
+        }
+        ImportResponse<BranchDto> response = branchService.importBranchesFromExcel(file, dryRun);
+        return new ResponseEntity<>(summary ? response.toSummary() : response, HttpStatus.OK);
+    }
+
+    /**
+     * Binds only the first rows of an uploaded file, without validating or saving them,
+     * so the column mapping can be checked before the file is imported.
+     *
+     * @param file The uploaded Excel file containing branch data.
+     * @param rows The number of data rows to read (default: 20, at most 1000).
+     * @return ResponseEntity containing the bound rows and their binding errors.
+     */
+    @PostMapping(value = "/import/preview", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> previewImport(@RequestParam("file") MultipartFile file,
+                                           @RequestParam(value = "rows", defaultValue = "20") int rows) {
+        if (ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename()).isEmpty()) {
+            return new ResponseEntity<>("Invalid file type. Please upload an Excel, CSV or TSV file.", HttpStatus.BAD_REQUEST);
+        }
+        try (ImportAdmissionService.Permit permit = importAdmissionService.admitImport(file)) {
+            return ResponseEntity.ok(ExcelImporter.previewFromExcel(file, BranchDto.class, Math.max(1, Math.min(rows, 1000))));
+        }
+    }
+
+    /**
+     * Starts a background import of branches from an uploaded Excel file.
+     * Poll {@code /api/v1/import-jobs/{id}} for progress and fetch the result from {@code /api/v1/import-jobs/{id}/result}.
+     *
+     * @param file   The uploaded Excel file containing branch data.
+     * @param dryRun If true, rows are only parsed and validated; nothing is saved.
+     * @return ResponseEntity with status 202 and the queued job.
+     */
+    @PostMapping(value = "/import-jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> startImportJob(@RequestParam("file") MultipartFile file,
+                                            @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        if (ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename()).isEmpty()) {
+            return new ResponseEntity<>("Invalid file type. Please upload an Excel, CSV or TSV file.", HttpStatus.BAD_REQUEST);
+        }
+        ImportJobDto job = importJobService.submit("branches", file,
+                (path, progress) -> branchService.importBranchesFromExcel(path, progress, dryRun));
+        return ResponseEntity.accepted().location(URI.create("/api/v1/import-jobs/" + job.getId())).body(job);
+    }
 
-              if (!Objects.equals(file.getContentType(), "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")) {
-                  return new ResponseEntity<>("Invalid file type. Please upload an Excel file.", HttpStatus.BAD_REQUEST);
-              }
-              return new ResponseEntity<>(branchService.importBranchesFromExcel(file), HttpStatus.OK);
-          }catch (Exception e){
-              return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
-          }
+    /**
+     * Starts a background import of branches from a completed chunked upload of {@code /api/v1/uploads}.
+     * The staged file of the upload is imported in place.
+     *
+     * @param uploadId the id of the completed upload
+     * @param dryRun   if true, rows are only parsed and validated; nothing is saved
+     * @return ResponseEntity with status 202 and the queued job
+     */
+    @PostMapping(value = "/import-jobs", params = "uploadId")
+    public ResponseEntity<ImportJobDto> startImportJobFromUpload(@RequestParam("uploadId") String uploadId,
+                                                                 @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        ImportJobDto job = chunkedUploadService.take(uploadId, format -> true,
+                upload -> importJobService.submit("branches", upload,
+                        (path, progress) -> branchService.importBranchesFromExcel(path, progress, dryRun)));
+        return ResponseEntity.accepted().location(URI.create("/api/v1/import-jobs/" + job.getId())).body(job);
     }
 }
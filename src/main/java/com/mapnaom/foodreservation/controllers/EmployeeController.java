@@ -1,10 +1,13 @@
 package com.mapnaom.foodreservation.controllers;
 
 import com.mapnaom.foodreservation.dtos.EmployeeDto;
+import com.mapnaom.foodreservation.exceptions.ResourceNotFoundException;
 import com.mapnaom.foodreservation.searchForms.EmployeeSearchForm;
 import com.mapnaom.foodreservation.services.EmployeeService;
+import com.mapnaom.foodreservation.services.HrEmployeeSync;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 public class EmployeeController {
 
     private final EmployeeService employeeService;
+    private final ObjectProvider<HrEmployeeSync> hrEmployeeSync;
 
     /**
      * دریافت تمام کارکنان به صورت صفحه‌بندی شده با شرایط جستجو
@@ -92,4 +96,18 @@ public class EmployeeController {
         employeeService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * همگام‌سازی کارکنان با نمای EMPLOYEES_DATA_VIEW پایگاه داده منابع انسانی
+     *
+     * @return تعداد ردیف‌های خوانده‌شده، ایجادشده، به‌روزشده و ناموفق
+     */
+    @PostMapping("/sync")
+    public ResponseEntity<HrEmployeeSync.Result> syncFromHr() {
+        HrEmployeeSync sync = hrEmployeeSync.getIfAvailable();
+        if (sync == null) {
+            throw new ResourceNotFoundException("HR database is not configured (hr.datasource.url)");
+        }
+        return ResponseEntity.ok(sync.sync());
+    }
 }
@@ -1,8 +1,15 @@
 package com.mapnaom.foodreservation.controllers;
 
+import com.mapnaom.foodreservation.dtos.FoodDto;
+import com.mapnaom.foodreservation.dtos.ImportJobDto;
+import com.mapnaom.foodreservation.enums.ImportFormat;
 import com.mapnaom.foodreservation.dtos.ImportResponse;
 import com.mapnaom.foodreservation.services.FoodService;
+import com.mapnaom.foodreservation.services.ImportAdmissionService;
+import com.mapnaom.foodreservation.services.ChunkedUploadService;
+import com.mapnaom.foodreservation.services.ImportJobService;
 import com.mapnaom.foodreservation.utils.ExcelCellError;
+import com.mapnaom.foodreservation.utils.ExcelImporter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -13,8 +20,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
 import java.util.Map;
-import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
@@ -24,20 +31,83 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class FoodImportController {
 
     private final FoodService foodService;
+    private final ImportJobService importJobService;
+    private final ChunkedUploadService chunkedUploadService;
+    private final ImportAdmissionService importAdmissionService;
 
     /**
      * Endpoint to import foods from an uploaded Excel file.
      *
-     * @param file The uploaded Excel file containing food data.
+     * @param file    The uploaded Excel file containing food data.
+     * @param summary If true, only the counts and the error sample are returned, without the imported rows.
+     * @param dryRun  If true, rows are only parsed and validated; nothing is saved.
      * @return ResponseEntity containing ImportResponse with import results.
      */
     @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> importFoodsFromExcel(
-            @RequestParam("file") MultipartFile file) throws IOException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
-        if (!Objects.equals(file.getContentType(), "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")) {
-            return new ResponseEntity<>("Invalid file type. Please upload an Excel file.", HttpStatus.BAD_REQUEST);
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "summary", defaultValue = "false") boolean summary,
+            @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) throws IOException, InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
+        if (ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename()).isEmpty()) {
+            return new ResponseEntity<>("Invalid file type. Please upload an Excel, CSV or TSV file.", HttpStatus.BAD_REQUEST);
+        }
+        ImportResponse<FoodDto> response = foodService.importFoodsFromExcel(file, dryRun);
+        return new ResponseEntity<>(summary ? response.toSummary() : response, HttpStatus.OK);
+    }
+
+    /**
+     * Binds only the first rows of an uploaded file, without validating or saving them,
+     * so the column mapping can be checked before the file is imported.
+     *
+     * @param file The uploaded Excel file containing food data.
+     * @param rows The number of data rows to read (default: 20, at most 1000).
+     * @return ResponseEntity containing the bound rows and their binding errors.
+     */
+    @PostMapping(value = "/import/preview", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> previewImport(@RequestParam("file") MultipartFile file,
+                                           @RequestParam(value = "rows", defaultValue = "20") int rows) {
+        if (ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename()).isEmpty()) {
+            return new ResponseEntity<>("Invalid file type. Please upload an Excel, CSV or TSV file.", HttpStatus.BAD_REQUEST);
+        }
+        try (ImportAdmissionService.Permit permit = importAdmissionService.admitImport(file)) {
+            return ResponseEntity.ok(ExcelImporter.previewFromExcel(file, FoodDto.class, Math.max(1, Math.min(rows, 1000))));
+        }
+    }
+
+    /**
+     * Starts a background import of foods from an uploaded Excel file.
+     * Poll {@code /api/v1/import-jobs/{id}} for progress and fetch the result from {@code /api/v1/import-jobs/{id}/result}.
+     *
+     * @param file   The uploaded Excel file containing food data.
+     * @param dryRun If true, rows are only parsed and validated; nothing is saved.
+     * @return ResponseEntity with status 202 and the queued job.
+     */
+    @PostMapping(value = "/import-jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> startImportJob(@RequestParam("file") MultipartFile file,
+                                            @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        if (ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename()).isEmpty()) {
+            return new ResponseEntity<>("Invalid file type. Please upload an Excel, CSV or TSV file.", HttpStatus.BAD_REQUEST);
         }
-                return new ResponseEntity<>(foodService.importFoodsFromExcel(file), HttpStatus.OK);
+        ImportJobDto job = importJobService.submit("foods", file,
+                (path, progress) -> foodService.importFoodsFromExcel(path, progress, dryRun));
+        return ResponseEntity.accepted().location(URI.create("/api/v1/import-jobs/" + job.getId())).body(job);
+    }
+
+    /**
+     * Starts a background import of foods from a completed chunked upload of {@code /api/v1/uploads}.
+     * The staged file of the upload is imported in place.
+     *
+     * @param uploadId the id of the completed upload
+     * @param dryRun   if true, rows are only parsed and validated; nothing is saved
+     * @return ResponseEntity with status 202 and the queued job
+     */
+    @PostMapping(value = "/import-jobs", params = "uploadId")
+    public ResponseEntity<ImportJobDto> startImportJobFromUpload(@RequestParam("uploadId") String uploadId,
+                                                                 @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        ImportJobDto job = chunkedUploadService.take(uploadId, format -> true,
+                upload -> importJobService.submit("foods", upload,
+                        (path, progress) -> foodService.importFoodsFromExcel(path, progress, dryRun)));
+        return ResponseEntity.accepted().location(URI.create("/api/v1/import-jobs/" + job.getId())).body(job);
     }
 
     /**
@@ -4,16 +4,21 @@ import com.mapnaom.foodreservation.dtos.FoodOptionDto;
 import com.mapnaom.foodreservation.dtos.ImportResponse;
 import com.mapnaom.foodreservation.searchForms.FoodOptionSearchForm;
 import com.mapnaom.foodreservation.services.FoodOptionService;
+import com.mapnaom.foodreservation.services.ImportAdmissionService;
+import com.mapnaom.foodreservation.utils.ExcelExportPlan;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * کنترلر برای مدیریت عملیات‌های مربوط به گزینه‌های غذایی
@@ -25,6 +30,7 @@ import org.springframework.web.multipart.MultipartFile;
 public class FoodOptionController {
 
     private final FoodOptionService foodOptionService;
+    private final ImportAdmissionService importAdmissionService;
 
     /**
      * دریافت تمام گزینه‌های غذایی به صورت صفحه‌بندی شده با شرایط جستجو
@@ -50,6 +56,27 @@ public class FoodOptionController {
         return ResponseEntity.ok(foodOptionPage);
     }
 
+    /**
+     * دریافت گزینه‌های غذایی منطبق با فرم جستجو به صورت فایل اکسل. فایل در حین خواندن گزینه‌ها مستقیما در پاسخ نوشته می‌شود.
+     *
+     * @param searchForm فرم جستجو شامل فیلدهای id، name، price و غیره
+     * @return فایل اکسل گزینه‌های غذایی
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportToExcel(@ModelAttribute FoodOptionSearchForm searchForm) {
+        ImportAdmissionService.Permit permit =
+                importAdmissionService.admitStreamingExport(ExcelExportPlan.of(FoodOptionDto.class).columnCount());
+        StreamingResponseBody body = out -> {
+            try (permit) {
+                foodOptionService.exportToExcel(searchForm, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"food-options.xlsx\"")
+                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .body(body);
+    }
+
     /**
      * دریافت یک گزینه غذایی بر اساس شناسه
      *
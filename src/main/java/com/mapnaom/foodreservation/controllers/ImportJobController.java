@@ -0,0 +1,137 @@
+package com.mapnaom.foodreservation.controllers;
+
+import com.mapnaom.foodreservation.dtos.AdmissionStatsDto;
+import com.mapnaom.foodreservation.dtos.ImportJobDto;
+import com.mapnaom.foodreservation.dtos.ImportResponse;
+import com.mapnaom.foodreservation.dtos.WorkbookImportResponse;
+import com.mapnaom.foodreservation.enums.ImportJobState;
+import com.mapnaom.foodreservation.services.ImportAdmissionService;
+import com.mapnaom.foodreservation.services.ImportJobService;
+import com.mapnaom.foodreservation.utils.ExcelCellError;
+import com.mapnaom.foodreservation.utils.ImportErrorLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Polling endpoints for background import jobs started by the {@code /import-jobs} upload endpoints.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping("/api/v1/import-jobs")
+@RequiredArgsConstructor
+public class ImportJobController {
+
+    private final ImportJobService importJobService;
+    private final ImportAdmissionService importAdmissionService;
+
+    /**
+     * Returns the memory budget of imports and exports, how much of it is in use, how many requests wait for it
+     * and how long they waited.
+     *
+     * @return the admission statistics
+     */
+    @GetMapping("/admission")
+    public ResponseEntity<AdmissionStatsDto> getAdmissionStats() {
+        return ResponseEntity.ok(importAdmissionService.getStats());
+    }
+
+    /**
+     * Returns the state and row counters of an import job.
+     *
+     * @param id the job id
+     * @return the job status
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDto> getStatus(@PathVariable String id) {
+        return ResponseEntity.ok(importJobService.getStatus(id));
+    }
+
+    /**
+     * Returns the final ImportResponse of a completed job. While the job is still queued or running the
+     * status is returned with 202; a failed job returns its status with 500.
+     *
+     * @param id      the job id
+     * @param summary if true, only the counts and the error sample are returned, without the imported rows
+     * @return the import response or the job status
+     */
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> getResult(@PathVariable String id,
+                                       @RequestParam(value = "summary", defaultValue = "false") boolean summary) {
+        ImportJobDto status = importJobService.getStatus(id);
+        if (status.getState() == ImportJobState.COMPLETED) {
+            Object result = importJobService.getResult(id);
+            if (summary && result instanceof ImportResponse<?> response) {
+                return ResponseEntity.ok(response.toSummary());
+            }
+            if (summary && result instanceof WorkbookImportResponse workbook) {
+                return ResponseEntity.ok(workbook.toSummary());
+            }
+            return ResponseEntity.ok(result);
+        }
+        return notCompleted(status);
+    }
+
+    /**
+     * The status of a job without a result: 500 if it failed, 202 while it is queued or running.
+     */
+    private static ResponseEntity<ImportJobDto> notCompleted(ImportJobDto status) {
+        if (status.getState() == ImportJobState.FAILED) {
+            return new ResponseEntity<>(status, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        return ResponseEntity.accepted().body(status);
+    }
+
+    /**
+     * Returns one page of the full error list of a completed job, in the order the errors were recorded.
+     *
+     * @param id    the job id
+     * @param page  the page number (default: 0)
+     * @param size  the number of errors per page (default: 100, at most 1000)
+     * @param sheet the sheet of a workbook job
+     * @return the errors of the page, or the job status while the job has not completed
+     */
+    @GetMapping("/{id}/errors")
+    public ResponseEntity<?> getErrors(@PathVariable String id,
+                                       @RequestParam(value = "page", defaultValue = "0") int page,
+                                       @RequestParam(value = "size", defaultValue = "100") int size,
+                                       @RequestParam(value = "sheet", required = false) String sheet) {
+        ImportErrorLog errorLog = importJobService.getErrorLog(id, sheet);
+        if (errorLog == null) {
+            return notCompleted(importJobService.getStatus(id));
+        }
+        int pageSize = Math.max(1, Math.min(size, 1000));
+        List<ExcelCellError> errors = errorLog.page((long) Math.max(page, 0) * pageSize, pageSize);
+        return ResponseEntity.ok(new PageImpl<>(errors, PageRequest.of(Math.max(page, 0), pageSize), errorLog.getCount()));
+    }
+
+    /**
+     * Downloads the full error list of a completed job as a tab-separated file.
+     *
+     * @param id    the job id
+     * @param sheet the sheet of a workbook job
+     * @return the error file, or the job status while the job has not completed
+     */
+    @GetMapping("/{id}/errors/download")
+    public ResponseEntity<?> downloadErrors(@PathVariable String id,
+                                            @RequestParam(value = "sheet", required = false) String sheet) {
+        ImportErrorLog errorLog = importJobService.getErrorLog(id, sheet);
+        if (errorLog == null) {
+            return notCompleted(importJobService.getStatus(id));
+        }
+        StreamingResponseBody body = errorLog::copyTo;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"import-errors-" + id + ".tsv\"")
+                .contentType(new MediaType("text", "tab-separated-values", StandardCharsets.UTF_8))
+                .body(body);
+    }
+}
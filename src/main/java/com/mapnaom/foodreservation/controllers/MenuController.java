@@ -1,13 +1,25 @@
 package com.mapnaom.foodreservation.controllers;
 
+import com.mapnaom.foodreservation.dtos.ImportJobDto;
+import com.mapnaom.foodreservation.dtos.ImportResponse;
 import com.mapnaom.foodreservation.dtos.MenuDto;
+import com.mapnaom.foodreservation.enums.ImportFormat;
 import com.mapnaom.foodreservation.searchForms.MenuSearchForm;
+import com.mapnaom.foodreservation.services.ImportAdmissionService;
+import com.mapnaom.foodreservation.services.ChunkedUploadService;
+import com.mapnaom.foodreservation.services.ImportJobService;
 import com.mapnaom.foodreservation.services.MenuService;
+import com.mapnaom.foodreservation.utils.ExcelImporter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.net.URI;
 
 /**
  * کنترلر برای مدیریت عملیات‌های مربوط به منوها
@@ -19,6 +31,9 @@ import org.springframework.web.bind.annotation.*;
 public class MenuController {
 
     private final MenuService menuService;
+    private final ImportJobService importJobService;
+    private final ChunkedUploadService chunkedUploadService;
+    private final ImportAdmissionService importAdmissionService;
 
     /**
      * دریافت تمام منوها به صورت صفحه‌بندی شده با شرایط جستجو
@@ -92,4 +107,76 @@ public class MenuController {
         menuService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * ورود منوها از فایل Excel، CSV یا TSV؛ هر ردیف یک غذای منو است و ردیف‌های پشت سر هم با تاریخ،
+     * شعبه و پیمانکار یکسان یک منو را تشکیل می‌دهند.
+     *
+     * @param file    فایل بارگذاری شده
+     * @param summary در صورت true فقط خلاصه نتیجه و نمونه خطاها، بدون ردیف‌های وارد شده، برگردانده می‌شود
+     * @param dryRun  در صورت true ردیف‌ها فقط خوانده و اعتبارسنجی می‌شوند و چیزی ذخیره نمی‌شود
+     * @return نتیجه ورود اطلاعات
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importMenus(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(value = "summary", defaultValue = "false") boolean summary,
+                                         @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        if (ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename()).isEmpty()) {
+            return new ResponseEntity<>("Invalid file type. Please upload an Excel, CSV or TSV file.", HttpStatus.BAD_REQUEST);
+        }
+        ImportResponse<MenuDto> response = menuService.importMenusFromExcel(file, dryRun);
+        return ResponseEntity.ok(summary ? response.toSummary() : response);
+    }
+
+    /**
+     * پیش‌نمایش چند ردیف اول فایل، بدون اعتبارسنجی و ذخیره، برای بررسی ستون‌ها پیش از ورود اطلاعات.
+     *
+     * @param file فایل بارگذاری شده
+     * @param rows تعداد ردیف‌های داده که خوانده می‌شود (پیش‌فرض ۲۰، حداکثر ۱۰۰۰)
+     * @return منوهای ساخته شده از این ردیف‌ها و خطاهای آن‌ها
+     */
+    @PostMapping(value = "/import/preview", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> previewImport(@RequestParam("file") MultipartFile file,
+                                           @RequestParam(value = "rows", defaultValue = "20") int rows) {
+        if (ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename()).isEmpty()) {
+            return new ResponseEntity<>("Invalid file type. Please upload an Excel, CSV or TSV file.", HttpStatus.BAD_REQUEST);
+        }
+        try (ImportAdmissionService.Permit permit = importAdmissionService.admitImport(file)) {
+            return ResponseEntity.ok(ExcelImporter.previewFromExcel(file, MenuDto.class, Math.max(1, Math.min(rows, 1000))));
+        }
+    }
+
+    /**
+     * شروع ورود منوها در پس‌زمینه؛ وضعیت از {@code /api/v1/import-jobs/{id}} قابل پیگیری است.
+     *
+     * @param file   فایل بارگذاری شده
+     * @param dryRun در صورت true ردیف‌ها فقط اعتبارسنجی می‌شوند و چیزی ذخیره نمی‌شود
+     * @return کار ثبت شده با وضعیت 202
+     */
+    @PostMapping(value = "/import-jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> startImportJob(@RequestParam("file") MultipartFile file,
+                                            @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        if (ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename()).isEmpty()) {
+            return new ResponseEntity<>("Invalid file type. Please upload an Excel, CSV or TSV file.", HttpStatus.BAD_REQUEST);
+        }
+        ImportJobDto job = importJobService.submit("menus", file,
+                (path, progress) -> menuService.importMenusFromExcel(path, progress, dryRun));
+        return ResponseEntity.accepted().location(URI.create("/api/v1/import-jobs/" + job.getId())).body(job);
+    }
+
+    /**
+     * شروع ورود منوها در پس‌زمینه از یک بارگذاری چندبخشی تکمیل شده در {@code /api/v1/uploads}؛ فایل بدون کپی دوباره وارد می‌شود.
+     *
+     * @param uploadId شناسه بارگذاری تکمیل شده
+     * @param dryRun   در صورت true ردیف‌ها فقط اعتبارسنجی می‌شوند و چیزی ذخیره نمی‌شود
+     * @return کار ثبت شده با وضعیت 202
+     */
+    @PostMapping(value = "/import-jobs", params = "uploadId")
+    public ResponseEntity<ImportJobDto> startImportJobFromUpload(@RequestParam("uploadId") String uploadId,
+                                                                 @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        ImportJobDto job = chunkedUploadService.take(uploadId, format -> true,
+                upload -> importJobService.submit("menus", upload,
+                        (path, progress) -> menuService.importMenusFromExcel(path, progress, dryRun)));
+        return ResponseEntity.accepted().location(URI.create("/api/v1/import-jobs/" + job.getId())).body(job);
+    }
 }
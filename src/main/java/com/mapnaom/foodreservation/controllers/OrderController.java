@@ -2,12 +2,17 @@ package com.mapnaom.foodreservation.controllers;
 
 import com.mapnaom.foodreservation.dtos.OrderDto;
 import com.mapnaom.foodreservation.searchForms.OrderSearchForm;
+import com.mapnaom.foodreservation.services.ImportAdmissionService;
 import com.mapnaom.foodreservation.services.OrderService;
+import com.mapnaom.foodreservation.utils.ExcelExportPlan;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * کنترلر برای مدیریت عملیات‌های مربوط به سفارش‌ها
@@ -19,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final ImportAdmissionService importAdmissionService;
 
     /**
      * دریافت تمام سفارش‌ها به صورت صفحه‌بندی شده با شرایط جستجو
@@ -44,6 +50,27 @@ public class OrderController {
         return ResponseEntity.ok(orderPage);
     }
 
+    /**
+     * دریافت سفارش‌های منطبق با فرم جستجو به صورت فایل اکسل. فایل در حین خواندن سفارش‌ها مستقیما در پاسخ نوشته می‌شود.
+     *
+     * @param searchForm فرم جستجو شامل فیلدهای مختلف برای فیلتر کردن
+     * @return فایل اکسل سفارش‌ها
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportToExcel(@ModelAttribute OrderSearchForm searchForm) {
+        ImportAdmissionService.Permit permit =
+                importAdmissionService.admitStreamingExport(ExcelExportPlan.of(OrderDto.class).columnCount());
+        StreamingResponseBody body = out -> {
+            try (permit) {
+                orderService.exportToExcel(searchForm, out);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders.xlsx\"")
+                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .body(body);
+    }
+
     /**
      * دریافت یک سفارش بر اساس شناسه
      *
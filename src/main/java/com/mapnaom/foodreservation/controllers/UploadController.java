@@ -0,0 +1,92 @@
+package com.mapnaom.foodreservation.controllers;
+
+import com.mapnaom.foodreservation.dtos.UploadDto;
+import com.mapnaom.foodreservation.dtos.UploadRequestDto;
+import com.mapnaom.foodreservation.services.ChunkedUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Chunked, resumable uploads of import files. Create an upload, PUT its byte ranges with a {@code Content-Range}
+ * header, complete it with the SHA-256 of the file, then start an import job with its id, e.g.
+ * {@code POST /api/v1/branches/import-jobs?uploadId=...}.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping("/api/v1/uploads")
+@RequiredArgsConstructor
+public class UploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    /**
+     * Creates an upload.
+     *
+     * @param request the file name, size and optionally the SHA-256 of the file
+     * @return ResponseEntity with status 201 and the new upload
+     */
+    @PostMapping
+    public ResponseEntity<UploadDto> create(@Valid @RequestBody UploadRequestDto request) {
+        UploadDto upload = chunkedUploadService.create(request);
+        return ResponseEntity.created(URI.create("/api/v1/uploads/" + upload.getId())).body(upload);
+    }
+
+    /**
+     * Returns the state of an upload, including the byte ranges still missing, so an interrupted client can resume.
+     *
+     * @param id the upload id
+     * @return the upload
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadDto> getStatus(@PathVariable String id) {
+        return ResponseEntity.ok(chunkedUploadService.getStatus(id));
+    }
+
+    /**
+     * Writes one byte range of the file, given by the {@code Content-Range} header, from the raw request body.
+     *
+     * @param id           the upload id
+     * @param contentRange the range of the chunk, e.g. {@code bytes 0-1048575/5242880}
+     * @param request      the request whose body is the chunk
+     * @return the upload after the chunk
+     * @throws IOException if the request body cannot be opened
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<UploadDto> writeChunk(@PathVariable String id,
+                                                @RequestHeader(value = HttpHeaders.CONTENT_RANGE, required = false) String contentRange,
+                                                HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(chunkedUploadService.writeChunk(id, contentRange, request.getInputStream()));
+    }
+
+    /**
+     * Completes an upload once all bytes have arrived and verifies its checksum.
+     *
+     * @param id     the upload id
+     * @param sha256 the SHA-256 of the file as hex, unless it was given when the upload was created
+     * @return the completed upload
+     */
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<UploadDto> complete(@PathVariable String id,
+                                              @RequestParam(value = "sha256", required = false) String sha256) {
+        return ResponseEntity.ok(chunkedUploadService.complete(id, sha256));
+    }
+
+    /**
+     * Cancels an upload and deletes what was received.
+     *
+     * @param id the upload id
+     * @return ResponseEntity with status 204
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable String id) {
+        chunkedUploadService.cancel(id);
+        return ResponseEntity.noContent().build();
+    }
+}
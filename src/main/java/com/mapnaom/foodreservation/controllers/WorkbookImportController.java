@@ -0,0 +1,91 @@
+package com.mapnaom.foodreservation.controllers;
+
+import com.mapnaom.foodreservation.dtos.ImportJobDto;
+import com.mapnaom.foodreservation.dtos.WorkbookImportResponse;
+import com.mapnaom.foodreservation.enums.ImportFormat;
+import com.mapnaom.foodreservation.services.ChunkedUploadService;
+import com.mapnaom.foodreservation.services.ImportJobService;
+import com.mapnaom.foodreservation.services.WorkbookImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.net.URI;
+
+/**
+ * Imports workbooks with Branch, Food, Menu and FoodOption sheets in one request or one background job.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping("/api/v1/workbooks")
+@RequiredArgsConstructor
+public class WorkbookImportController {
+
+    private final WorkbookImportService workbookImportService;
+    private final ImportJobService importJobService;
+    private final ChunkedUploadService chunkedUploadService;
+
+    /**
+     * Imports all known sheets of an uploaded XLSX or XLS workbook.
+     *
+     * @param file    the uploaded workbook
+     * @param summary if true, only the counts and the error sample of each sheet are returned, without the imported rows
+     * @param dryRun  if true, the sheets are only parsed and validated; nothing is saved
+     * @return the results per sheet
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importWorkbook(@RequestParam("file") MultipartFile file,
+                                            @RequestParam(value = "summary", defaultValue = "false") boolean summary,
+                                            @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        if (!isWorkbook(file)) {
+            return new ResponseEntity<>("Invalid file type. Please upload an Excel (.xlsx or .xls) workbook.", HttpStatus.BAD_REQUEST);
+        }
+        WorkbookImportResponse response = workbookImportService.importWorkbook(file, dryRun);
+        return ResponseEntity.ok(summary ? response.toSummary() : response);
+    }
+
+    /**
+     * Starts a background import of an uploaded XLSX or XLS workbook.
+     * Poll {@code /api/v1/import-jobs/{id}} for progress and fetch the result from {@code /api/v1/import-jobs/{id}/result}.
+     *
+     * @param file   the uploaded workbook
+     * @param dryRun if true, the sheets are only parsed and validated; nothing is saved
+     * @return ResponseEntity with status 202 and the queued job
+     */
+    @PostMapping(value = "/import-jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> startImportJob(@RequestParam("file") MultipartFile file,
+                                            @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        if (!isWorkbook(file)) {
+            return new ResponseEntity<>("Invalid file type. Please upload an Excel (.xlsx or .xls) workbook.", HttpStatus.BAD_REQUEST);
+        }
+        ImportJobDto job = importJobService.submit("workbook", file,
+                (path, progress) -> workbookImportService.importWorkbook(path, progress, dryRun));
+        return ResponseEntity.accepted().location(URI.create("/api/v1/import-jobs/" + job.getId())).body(job);
+    }
+
+    /**
+     * Starts a background import of the sheets of a workbook from a completed chunked upload of {@code /api/v1/uploads}.
+     * The staged file of the upload is imported in place.
+     *
+     * @param uploadId the id of the completed upload
+     * @param dryRun   if true, rows are only parsed and validated; nothing is saved
+     * @return ResponseEntity with status 202 and the queued job
+     */
+    @PostMapping(value = "/import-jobs", params = "uploadId")
+    public ResponseEntity<ImportJobDto> startImportJobFromUpload(@RequestParam("uploadId") String uploadId,
+                                                                 @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        ImportJobDto job = chunkedUploadService.take(uploadId, ImportFormat::hasSheets,
+                upload -> importJobService.submit("workbook", upload,
+                        (path, progress) -> workbookImportService.importWorkbook(path, progress, dryRun)));
+        return ResponseEntity.accepted().location(URI.create("/api/v1/import-jobs/" + job.getId())).body(job);
+    }
+
+    private static boolean isWorkbook(MultipartFile file) {
+        return ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename())
+                .filter(ImportFormat::hasSheets)
+                .isPresent();
+    }
+}
@@ -0,0 +1,27 @@
+package com.mapnaom.foodreservation.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the admission control in front of imports and exports.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdmissionStatsDto implements Serializable {
+    /** Heap budget shared by all admitted imports and exports. */
+    private long budgetBytes;
+    /** Estimated heap use of the imports and exports running now. */
+    private long inFlightBytes;
+    private int running;
+    /** Requests waiting for budget. */
+    private int queued;
+    private long admitted;
+    private long rejected;
+    private long averageWaitMillis;
+    private long maxWaitMillis;
+}
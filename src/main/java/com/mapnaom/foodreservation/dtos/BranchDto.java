@@ -2,6 +2,10 @@ package com.mapnaom.foodreservation.dtos;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.mapnaom.foodreservation.entities.Branch;
+import com.mapnaom.foodreservation.utils.ImportChecks;
+import com.mapnaom.foodreservation.utils.OptionalColumn;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,8 +20,13 @@ import java.io.Serializable;
 @NoArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class BranchDto implements Serializable {
+    @OptionalColumn
     private Long id;
+    @NotBlank(groups = ImportChecks.class, message = "نام شعبه الزامی است.")
+    @Size(max = 255, groups = ImportChecks.class, message = "نام شعبه حداکثر ۲۵۵ کاراکتر است.")
     private String name;
+    @Size(max = 255, groups = ImportChecks.class, message = "کد شعبه حداکثر ۲۵۵ کاراکتر است.")
     private String code;
+    @OptionalColumn
     private boolean active;
 }
\ No newline at end of file
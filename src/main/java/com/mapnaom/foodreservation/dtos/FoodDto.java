@@ -1,6 +1,10 @@
 package com.mapnaom.foodreservation.dtos;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.mapnaom.foodreservation.utils.ImportChecks;
+import com.mapnaom.foodreservation.utils.OptionalColumn;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,6 +19,9 @@ import java.io.Serializable;
 @NoArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class FoodDto implements Serializable {
+    @OptionalColumn
     private Long id;
+    @NotBlank(groups = ImportChecks.class, message = "نام غذا الزامی است.")
+    @Size(max = 255, groups = ImportChecks.class, message = "نام غذا حداکثر ۲۵۵ کاراکتر است.")
     private String name;
 }
\ No newline at end of file
@@ -2,6 +2,10 @@ package com.mapnaom.foodreservation.dtos;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.mapnaom.foodreservation.entities.FoodOption;
+import com.mapnaom.foodreservation.utils.ImportChecks;
+import com.mapnaom.foodreservation.utils.OptionalColumn;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,8 +22,14 @@ import java.math.BigDecimal;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class FoodOptionDto implements Serializable {
     private Long id;
+    @OptionalColumn
+    @PositiveOrZero(groups = ImportChecks.class, message = "قیمت نمی‌تواند منفی باشد.")
     private BigDecimal price;
+    @OptionalColumn
     private Long menuId;
+    @OptionalColumn
     private Long foodId;
+    @OptionalColumn
+    @Size(max = 255, groups = ImportChecks.class, message = "نام غذا حداکثر ۲۵۵ کاراکتر است.")
     private String foodName;
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.mapnaom.foodreservation.dtos;
+
+import com.mapnaom.foodreservation.enums.ImportJobState;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Status snapshot of a background import job, returned by the upload and polling endpoints.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportJobDto implements Serializable {
+    private String id;
+    private String type;
+    private String fileName;
+    private ImportJobState state;
+    private long rowsParsed;
+    private long rowsPersisted;
+    private long rowsFailed;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String message;
+}
@@ -1,25 +1,30 @@
 package com.mapnaom.foodreservation.dtos;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.mapnaom.foodreservation.utils.ExcelCellError;
+import com.mapnaom.foodreservation.utils.ImportErrorLog;
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * DTO representing the response of an import operation specific to Excel parsing.
- * It contains the total number of successful and failed imports, a map of errors encountered,
- * and a list of successfully imported top-level DTOs.
+ * It contains the total number of successful and failed imports, the errors encountered,
+ * and the successfully imported top-level DTOs.
+ * <p>
+ * Memory is bounded regardless of the file size: at most {@link #DEFAULT_SUCCESS_SAMPLE_LIMIT} imported DTOs are
+ * kept, and errors are recorded in an {@link ImportErrorLog}, which keeps a capped sample in compact form and
+ * spills the full list to a temporary file. Use {@link #toSummary()} for a response without the imported DTOs.
  *
  * @param <T> the type of the top-level imported data
  */
 @Getter
-@Setter
-@RequiredArgsConstructor
 public class ImportResponse<T> {
+
+    public static final int DEFAULT_SUCCESS_SAMPLE_LIMIT = 1000;
+
     /**
      * The total number of successfully imported records.
      */
@@ -31,25 +36,79 @@ public class ImportResponse<T> {
     private final AtomicLong totalFailed = new AtomicLong(0);
 
     /**
-     * A map of row indices to lists of errors encountered during import.
-     * Key: Row number (1-based index).
-     * Value: List of errors for that row.
+     * The first successfully imported top-level DTO instances, at most {@code successSampleLimit} of them.
+     * Synchronized, because parallel imports and background jobs may add to it from several threads.
      */
-    private final Map<Integer, List<ExcelCellError>> errors = new ConcurrentHashMap<>();
+    private final List<T> successfulImports = Collections.synchronizedList(new ArrayList<>());
 
     /**
-     * A list of successfully imported top-level DTO instances.
+     * True if the same file had already been imported completely, so it was not read again;
+     * the totals are those of the earlier import.
      */
-    private final List<T> successfulImports = new ArrayList<>();
+    private volatile boolean alreadyImported;
+
+    /**
+     * The last row committed by an earlier, interrupted import of the same file that this import resumed after,
+     * or 0 if the file was imported from the start. The totals include the rows of the earlier import.
+     */
+    private volatile int resumedAfterRow;
+
+    @JsonIgnore
+    private final int successSampleLimit;
+
+    @Getter(AccessLevel.NONE)
+    private final ImportErrorLog errorLog;
+
+    public ImportResponse() {
+        this(DEFAULT_SUCCESS_SAMPLE_LIMIT, ImportErrorLog.DEFAULT_SAMPLE_LIMIT);
+    }
+
+    /**
+     * @param successSampleLimit the maximum number of imported DTOs to keep
+     * @param errorSampleLimit   the maximum number of errors to keep in memory
+     */
+    public ImportResponse(int successSampleLimit, int errorSampleLimit) {
+        this.successSampleLimit = successSampleLimit;
+        this.errorLog = new ImportErrorLog(errorSampleLimit);
+    }
 
     /**
-     * Increments the success count and adds the imported instance to the list.
+     * Increments the success count and keeps the imported instance while the sample has room.
      *
      * @param instance the successfully imported DTO instance
      */
     public void incrementSuccess(T instance) {
         totalSuccess.incrementAndGet();
-        successfulImports.add(instance);
+        synchronized (successfulImports) {
+            if (successfulImports.size() < successSampleLimit) {
+                successfulImports.add(instance);
+            }
+        }
+    }
+
+    /**
+     * Reports the totals of an earlier complete import of the same file instead of importing it again.
+     *
+     * @param success the rows saved by the earlier import
+     * @param failed  the rows it rejected
+     */
+    public void markAlreadyImported(long success, long failed) {
+        alreadyImported = true;
+        totalSuccess.addAndGet(success);
+        totalFailed.addAndGet(failed);
+    }
+
+    /**
+     * Records that this import continues an interrupted one and starts from its totals.
+     *
+     * @param afterRow the last row the earlier import committed
+     * @param success  the rows saved by the earlier import
+     * @param failed   the rows it rejected
+     */
+    public void markResumed(int afterRow, long success, long failed) {
+        resumedAfterRow = afterRow;
+        totalSuccess.addAndGet(success);
+        totalFailed.addAndGet(failed);
     }
 
     /**
@@ -60,17 +119,77 @@ public class ImportResponse<T> {
     }
 
     /**
-     * Adds an error to the errors map for a specific row.
+     * Adds an error for a specific row.
      *
      * @param rowIndex the row index where the error occurred (1-based)
      * @param error    the error to add
      */
     public void addError(int rowIndex, ExcelCellError error) {
-        errors.computeIfAbsent(rowIndex, k -> new ArrayList<>()).add(error);
+        errorLog.add(rowIndex, -1, error.getMessage());
+    }
+
+    /**
+     * Adds an error for a specific cell without allocating an {@link ExcelCellError}.
+     *
+     * @param rowIndex the row index where the error occurred (1-based), or -1 for the whole file
+     * @param column   the 0-based column index, or -1 if unknown
+     * @param message  the error message
+     */
+    public void addError(int rowIndex, int column, String message) {
+        errorLog.add(rowIndex, column, message);
+    }
+
+    /**
+     * Returns the in-memory error sample grouped by row.
+     * Key: Row number (1-based index).
+     * Value: List of errors for that row.
+     *
+     * @return the errors, ordered by row
+     */
+    public Map<Integer, List<ExcelCellError>> getErrors() {
+        Map<Integer, List<ExcelCellError>> errors = new TreeMap<>();
+        for (ExcelCellError error : errorLog.sample()) {
+            errors.computeIfAbsent(error.getRow(), k -> new ArrayList<>()).add(error);
+        }
+        return errors;
+    }
+
+    public long getErrorCount() {
+        return errorLog.getCount();
+    }
+
+    /**
+     * @return true if {@link #getErrors()} holds only part of the errors
+     */
+    public boolean isErrorsTruncated() {
+        return errorLog.isTruncated();
+    }
+
+    /**
+     * @return true if {@link #getSuccessfulImports()} holds only part of the imported DTOs
+     */
+    public boolean isSuccessesTruncated() {
+        return totalSuccess.get() > successfulImports.size();
+    }
+
+    /**
+     * @return the full error list, for paging and download
+     */
+    @JsonIgnore
+    public ImportErrorLog getErrorLog() {
+        return errorLog;
+    }
+
+    /**
+     * @return the counts and the error sample, without the imported DTOs
+     */
+    public ImportSummaryDto toSummary() {
+        return new ImportSummaryDto(totalSuccess.get(), totalFailed.get(), errorLog.getCount(),
+                errorLog.isTruncated(), errorLog.sample(), alreadyImported, resumedAfterRow);
     }
 
     /**
-     * Generates a summary of the import process, including total successes, failures, and detailed errors.
+     * Generates a summary of the import process, including total successes, failures, and the sampled errors.
      *
      * @return a string summarizing the import results
      */
@@ -80,12 +199,17 @@ public class ImportResponse<T> {
                 .append("Total Success: ").append(totalSuccess.get()).append("\n")
                 .append("Total Failed: ").append(totalFailed.get()).append("\n");
 
+        Map<Integer, List<ExcelCellError>> errors = getErrors();
         if (!errors.isEmpty()) {
             summary.append("Errors:\n");
             errors.forEach((row, errorList) -> {
                 summary.append("Row ").append(row).append(":\n");
                 errorList.forEach(error -> summary.append("  - ").append(error.getMessage()).append("\n"));
             });
+            if (errorLog.isTruncated()) {
+                summary.append("... ").append(errorLog.getCount() - errors.values().stream().mapToInt(List::size).sum())
+                        .append(" more errors\n");
+            }
         } else {
             summary.append("No errors encountered.\n");
         }
@@ -0,0 +1,26 @@
+package com.mapnaom.foodreservation.dtos;
+
+import com.mapnaom.foodreservation.utils.ExcelCellError;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Summary-only view of an {@link ImportResponse}: the counts and the in-memory error sample, without the imported rows.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportSummaryDto implements Serializable {
+    private long totalSuccess;
+    private long totalFailed;
+    private long errorCount;
+    /** True if {@code errorSample} holds only part of the errors; the rest can be paged from the import job. */
+    private boolean errorsTruncated;
+    private List<ExcelCellError> errorSample;
+    private boolean alreadyImported;
+    private int resumedAfterRow;
+}
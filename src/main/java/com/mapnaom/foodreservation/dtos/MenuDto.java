@@ -4,6 +4,8 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.mapnaom.foodreservation.entities.Menu;
 import com.mapnaom.foodreservation.utils.Excel;
 import com.mapnaom.foodreservation.utils.ExcelStrategy;
+import com.mapnaom.foodreservation.utils.OptionalColumn;
+import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -26,7 +28,14 @@ import java.util.Set;
 public class MenuDto implements Serializable {
     private Long id;
     private LocalDate date;
+    @OptionalColumn
     private Long branchId;
+    /**
+     * Natural key of the branch, used by imports instead of {@code branchId} for branches created in the same workbook.
+     */
+    @OptionalColumn
+    private String branchCode;
     private Long contractorId;
+    @Valid
     private Set<FoodOptionDto> foodOptions = new LinkedHashSet<>();
 }
\ No newline at end of file
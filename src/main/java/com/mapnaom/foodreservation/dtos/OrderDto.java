@@ -2,6 +2,7 @@ package com.mapnaom.foodreservation.dtos;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.mapnaom.foodreservation.entities.Order;
+import com.mapnaom.foodreservation.utils.Excel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,9 +18,14 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class OrderDto implements Serializable {
+    @Excel(name = "شناسه")
     private Long id;
+    @Excel(name = "شناسه کارمند")
     private Long employeeId;
+    @Excel(name = "شناسه گزینه غذا")
     private Long foodOptionId;
+    @Excel(name = "تاریخ")
     private LocalDate date;
+    @Excel(name = "وضعیت")
     private String status;
 }
\ No newline at end of file
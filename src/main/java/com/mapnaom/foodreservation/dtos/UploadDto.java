@@ -0,0 +1,28 @@
+package com.mapnaom.foodreservation.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * State of a chunked upload, returned after every chunk so an interrupted client knows what to send again.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadDto implements Serializable {
+    private String id;
+    private String fileName;
+    private long size;
+    private long receivedBytes;
+    /** Byte ranges still missing, inclusive, in the form of a Content-Range, e.g. {@code 1048576-2097151}. */
+    private List<String> missingRanges;
+    /** True once the upload has been completed and its checksum verified. */
+    private boolean complete;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,28 @@
+package com.mapnaom.foodreservation.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Starts a chunked upload of an import file.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadRequestDto implements Serializable {
+    @NotBlank
+    private String fileName;
+    /** The content type of the file, if the client knows it; otherwise the format follows from the file name. */
+    private String contentType;
+    @Positive
+    private long size;
+    /** SHA-256 of the whole file as hex; may instead be given when the upload is completed. */
+    @Pattern(regexp = "[0-9a-fA-F]{64}")
+    private String sha256;
+}
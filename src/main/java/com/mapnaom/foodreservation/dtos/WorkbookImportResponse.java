@@ -0,0 +1,37 @@
+package com.mapnaom.foodreservation.dtos;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Response of a multi-sheet workbook import: one {@link ImportResponse} per imported sheet, in import order.
+ * Row numbers in the errors of a sheet refer to that sheet.
+ */
+@Getter
+public class WorkbookImportResponse {
+
+    private final Map<String, ImportResponse<?>> sheets = new LinkedHashMap<>();
+
+    public void addSheet(String sheetName, ImportResponse<?> response) {
+        sheets.put(sheetName, response);
+    }
+
+    public long getTotalSuccess() {
+        return sheets.values().stream().mapToLong(response -> response.getTotalSuccess().get()).sum();
+    }
+
+    public long getTotalFailed() {
+        return sheets.values().stream().mapToLong(response -> response.getTotalFailed().get()).sum();
+    }
+
+    /**
+     * @return the summary of every sheet, without the imported DTOs
+     */
+    public Map<String, ImportSummaryDto> toSummary() {
+        Map<String, ImportSummaryDto> summaries = new LinkedHashMap<>();
+        sheets.forEach((sheet, response) -> summaries.put(sheet, response.toSummary()));
+        return summaries;
+    }
+}
@@ -1,5 +1,7 @@
 package com.mapnaom.foodreservation.entities;
 
+import com.mapnaom.foodreservation.utils.GeneratedId;
+import com.mapnaom.foodreservation.utils.PersianTextNormalizer;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.proxy.HibernateProxy;
@@ -12,15 +14,29 @@ import java.util.Set;
 @Setter
 @ToString
 @RequiredArgsConstructor
+@Table(indexes = {
+        @Index(name = "ix_branch_normalized_name", columnList = "normalized_name"),
+        @Index(name = "ix_branch_normalized_code", columnList = "normalized_code")
+})
 public class Branch {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedId
     private Long id;
 
     private String name;
     private String code;
     private boolean active;
 
+    /** {@link #name} after Persian normalization, for indexed duplicate checks of imports; kept by {@link #normalize()}. */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "normalized_name")
+    private String normalizedName;
+
+    /** {@link #code} after Persian normalization, for indexed lookups of imports; kept by {@link #normalize()}. */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "normalized_code")
+    private String normalizedCode;
+
     @OneToMany(mappedBy = "branch")
     @ToString.Exclude
     private Set<Employee> employees;
@@ -32,6 +48,13 @@ public class Branch {
     @JoinColumn(name = "contractor_id")
     private Contractor contractor;
 
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        normalizedName = PersianTextNormalizer.normalize(name);
+        normalizedCode = PersianTextNormalizer.normalize(code);
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
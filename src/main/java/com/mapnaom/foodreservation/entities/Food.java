@@ -1,5 +1,7 @@
 package com.mapnaom.foodreservation.entities;
 
+import com.mapnaom.foodreservation.utils.GeneratedId;
+import com.mapnaom.foodreservation.utils.PersianTextNormalizer;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -12,16 +14,28 @@ import java.util.List;
 @Setter
 @Getter
 @Entity
+@Table(indexes = @Index(name = "ix_food_normalized_name", columnList = "normalized_name"))
 public class Food {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedId
     private Long id;
     private String name;
 
+    /** {@link #name} after Persian normalization, for indexed lookups of imports; kept by {@link #normalize()}. */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "normalized_name")
+    private String normalizedName;
+
     @OneToMany(mappedBy = "food", orphanRemoval = true)
     private List<FoodOption> foodOptions = new ArrayList<>();
 
     public Food(String name) {
         this.name = name;
     }
+
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        normalizedName = PersianTextNormalizer.normalize(name);
+    }
 }
@@ -1,5 +1,6 @@
 package com.mapnaom.foodreservation.entities;
 
+import com.mapnaom.foodreservation.utils.GeneratedId;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.proxy.HibernateProxy;
@@ -15,6 +16,7 @@ import java.util.Set;
 @Entity
 public class FoodOption {
     @Id
+    @GeneratedId
     private Long id;
     private BigDecimal price;
 
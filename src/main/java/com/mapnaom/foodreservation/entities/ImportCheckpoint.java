@@ -0,0 +1,47 @@
+package com.mapnaom.foodreservation.entities;
+
+import com.mapnaom.foodreservation.enums.ImportCheckpointStatus;
+import com.mapnaom.foodreservation.utils.GeneratedId;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of importing one file into one target: the SHA-256 fingerprint of the file, the last row whose chunk
+ * has committed, and the counts so far. Updated in the transaction of every chunk, so it never claims rows that
+ * were rolled back.
+ */
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Entity
+@Table(name = "import_checkpoint",
+        uniqueConstraints = @UniqueConstraint(name = "uk_import_checkpoint_file", columnNames = {"fingerprint", "import_key"}))
+public class ImportCheckpoint {
+    @Id
+    @GeneratedId
+    private Long id;
+
+    /** Hex SHA-256 of the file content. */
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    /** What the file was imported into, e.g. {@code BranchDto}, or {@code MenuDto#Menu} for a workbook sheet. */
+    @Column(name = "import_key", nullable = false)
+    private String importKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImportCheckpointStatus status;
+
+    /** The 1-based row number of the last row of the last committed chunk, or 0 if none has committed. */
+    private int lastCommittedRow;
+
+    private long totalSuccess;
+    private long totalFailed;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
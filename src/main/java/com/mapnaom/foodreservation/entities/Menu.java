@@ -1,5 +1,6 @@
 package com.mapnaom.foodreservation.entities;
 
+import com.mapnaom.foodreservation.utils.GeneratedId;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.proxy.HibernateProxy;
@@ -17,7 +18,7 @@ import java.util.Set;
 @Entity
 public class Menu {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedId
     private Long id;
 
     private LocalDate date;
@@ -1,6 +1,7 @@
 package com.mapnaom.foodreservation.entities;
 
 import com.mapnaom.foodreservation.enums.RoleName;
+import com.mapnaom.foodreservation.utils.GeneratedId;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -17,6 +18,7 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class Role {
     @Id
+    @GeneratedId
     private Long id;
 
     @Enumerated(EnumType.STRING)
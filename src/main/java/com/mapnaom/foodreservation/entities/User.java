@@ -1,6 +1,7 @@
 package com.mapnaom.foodreservation.entities;
 
 import com.mapnaom.foodreservation.enums.RoleName;
+import com.mapnaom.foodreservation.utils.GeneratedId;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.proxy.HibernateProxy;
@@ -17,7 +18,7 @@ import java.util.Set;
 @Table(name = "users")
 public abstract class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedId
     private Long id;
 
     @Column(unique = true)
@@ -0,0 +1,6 @@
+package com.mapnaom.foodreservation.enums;
+
+public enum IdStrategy {
+    POOLED_SEQUENCE,
+    TIME_ORDERED
+}
@@ -0,0 +1,7 @@
+package com.mapnaom.foodreservation.enums;
+
+public enum ImportCheckpointStatus {
+    RUNNING,
+    INTERRUPTED,
+    COMPLETED
+}
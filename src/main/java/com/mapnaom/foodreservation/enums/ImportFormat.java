@@ -0,0 +1,72 @@
+package com.mapnaom.foodreservation.enums;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * File formats accepted by the importers. The format of an upload is negotiated from its content type, falling back
+ * to the file extension when the content type is generic or ambiguous (browsers on Windows, for example, send
+ * {@code application/vnd.ms-excel} for CSV files, so for that type a known extension wins over the legacy XLS format).
+ * Staged uploads keep the extension of their format.
+ */
+public enum ImportFormat {
+    XLSX(".xlsx", Set.of("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")),
+    CSV(".csv", Set.of("text/csv", "application/csv", "text/comma-separated-values")),
+    TSV(".tsv", Set.of("text/tab-separated-values")),
+    XLS(".xls", Set.of("application/vnd.ms-excel"));
+
+    private final String extension;
+    private final Set<String> contentTypes;
+
+    ImportFormat(String extension, Set<String> contentTypes) {
+        this.extension = extension;
+        this.contentTypes = contentTypes;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @return true for workbook formats, which can hold several named sheets
+     */
+    public boolean hasSheets() {
+        return this == XLSX || this == XLS;
+    }
+
+    /**
+     * Resolves the format of an upload.
+     *
+     * @param contentType the declared content type, may be null
+     * @param fileName    the original file name, may be null
+     * @return the format, or empty if the upload is not in a supported format
+     */
+    public static Optional<ImportFormat> negotiate(String contentType, String fileName) {
+        if (contentType != null) {
+            String mediaType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+            for (ImportFormat format : values()) {
+                if (format.contentTypes.contains(mediaType)) {
+                    return format == XLS ? fromFileName(fileName).or(() -> Optional.of(XLS)) : Optional.of(format);
+                }
+            }
+        }
+        return fromFileName(fileName);
+    }
+
+    /**
+     * @param fileName a file name or path, may be null
+     * @return the format matching the extension, or empty if there is none
+     */
+    public static Optional<ImportFormat> fromFileName(String fileName) {
+        if (fileName != null) {
+            String lowerCaseName = fileName.toLowerCase(Locale.ROOT);
+            for (ImportFormat format : values()) {
+                if (lowerCaseName.endsWith(format.extension)) {
+                    return Optional.of(format);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,8 @@
+package com.mapnaom.foodreservation.enums;
+
+public enum ImportJobState {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,20 @@
+package com.mapnaom.foodreservation.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an import or export is not admitted because the memory budget for such work is used up.
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    /** When the client may try again. */
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -1,10 +1,40 @@
 package com.mapnaom.foodreservation.exceptions;
 
 public class ExcelDataImportException extends RuntimeException{
+    private int column = -1;
+
     public ExcelDataImportException(Exception e,String message) {
         super(message, e);
     }
     public ExcelDataImportException(String message) {
         super(message);
     }
+
+    /**
+     * @return the 0-based column of the cell that failed, or -1 if the error is not about a single cell
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * Records the column of the cell that failed, unless one is already known.
+     *
+     * @param column the 0-based column index
+     * @return this exception
+     */
+    public ExcelDataImportException atColumn(int column) {
+        if (this.column < 0) {
+            this.column = column;
+        }
+        return this;
+    }
+
+    /**
+     * @param e any exception
+     * @return the failing column if {@code e} is an {@link ExcelDataImportException} that knows it, otherwise -1
+     */
+    public static int columnOf(Throwable e) {
+        return e instanceof ExcelDataImportException importException ? importException.column : -1;
+    }
 }
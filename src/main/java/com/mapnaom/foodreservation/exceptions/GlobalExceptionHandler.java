@@ -3,6 +3,7 @@ package com.mapnaom.foodreservation.exceptions;
 import jakarta.validation.ConstraintViolationException;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -93,6 +94,65 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * مدیریت TaskRejectedException که هنگام پر بودن صف کارهای وارد کردن رخ می‌دهد
+     *
+     * @param ex استثنا
+     * @param request اطلاعات درخواست
+     * @return پاسخ با وضعیت 503 و پیام خطا
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleTaskRejectedException(TaskRejectedException ex, WebRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                "Import queue is full. Please try again later.",
+                request.getDescription(false)
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * مدیریت AdmissionRejectedException که هنگام پر بودن بودجه حافظه برای ورود و خروج داده رخ می‌دهد
+     *
+     * @param ex استثنا
+     * @param request اطلاعات درخواست
+     * @return پاسخ با وضعیت 429، سرآیند Retry-After و پیام خطا
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleAdmissionRejectedException(AdmissionRejectedException ex, WebRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too Many Requests",
+                ex.getMessage(),
+                request.getDescription(false)
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                .body(errorResponse);
+    }
+
+    /**
+     * مدیریت UploadException که هنگام دریافت بخش‌های یک بارگذاری چندبخشی یا تکمیل آن رخ می‌دهد
+     *
+     * @param ex استثنا
+     * @param request اطلاعات درخواست
+     * @return پاسخ با وضعیت تعیین شده در استثنا و پیام خطا
+     */
+    @ExceptionHandler(UploadException.class)
+    public ResponseEntity<ErrorResponse> handleUploadException(UploadException ex, WebRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now(),
+                ex.getStatus().value(),
+                ex.getStatus().getReasonPhrase(),
+                ex.getMessage(),
+                request.getDescription(false)
+        );
+        return new ResponseEntity<>(errorResponse, ex.getStatus());
+    }
+
     /**
      * مدیریت سایر استثناهای عمومی
      *
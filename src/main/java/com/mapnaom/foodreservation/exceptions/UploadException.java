@@ -0,0 +1,24 @@
+package com.mapnaom.foodreservation.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a chunk or the completion of a chunked upload cannot be accepted.
+ */
+public class UploadException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    /**
+     * @param status  the status to answer with, e.g. 416 for a range outside the file
+     * @param message the message for the client
+     */
+    public UploadException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
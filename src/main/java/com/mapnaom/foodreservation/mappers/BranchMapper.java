@@ -8,6 +8,13 @@ import org.mapstruct.*;
 public interface BranchMapper {
     Branch toEntity(BranchDto branchDto);
 
+    /**
+     * Maps an imported row to a new entity. The id column of a sheet, e.g. one exported earlier, is ignored: imported
+     * rows are always inserted and get a generated id.
+     */
+    @Mapping(target = "id", ignore = true)
+    Branch toImportEntity(BranchDto branchDto);
+
     BranchDto toDto(Branch branch);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
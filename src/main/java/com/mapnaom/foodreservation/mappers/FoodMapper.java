@@ -8,6 +8,13 @@ import org.mapstruct.*;
 public interface FoodMapper {
     Food toEntity(FoodDto foodDto);
 
+    /**
+     * Maps an imported row to a new entity. The id column of a sheet, e.g. one exported earlier, is ignored: imported
+     * rows are always inserted and get a generated id.
+     */
+    @Mapping(target = "id", ignore = true)
+    Food toImportEntity(FoodDto foodDto);
+
     FoodDto toDto(Food food);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
@@ -54,6 +54,7 @@ public abstract class MenuMapper {
 
     @Mapping(source = "contractor", target = "contractorId", qualifiedByName = "contractorToContractorId")
     @Mapping(source = "branch", target = "branchId", qualifiedByName = "branchToBranchId")
+    @Mapping(source = "branch.code", target = "branchCode")
     public abstract MenuDto toDto(Menu menu);
 
     @AfterMapping
@@ -4,7 +4,12 @@ import com.mapnaom.foodreservation.entities.Employee;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 // Repository for Employee
 @Repository
 public interface EmployeeRepository extends UserRepository<Employee>, JpaSpecificationExecutor<Employee> {
+
+    List<Employee> findByEmployeeCodeIn(Collection<String> employeeCodes);
 }
@@ -1,10 +1,8 @@
 package com.mapnaom.foodreservation.repositories;
 
 import com.mapnaom.foodreservation.entities.FoodOption;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface FoodOptionRepository extends JpaRepository<FoodOption, Long>, JpaSpecificationExecutor<FoodOption> {
+public interface FoodOptionRepository extends StreamingJpaRepository<FoodOption, Long> {
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.mapnaom.foodreservation.repositories;
+
+import com.mapnaom.foodreservation.entities.ImportCheckpoint;
+import com.mapnaom.foodreservation.enums.ImportCheckpointStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, Long> {
+
+    /**
+     * Finds and locks a checkpoint, so that two uploads of the same file cannot both claim it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ImportCheckpoint> findByFingerprintAndImportKey(String fingerprint, String importKey);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update ImportCheckpoint c set c.lastCommittedRow = greatest(c.lastCommittedRow, :row), "
+            + "c.totalSuccess = c.totalSuccess + :saved, c.totalFailed = c.totalFailed + :failed, c.updatedAt = :now "
+            + "where c.id = :id")
+    int advance(@Param("id") Long id, @Param("row") int row, @Param("saved") long saved, @Param("failed") long failed,
+                @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update ImportCheckpoint c set c.status = :status, c.updatedAt = :now where c.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") ImportCheckpointStatus status, @Param("now") LocalDateTime now);
+}
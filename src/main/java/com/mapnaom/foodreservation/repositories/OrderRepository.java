@@ -1,10 +1,8 @@
 package com.mapnaom.foodreservation.repositories;
 
 import com.mapnaom.foodreservation.entities.Order;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+public interface OrderRepository extends StreamingJpaRepository<Order, Long> {
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.mapnaom.foodreservation.repositories;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Repository that can stream the entities matching a {@link Specification} from a database cursor, for exports
+ * of whole tables. Implemented for every repository by {@link StreamingJpaRepositoryImpl}.
+ *
+ * @param <T>  the entity type
+ * @param <ID> the id type
+ */
+@NoRepositoryBean
+public interface StreamingJpaRepository<T, ID> extends JpaRepository<T, ID>, JpaSpecificationExecutor<T> {
+
+    /**
+     * Streams the entities matching {@code specification}, mapped by {@code mapper}, from a forward-only cursor.
+     * Entities are loaded read-only, {@link StreamingJpaRepositoryImpl#FETCH_SIZE} rows per round trip, and the
+     * persistence context is cleared every {@code FETCH_SIZE} rows once they have been mapped, so memory use does not
+     * grow with the number of rows. Any other entity managed by the same persistence context is detached as well.
+     * <p>
+     * The entities are loaded with a fetch graph of {@code fetchedPaths}: those associations are fetch-joined into the
+     * cursor query, and all others, even eager ones, are left as uninitialized proxies. Every association the mapper
+     * reads beyond its id must therefore be listed, or it is loaded by a query per row; re-loaded, moreover, after each
+     * clear of the persistence context.
+     * <p>
+     * Must be called inside a (read-only) transaction that stays open while the stream is consumed, and the stream
+     * must be closed to release the cursor.
+     *
+     * @param specification the filter, as used by the list endpoints; may be null
+     * @param sort          the order of the rows
+     * @param fetchedPaths  the to-one associations the mapper reads, e.g. {@code food} or {@code foodOption.food}
+     * @param mapper        maps each entity, e.g. to its DTO, while it is still attached
+     * @param <R>           the mapped type
+     * @return the mapped rows
+     */
+    <R> Stream<R> streamAll(Specification<T> specification, Sort sort, Collection<String> fetchedPaths,
+                            Function<? super T, ? extends R> mapper);
+}
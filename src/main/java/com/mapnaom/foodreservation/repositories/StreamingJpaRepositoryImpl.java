@@ -0,0 +1,72 @@
+package com.mapnaom.foodreservation.repositories;
+
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Subgraph;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Base class of all repositories, adding {@link StreamingJpaRepository#streamAll} to {@link SimpleJpaRepository}.
+ *
+ * @param <T>  the entity type
+ * @param <ID> the id type
+ */
+public class StreamingJpaRepositoryImpl<T, ID> extends SimpleJpaRepository<T, ID> implements StreamingJpaRepository<T, ID> {
+
+    /**
+     * Rows fetched per round trip, and rows after which the persistence context is cleared.
+     */
+    public static final int FETCH_SIZE = 1000;
+
+    private final EntityManager entityManager;
+
+    public StreamingJpaRepositoryImpl(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public <R> Stream<R> streamAll(Specification<T> specification, Sort sort, Collection<String> fetchedPaths,
+                                   Function<? super T, ? extends R> mapper) {
+        TypedQuery<T> query = getQuery(specification, sort);
+        // Without a fetch graph, every eager association would be selected separately for each row
+        query.setHint(AvailableHints.HINT_SPEC_FETCH_GRAPH, fetchGraph(fetchedPaths));
+        // PostgreSQL only uses a cursor for a fetch size inside a transaction, which streamAll requires anyway
+        query.setHint(AvailableHints.HINT_FETCH_SIZE, FETCH_SIZE);
+        query.setHint(AvailableHints.HINT_READ_ONLY, true);
+        int[] mapped = {0};
+        return query.getResultStream().map(entity -> {
+            R row = mapper.apply(entity);
+            if (++mapped[0] % FETCH_SIZE == 0) {
+                entityManager.clear();
+            }
+            return row;
+        });
+    }
+
+    private EntityGraph<T> fetchGraph(Collection<String> paths) {
+        EntityGraph<T> graph = entityManager.createEntityGraph(getDomainClass());
+        for (String path : paths) {
+            String[] parts = path.split("\\.");
+            if (parts.length == 1) {
+                graph.addAttributeNodes(parts[0]);
+                continue;
+            }
+            Subgraph<?> subgraph = graph.addSubgraph(parts[0]);
+            for (int i = 1; i < parts.length - 1; i++) {
+                subgraph = subgraph.addSubgraph(parts[i]);
+            }
+            subgraph.addAttributeNodes(parts[parts.length - 1]);
+        }
+        return graph;
+    }
+}
@@ -6,14 +6,17 @@ import com.mapnaom.foodreservation.dtos.Select;
 import com.mapnaom.foodreservation.exceptions.ResourceNotFoundException;
 import com.mapnaom.foodreservation.mappers.BranchMapper;
 import com.mapnaom.foodreservation.entities.Branch;
+import com.mapnaom.foodreservation.enums.ImportFormat;
 import com.mapnaom.foodreservation.repositories.BranchRepository;
 import com.mapnaom.foodreservation.searchForms.BranchSearchForm;
 import com.mapnaom.foodreservation.specifications.BranchSpecification;
 import com.mapnaom.foodreservation.utils.ExcelCellError;
 import com.mapnaom.foodreservation.utils.ExcelImporter;
+import com.mapnaom.foodreservation.utils.ImportProgress;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
@@ -22,9 +25,8 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Map;
 
 import java.util.stream.Collectors;
 
@@ -34,6 +36,12 @@ public class BranchService {
 
     private final BranchRepository branchRepository;
     private final BranchMapper branchMapper;
+    private final ImportPipeline importPipeline;
+    private final DuplicateNameDetector duplicateNameDetector;
+    private final ImportAdmissionService importAdmissionService;
+
+    @Value("${import.chunk-size.branch:500}")
+    private int importChunkSize;
 
     Logger logger = LoggerFactory.getLogger(BranchService.class);
 
@@ -119,8 +127,14 @@ public class BranchService {
     }
 
 
-    @Transactional
-    public ImportResponse<BranchDto> importBranchesFromExcel(MultipartFile file) {
+    /**
+     * وارد کردن شعب از فایل Excel آپلود شده
+     *
+     * @param file   فایل Excel حاوی داده‌های شعب
+     * @param dryRun اگر true باشد ردیف‌ها فقط اعتبارسنجی می‌شوند و چیزی ذخیره نمی‌شود
+     * @return پاسخ وارد کردن شامل تعداد موفقیت‌آمیز و پیام‌های خطا
+     */
+    public ImportResponse<BranchDto> importBranchesFromExcel(MultipartFile file, boolean dryRun) {
         ImportResponse<BranchDto> response = new ImportResponse<>();
 
         // Preliminary validations
@@ -130,50 +144,48 @@ public class BranchService {
             return response;
         }
 
-        String contentType = file.getContentType();
-        if (!"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet".equals(contentType) &&
-                !"application/vnd.ms-excel".equals(contentType)) {
+        if (ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename()).isEmpty()) {
             response.incrementFailed();
-            response.addError(-1, new ExcelCellError("نوع فایل نامعتبر است. لطفاً یک فایل Excel آپلود کنید."));
+            response.addError(-1, new ExcelCellError("نوع فایل نامعتبر است. لطفاً یک فایل Excel یا CSV آپلود کنید."));
             return response;
         }
 
-        try {
-            // Step 1: Import branches from Excel
-            response = ExcelImporter.importFromExcel(file, BranchDto.class);
-
-            // Step 2: Fetch existing branches to check for duplicates
-            Map<String, Branch> branchMap = branchRepository.findAll()
-                    .stream()
-                    .collect(Collectors.toMap(Branch::getName, branch -> branch));
-
-            // Step 3: Validate and prepare branches for saving using a for-loop
-            List<BranchDto> successfulImports = response.getSuccessfulImports();
-            List<Branch> validatedList = new ArrayList<>();
-            List<BranchDto> successfullyProcessed = new ArrayList<>(); // Temporary list to store successfully processed branches
-
-            for (BranchDto branchDto : successfulImports) {
-                if (branchMap.containsKey(branchDto.getName())) {
-                    // Add error if branch with the same name already exists
-                    response.addError(branchDto.getId().intValue(),
-                            new ExcelCellError("شعبه با نام " + branchDto.getName() + " قبلا اضافه شده است."));
-                    response.incrementFailed();
-                } else {
-                    validatedList.add(branchMapper.toEntity(branchDto));
-                    successfullyProcessed.add(branchDto); // Store successfully processed items
-                }
+        try (ImportAdmissionService.Permit permit = importAdmissionService.admitImport(file)) {
+            Path stagedFile = ExcelImporter.stage(file);
+            try {
+                return importBranchesFromExcel(stagedFile, new ImportProgress(), dryRun);
+            } finally {
+                ExcelImporter.deleteQuietly(stagedFile);
             }
+        }
+    }
 
-            // Step 4: Save validated branches to the repository
-            if (!validatedList.isEmpty()) {
-                List<Branch> savedAll = branchRepository.saveAll(validatedList);
-                // Add successfully saved branches to the response
-                ImportResponse<BranchDto> finalResponse = response;
-                savedAll.forEach(branch -> finalResponse.incrementSuccess(branchMapper.toDto(branch)));
-            }
+    /**
+     * وارد کردن شعب از فایل Excel ذخیره شده روی دیسک.
+     * ردیف‌ها به صورت دسته‌ای خوانده، اعتبارسنجی و ذخیره می‌شوند و هر دسته در تراکنش جداگانه‌ای ثبت می‌شود.
+     *
+     * @param file     فایل Excel
+     * @param progress شمارنده‌های پیشرفت
+     * @return پاسخ وارد کردن شامل تعداد موفقیت‌آمیز و پیام‌های خطا
+     */
+    public ImportResponse<BranchDto> importBranchesFromExcel(Path file, ImportProgress progress) {
+        return importBranchesFromExcel(file, progress, false);
+    }
 
-            // Add the successfully processed items to the successfulImports list
-            response.getSuccessfulImports().addAll(successfullyProcessed);
+    /**
+     * وارد کردن یا فقط اعتبارسنجی شعب از فایل Excel ذخیره شده روی دیسک.
+     * در حالت آزمایشی (dry run) ردیف‌ها خوانده و اعتبارسنجی می‌شوند ولی چیزی در پایگاه داده ذخیره نمی‌شود.
+     *
+     * @param file     فایل Excel
+     * @param progress شمارنده‌های پیشرفت
+     * @param dryRun   اگر true باشد ردیف‌ها فقط اعتبارسنجی می‌شوند
+     * @return پاسخ وارد کردن شامل تعداد موفقیت‌آمیز و پیام‌های خطا
+     */
+    public ImportResponse<BranchDto> importBranchesFromExcel(Path file, ImportProgress progress, boolean dryRun) {
+        ImportResponse<BranchDto> response = new ImportResponse<>();
+
+        try {
+            importPipeline.run(file, null, BranchDto.class, importChunkSize, new BranchImportHandler(null), response, progress, dryRun);
 
         } catch (DataAccessException e) {
             // Handle exceptions related to database access
@@ -190,5 +202,70 @@ public class BranchService {
         return response;
     }
 
+    /**
+     * وارد کردن برگه شعب یک کارپوشه؛ شناسه شعب ذخیره شده با کد شعبه در جدول کلیدها ثبت می‌شود
+     * تا برگه‌های بعدی بدون پرس‌وجو به آن‌ها ارجاع دهند.
+     *
+     * @param file      فایل Excel
+     * @param sheetName نام برگه
+     * @param keys      جدول کلیدهای طبیعی این ورود
+     * @param progress  شمارنده‌های پیشرفت
+     * @param dryRun    اگر true باشد ردیف‌ها فقط اعتبارسنجی می‌شوند
+     * @return پاسخ وارد کردن برگه
+     */
+    ImportResponse<BranchDto> importBranchSheet(Path file, String sheetName, ImportKeyTable keys, ImportProgress progress,
+                                                boolean dryRun) {
+        ImportResponse<BranchDto> response = new ImportResponse<>();
+        importPipeline.run(file, sheetName, BranchDto.class, importChunkSize, new BranchImportHandler(keys), response, progress, dryRun);
+        return response;
+    }
+
+    /**
+     * اعتبارسنجی و نگاشت شعب وارد شده؛ شعبه‌ای که نام آن در پایگاه داده یا در همان فایل تکراری باشد رد می‌شود.
+     */
+    private class BranchImportHandler implements ImportChunkHandler<BranchDto, Branch> {
+
+        private final DuplicateNameDetector.NameCheck<BranchDto> nameCheck =
+                duplicateNameDetector.forImport(Branch.class, "normalizedName", BranchDto::getName);
+        private final ImportKeyTable keys;
+
+        BranchImportHandler(ImportKeyTable keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public String[] validate(List<BranchDto> chunk, int[] rowIndexes) {
+            DuplicateNameDetector.Duplicate[] duplicates = nameCheck.check(chunk);
+
+            String[] errors = new String[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                if (duplicates[i] == DuplicateNameDetector.Duplicate.EXISTING) {
+                    errors[i] = "شعبه با نام " + chunk.get(i).getName() + " قبلا اضافه شده است.";
+                } else if (duplicates[i] == DuplicateNameDetector.Duplicate.IN_FILE) {
+                    errors[i] = "شعبه با نام " + chunk.get(i).getName() + " در فایل تکراری است.";
+                }
+            }
+            return errors;
+        }
+
+        @Override
+        public Branch toEntity(BranchDto dto) {
+            return branchMapper.toImportEntity(dto);
+        }
+
+        @Override
+        public BranchDto toDto(Branch entity) {
+            return branchMapper.toDto(entity);
+        }
+
+        @Override
+        public void afterCommit(List<BranchDto> saved) {
+            nameCheck.remember(saved);
+            if (keys != null) {
+                saved.forEach(dto -> keys.put(Branch.class, dto.getCode(), dto.getId()));
+            }
+        }
+    }
+
 
 }
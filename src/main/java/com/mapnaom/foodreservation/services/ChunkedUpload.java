@@ -0,0 +1,172 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.dtos.UploadDto;
+import com.mapnaom.foodreservation.enums.ImportFormat;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One chunked upload, tracked by {@link ChunkedUploadService}. Chunks of the same upload may be written by several
+ * request threads at once, each to its own byte range of the staging file, so the bookkeeping of received ranges
+ * and of writes in progress is synchronized on the upload.
+ */
+@Getter
+class ChunkedUpload {
+
+    private final String id;
+    private final String fileName;
+    private final ImportFormat format;
+    private final long size;
+    private final Path stagedFile;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile String sha256;
+    private volatile LocalDateTime lastActivity = createdAt;
+    private volatile boolean complete;
+
+    /** Received byte ranges, start mapped to end (exclusive); adjacent and overlapping ranges are merged. */
+    private final TreeMap<Long, Long> received = new TreeMap<>();
+    private long receivedBytes;
+    private int writesInProgress;
+    private boolean completing;
+    private boolean handingOff;
+
+    ChunkedUpload(String id, String fileName, ImportFormat format, long size, Path stagedFile, String sha256) {
+        this.id = id;
+        this.fileName = fileName;
+        this.format = format;
+        this.size = size;
+        this.stagedFile = stagedFile;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * Registers a write about to start.
+     *
+     * @return false if the upload is being or has been completed and takes no more chunks
+     */
+    synchronized boolean beginWrite() {
+        if (complete || completing) {
+            return false;
+        }
+        writesInProgress++;
+        lastActivity = LocalDateTime.now();
+        return true;
+    }
+
+    /**
+     * Records the bytes a write got into the staging file, which may be fewer than its range if the connection dropped.
+     *
+     * @param start the first byte written
+     * @param end   the end of the written bytes, exclusive
+     */
+    synchronized void endWrite(long start, long end) {
+        writesInProgress--;
+        lastActivity = LocalDateTime.now();
+        if (end <= start) {
+            return;
+        }
+        Map.Entry<Long, Long> before = received.floorEntry(start);
+        if (before != null && before.getValue() >= start) {
+            start = before.getKey();
+            end = Math.max(end, before.getValue());
+        }
+        Map.Entry<Long, Long> next = received.ceilingEntry(start);
+        while (next != null && next.getKey() <= end) {
+            end = Math.max(end, next.getValue());
+            received.remove(next.getKey());
+            next = received.ceilingEntry(start);
+        }
+        received.put(start, end);
+        receivedBytes = received.entrySet().stream().mapToLong(range -> range.getValue() - range.getKey()).sum();
+    }
+
+    /**
+     * Stops taking chunks while the checksum is verified.
+     *
+     * @return false if a write is still in progress or bytes are missing
+     */
+    synchronized boolean beginCompletion() {
+        if (writesInProgress > 0 || receivedBytes < size) {
+            return false;
+        }
+        completing = true;
+        return true;
+    }
+
+    /**
+     * Ends the verification started by {@link #beginCompletion()}. A file that failed it has to be sent again.
+     *
+     * @param verified whether the checksum matched
+     */
+    synchronized void endCompletion(boolean verified) {
+        completing = false;
+        lastActivity = LocalDateTime.now();
+        if (verified) {
+            complete = true;
+        } else {
+            received.clear();
+            receivedBytes = 0;
+        }
+    }
+
+    /**
+     * Ends the verification started by {@link #beginCompletion()} without a result, e.g. if the file could not be read.
+     */
+    synchronized void cancelCompletion() {
+        completing = false;
+    }
+
+    /**
+     * Reserves a completed upload for being handed to an import, so it is not taken, cancelled or evicted meanwhile.
+     *
+     * @return false if the upload is already being handed over
+     */
+    synchronized boolean beginHandoff() {
+        if (handingOff) {
+            return false;
+        }
+        handingOff = true;
+        lastActivity = LocalDateTime.now();
+        return true;
+    }
+
+    /**
+     * Ends the handoff started by {@link #beginHandoff()}, e.g. because the import could not be queued; the upload
+     * can then be taken again.
+     */
+    synchronized void endHandoff() {
+        handingOff = false;
+        lastActivity = LocalDateTime.now();
+    }
+
+    synchronized boolean isHandingOff() {
+        return handingOff;
+    }
+
+    void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    synchronized UploadDto toDto(Duration retention) {
+        List<String> missing = new ArrayList<>();
+        long position = 0;
+        for (Map.Entry<Long, Long> range : received.entrySet()) {
+            if (range.getKey() > position) {
+                missing.add(position + "-" + (range.getKey() - 1));
+            }
+            position = range.getValue();
+        }
+        if (position < size) {
+            missing.add(position + "-" + (size - 1));
+        }
+        return new UploadDto(id, fileName, size, receivedBytes, missing, complete, createdAt, lastActivity.plus(retention));
+    }
+}
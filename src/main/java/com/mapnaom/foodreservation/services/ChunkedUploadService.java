@@ -0,0 +1,311 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.dtos.UploadDto;
+import com.mapnaom.foodreservation.dtos.UploadRequestDto;
+import com.mapnaom.foodreservation.enums.ImportFormat;
+import com.mapnaom.foodreservation.exceptions.ResourceNotFoundException;
+import com.mapnaom.foodreservation.exceptions.UploadException;
+import com.mapnaom.foodreservation.utils.ExcelImporter;
+import com.mapnaom.foodreservation.utils.ImportFingerprint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Chunked, resumable uploads of import files, for files above the multipart limit and for slow links where a
+ * dropped connection should not mean sending the whole file again.
+ * <p>
+ * A client creates an upload with the size of the file, then PUTs byte ranges of it with a {@code Content-Range}
+ * header, in any order and as often as needed. Each chunk is streamed from the request straight into its range of a
+ * staging file with positional {@link FileChannel} writes, so nothing is buffered beyond a small copy buffer and
+ * chunks can arrive in parallel. If a connection drops, the bytes that did arrive are kept, and the upload reports
+ * the ranges still missing. Once all bytes are in, completing the upload verifies the SHA-256 of the staging file;
+ * the verified file is then handed to an import job as it is, without another copy. Uploads that are neither
+ * completed nor used within {@code import.upload.retention} are deleted.
+ */
+@Slf4j
+@Service
+public class ChunkedUploadService {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+|\\*)");
+
+    /**
+     * A completed upload handed to an import. The caller owns the staged file from then on and deletes it.
+     *
+     * @param stagedFile the verified file, with the extension of its format
+     * @param fileName   the original file name
+     * @param format     the format negotiated when the upload was created
+     * @param size       the file size in bytes
+     */
+    public record StagedUpload(Path stagedFile, String fileName, ImportFormat format, long size) {
+    }
+
+    private final long maxSize;
+    private final Duration retention;
+    private final Map<String, ChunkedUpload> uploads = new ConcurrentHashMap<>();
+
+    public ChunkedUploadService(@Value("${import.upload.max-size:1GB}") DataSize maxSize,
+                                @Value("${import.upload.retention:PT24H}") Duration retention) {
+        this.maxSize = maxSize.toBytes();
+        this.retention = retention;
+    }
+
+    /**
+     * Creates an upload and its empty staging file.
+     *
+     * @param request the file name, size and optionally the checksum of the file
+     * @return the state of the new upload
+     * @throws UploadException if the file is not in a supported format or too large
+     */
+    public UploadDto create(UploadRequestDto request) {
+        ImportFormat format = ImportFormat.negotiate(request.getContentType(), request.getFileName())
+                .orElseThrow(() -> new UploadException(HttpStatus.BAD_REQUEST,
+                        "Invalid file type. Please upload an Excel, CSV or TSV file."));
+        if (request.getSize() > maxSize) {
+            throw new UploadException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "File is larger than the upload limit of " + DataSize.ofBytes(maxSize).toMegabytes() + "MB.");
+        }
+        Path stagedFile;
+        try {
+            stagedFile = Files.createTempFile("excel-import-", format.getExtension());
+        } catch (IOException e) {
+            log.error("IO Exception while creating upload staging file: {}", e.getMessage());
+            throw new UploadException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create upload");
+        }
+        ChunkedUpload upload = new ChunkedUpload(UUID.randomUUID().toString(), request.getFileName(), format,
+                request.getSize(), stagedFile, normalize(request.getSha256()));
+        uploads.put(upload.getId(), upload);
+        log.info("Created upload {} for {} ({} bytes)", upload.getId(), upload.getFileName(), upload.getSize());
+        return upload.toDto(retention);
+    }
+
+    /**
+     * @param id the upload id
+     * @return the state of the upload, including the ranges still missing
+     * @throws ResourceNotFoundException if no such upload exists (or it has expired)
+     */
+    public UploadDto getStatus(String id) {
+        return getUpload(id).toDto(retention);
+    }
+
+    /**
+     * Writes one chunk into its byte range of the staging file. Sending a range again overwrites it, so a client
+     * that is unsure whether a chunk arrived can simply repeat it.
+     *
+     * @param id           the upload id
+     * @param contentRange the {@code Content-Range} of the chunk, e.g. {@code bytes 0-1048575/5242880}
+     * @param body         the chunk
+     * @return the state of the upload after the chunk
+     * @throws UploadException if the range is malformed or outside the file, the body is longer than the range,
+     *                         or the upload has been completed
+     */
+    public UploadDto writeChunk(String id, String contentRange, InputStream body) {
+        ChunkedUpload upload = getUpload(id);
+        long[] range = parseContentRange(contentRange, upload.getSize());
+        long start = range[0];
+        long end = range[1] + 1;
+        if (!upload.beginWrite()) {
+            throw new UploadException(HttpStatus.CONFLICT, "Upload " + id + " is already complete.");
+        }
+        long position = start;
+        try (FileChannel channel = FileChannel.open(upload.getStagedFile(), StandardOpenOption.WRITE);
+             ReadableByteChannel source = Channels.newChannel(body)) {
+            ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+            while (true) {
+                buffer.limit((int) Math.min(buffer.capacity(), end - position + 1));
+                int read = source.read(buffer);
+                if (read < 0) {
+                    break;
+                }
+                if (position + buffer.position() > end) {
+                    throw new UploadException(HttpStatus.BAD_REQUEST, "Chunk is longer than its Content-Range " + contentRange + ".");
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            // Keep what arrived; the client sends the rest again
+            log.warn("Upload {}: chunk {} ended after {} of {} bytes: {}", id, contentRange, position - start, end - start, e.getMessage());
+        } finally {
+            upload.endWrite(start, position);
+        }
+        return upload.toDto(retention);
+    }
+
+    /**
+     * Completes an upload once all bytes have arrived, verifying its SHA-256. If the checksum does not match,
+     * the received ranges are reset and the file has to be sent again.
+     *
+     * @param id     the upload id
+     * @param sha256 the SHA-256 of the file as hex, or null if it was given when the upload was created
+     * @return the state of the completed upload
+     * @throws UploadException if bytes are missing, chunks are still being written, no checksum is known
+     *                         or the checksum does not match
+     */
+    public UploadDto complete(String id, String sha256) {
+        ChunkedUpload upload = getUpload(id);
+        if (upload.isComplete()) {
+            return upload.toDto(retention);
+        }
+        if (sha256 != null) {
+            upload.setSha256(normalize(sha256));
+        }
+        if (upload.getSha256() == null) {
+            throw new UploadException(HttpStatus.BAD_REQUEST, "The SHA-256 of the file is required to complete upload " + id + ".");
+        }
+        if (!upload.beginCompletion()) {
+            throw new UploadException(HttpStatus.CONFLICT, "Upload " + id + " is missing bytes or still receiving chunks.");
+        }
+        String actual;
+        try {
+            actual = ImportFingerprint.sha256(upload.getStagedFile());
+        } catch (RuntimeException e) {
+            upload.cancelCompletion();
+            throw e;
+        }
+        boolean verified = actual.equals(upload.getSha256());
+        upload.endCompletion(verified);
+        if (!verified) {
+            log.warn("Upload {}: SHA-256 {} does not match the expected {}", id, actual, upload.getSha256());
+            throw new UploadException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Checksum of upload " + id + " does not match. Please upload the file again.");
+        }
+        log.info("Completed upload {} for {} ({} bytes)", id, upload.getFileName(), upload.getSize());
+        return upload.toDto(retention);
+    }
+
+    /**
+     * Hands a completed upload to an import, which from then on owns the staged file. The upload is given up only
+     * once {@code handoff} returns; if it throws, e.g. because the import queue is full, the upload and its verified
+     * file are kept and the client can simply try again.
+     *
+     * @param id       the upload id
+     * @param accepted the formats the import accepts
+     * @param handoff  queues the import of the staged upload
+     * @return the result of {@code handoff}
+     * @throws ResourceNotFoundException if no such upload exists
+     * @throws UploadException           if the upload is not complete, not in an accepted format or already being
+     *                                   handed over
+     */
+    public <R> R take(String id, Predicate<ImportFormat> accepted, Function<StagedUpload, R> handoff) {
+        ChunkedUpload upload = getUpload(id);
+        if (!upload.isComplete()) {
+            throw new UploadException(HttpStatus.CONFLICT, "Upload " + id + " is not complete.");
+        }
+        if (!accepted.test(upload.getFormat())) {
+            throw new UploadException(HttpStatus.BAD_REQUEST, "Upload " + id + " is a " + upload.getFormat() + " file, which cannot be imported here.");
+        }
+        if (!upload.beginHandoff()) {
+            throw new UploadException(HttpStatus.CONFLICT, "Upload " + id + " is already being imported.");
+        }
+        R result;
+        try {
+            result = handoff.apply(new StagedUpload(upload.getStagedFile(), upload.getFileName(), upload.getFormat(), upload.getSize()));
+        } catch (RuntimeException e) {
+            upload.endHandoff();
+            throw e;
+        }
+        uploads.remove(id, upload);
+        return result;
+    }
+
+    /**
+     * Cancels an upload and deletes its staging file.
+     *
+     * @param id the upload id
+     * @throws ResourceNotFoundException if no such upload exists
+     * @throws UploadException           if the upload is being handed to an import
+     */
+    public void cancel(String id) {
+        ChunkedUpload upload = getUpload(id);
+        if (upload.isHandingOff()) {
+            throw new UploadException(HttpStatus.CONFLICT, "Upload " + id + " is being imported.");
+        }
+        if (!uploads.remove(id, upload)) {
+            throw new ResourceNotFoundException("Upload " + id + " not found.");
+        }
+        ExcelImporter.deleteQuietly(upload.getStagedFile());
+    }
+
+    @Scheduled(fixedDelayString = "${import.upload.eviction-interval:PT15M}")
+    public void evictExpiredUploads() {
+        LocalDateTime threshold = LocalDateTime.now().minus(retention);
+        uploads.values().removeIf(upload -> {
+            if (upload.getLastActivity().isBefore(threshold) && !upload.isHandingOff()) {
+                log.info("Upload {} for {} expired", upload.getId(), upload.getFileName());
+                ExcelImporter.deleteQuietly(upload.getStagedFile());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Parses a {@code Content-Range} header.
+     *
+     * @return the first and the last byte of the range, inclusive
+     */
+    private static long[] parseContentRange(String contentRange, long size) {
+        if (contentRange == null) {
+            throw new UploadException(HttpStatus.BAD_REQUEST, "Content-Range header is required.");
+        }
+        Matcher matcher = CONTENT_RANGE.matcher(contentRange.trim());
+        if (!matcher.matches()) {
+            throw new UploadException(HttpStatus.BAD_REQUEST, "Invalid Content-Range: " + contentRange);
+        }
+        long first;
+        long last;
+        try {
+            first = Long.parseLong(matcher.group(1));
+            last = Long.parseLong(matcher.group(2));
+        } catch (NumberFormatException e) {
+            throw new UploadException(HttpStatus.BAD_REQUEST, "Invalid Content-Range: " + contentRange);
+        }
+        if (!"*".equals(matcher.group(3)) && !matcher.group(3).equals(String.valueOf(size))) {
+            throw new UploadException(HttpStatus.BAD_REQUEST, "Content-Range " + contentRange + " does not match the file size " + size + ".");
+        }
+        if (first > last || last >= size) {
+            throw new UploadException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, "Content-Range " + contentRange + " is outside the file.");
+        }
+        return new long[]{first, last};
+    }
+
+    private static String normalize(String sha256) {
+        return sha256 == null || sha256.isBlank() ? null : sha256.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private ChunkedUpload getUpload(String id) {
+        ChunkedUpload upload = uploads.get(id);
+        if (upload == null) {
+            throw new ResourceNotFoundException("Upload " + id + " not found.");
+        }
+        return upload;
+    }
+}
@@ -0,0 +1,138 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.utils.PersianTextNormalizer;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Finds imported rows whose name already exists, either in the database or earlier in the same file.
+ * <p>
+ * Names are compared after {@link PersianTextNormalizer#normalize(String) Persian normalization}. The database is
+ * asked only about the names of the current chunk, with {@code IN} projection queries of at most
+ * {@link #QUERY_BATCH_SIZE} names against an indexed column holding the normalized name, so the cost grows with the
+ * upload and not with the table.
+ */
+@Component
+public class DuplicateNameDetector {
+
+    public static final int QUERY_BATCH_SIZE = 500;
+
+    public enum Duplicate {
+        /** The name already exists in the database. */
+        EXISTING,
+        /** The name occurs on an earlier row of the same file. */
+        IN_FILE
+    }
+
+    private final EntityManager entityManager;
+
+    public DuplicateNameDetector(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Starts a check for one import.
+     *
+     * @param entityClass        the entity whose names are checked
+     * @param normalizedAttribute the indexed attribute of the entity holding its normalized name, e.g. {@code normalizedName}
+     * @param nameGetter         extracts the name from an imported DTO
+     * @return a check that remembers the names seen so far in the file
+     */
+    public <T> NameCheck<T> forImport(Class<?> entityClass, String normalizedAttribute, Function<T, String> nameGetter) {
+        String query = "select distinct e." + normalizedAttribute + " from " + entityManager.getMetamodel().entity(entityClass).getName()
+                + " e where e." + normalizedAttribute + " in :names";
+        return new NameCheck<>(query, nameGetter);
+    }
+
+    /**
+     * Duplicate check state of one import. Only names of rows that were saved, as reported to {@link #remember}, count
+     * as used by the file, so a row that is rejected or rolled back does not make later rows with its name duplicates.
+     * Not thread-safe; use it from the writing thread only.
+     */
+    public final class NameCheck<T> {
+
+        private final String query;
+        private final Function<T, String> nameGetter;
+        /** Normalized names of the rows saved so far. */
+        private final Set<String> savedNames = new HashSet<>();
+
+        private NameCheck(String query, Function<T, String> nameGetter) {
+            this.query = query;
+            this.nameGetter = nameGetter;
+        }
+
+        /**
+         * Checks a chunk of imported DTOs. A row is reported as {@link Duplicate#IN_FILE} if its name was saved by an
+         * earlier chunk or is used by an earlier row of this chunk that is not a duplicate itself. Nothing is
+         * remembered; checking the same rows again gives the same result until {@link #remember} is called.
+         *
+         * @param chunk the DTOs, in sheet order
+         * @return an array aligned with {@code chunk}; null for rows whose name is not a duplicate
+         */
+        public Duplicate[] check(List<T> chunk) {
+            String[] names = new String[chunk.size()];
+            Set<String> distinctNames = new HashSet<>();
+            for (int i = 0; i < names.length; i++) {
+                names[i] = PersianTextNormalizer.normalize(nameGetter.apply(chunk.get(i)));
+                if (names[i] != null) {
+                    distinctNames.add(names[i]);
+                }
+            }
+            Set<String> existingNames = findExisting(distinctNames);
+
+            Duplicate[] duplicates = new Duplicate[names.length];
+            Set<String> inChunk = new HashSet<>();
+            for (int i = 0; i < names.length; i++) {
+                if (names[i] == null) {
+                    continue;
+                }
+                if (existingNames.contains(names[i])) {
+                    duplicates[i] = Duplicate.EXISTING;
+                } else if (savedNames.contains(names[i]) || !inChunk.add(names[i])) {
+                    duplicates[i] = Duplicate.IN_FILE;
+                }
+            }
+            return duplicates;
+        }
+
+        /**
+         * Records the names of saved rows, so later rows with these names are reported as {@link Duplicate#IN_FILE}.
+         * Call it once their chunk has committed.
+         *
+         * @param saved the saved DTOs
+         */
+        public void remember(List<T> saved) {
+            for (T dto : saved) {
+                String name = PersianTextNormalizer.normalize(nameGetter.apply(dto));
+                if (name != null) {
+                    savedNames.add(name);
+                }
+            }
+        }
+
+        private Set<String> findExisting(Set<String> names) {
+            Set<String> existing = new HashSet<>();
+            List<String> batch = new ArrayList<>(Math.min(names.size(), QUERY_BATCH_SIZE));
+            for (String name : names) {
+                batch.add(name);
+                if (batch.size() == QUERY_BATCH_SIZE) {
+                    existing.addAll(query(batch));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                existing.addAll(query(batch));
+            }
+            return existing;
+        }
+
+        private List<String> query(List<String> names) {
+            return entityManager.createQuery(query, String.class)
+                    .setParameter("names", names)
+                    .getResultList();
+        }
+    }
+}
@@ -2,8 +2,9 @@ package com.mapnaom.foodreservation.services;
 
 import com.mapnaom.foodreservation.dtos.FoodOptionDto;
 import com.mapnaom.foodreservation.dtos.ImportResponse;
+import com.mapnaom.foodreservation.entities.Food;
 import com.mapnaom.foodreservation.entities.FoodOption;
-import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+import com.mapnaom.foodreservation.entities.Menu;
 import com.mapnaom.foodreservation.exceptions.ResourceNotFoundException;
 import com.mapnaom.foodreservation.mappers.FoodOptionMapper;
 import com.mapnaom.foodreservation.repositories.FoodOptionRepository;
@@ -11,19 +12,28 @@ import com.mapnaom.foodreservation.searchForms.FoodOptionSearchForm;
 import com.mapnaom.foodreservation.specifications.FoodOptionSpecification;
 import com.mapnaom.foodreservation.utils.ExcelDataExporter;
 import com.mapnaom.foodreservation.utils.ExcelImporter;
+import com.mapnaom.foodreservation.utils.ImportProgress;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -33,6 +43,15 @@ public class FoodOptionService {
 
     private final FoodOptionMapper foodOptionMapper;
 
+    private final ImportPipeline importPipeline;
+
+    private final EntityManager entityManager;
+
+    private final ImportAdmissionService importAdmissionService;
+
+    @Value("${import.chunk-size.food-option:500}")
+    private int importChunkSize;
+
     /**
      * پیدا کردن تمام گزینه‌های غذایی به صورت صفحه‌بندی شده با شرایط جستجو
      *
@@ -113,34 +132,143 @@ public class FoodOptionService {
      * @param file فایل Excel حاوی داده‌های گزینه‌های غذایی
      * @return پاسخ وارد کردن شامل تعداد موفقیت‌آمیز و پیام‌های خطا
      */
-    @Transactional
     public ImportResponse<FoodOptionDto> importFoodOptionsFromExcel(MultipartFile file) {
+        try (ImportAdmissionService.Permit permit = importAdmissionService.admitImport(file)) {
+            Path stagedFile = ExcelImporter.stage(file);
+            try {
+                return importFoodOptionsFromExcel(stagedFile, new ImportProgress());
+            } finally {
+                ExcelImporter.deleteQuietly(stagedFile);
+            }
+        }
+    }
 
+    /**
+     * وارد کردن گزینه‌های غذایی از فایل Excel ذخیره شده روی دیسک، به صورت دسته‌ای و با ثبت هر دسته در تراکنش جداگانه
+     *
+     * @param file     فایل Excel
+     * @param progress شمارنده‌های پیشرفت
+     * @return پاسخ وارد کردن شامل تعداد موفقیت‌آمیز و پیام‌های خطا
+     */
+    public ImportResponse<FoodOptionDto> importFoodOptionsFromExcel(Path file, ImportProgress progress) {
+        return importFoodOptionSheet(file, null, new ImportKeyTable(entityManager), progress, false);
+    }
 
-        try {
-            // استفاده از ExcelDataImporter برای وارد کردن داده‌ها
-            List<FoodOptionDto> foodOptionDtos = ExcelImporter.importFromExcel(file, FoodOptionDto.class).getSuccessfulImports();
+    /**
+     * وارد کردن برگه گزینه‌های غذایی یک کارپوشه؛ غذا با شناسه یا نام از جدول کلیدها پیدا می‌شود
+     *
+     * @param file      فایل Excel
+     * @param sheetName نام برگه، یا null برای برگه اول
+     * @param keys      جدول کلیدهای طبیعی این ورود
+     * @param progress  شمارنده‌های پیشرفت
+     * @param dryRun    اگر true باشد ردیف‌ها فقط اعتبارسنجی می‌شوند
+     * @return پاسخ وارد کردن برگه
+     */
+    ImportResponse<FoodOptionDto> importFoodOptionSheet(Path file, String sheetName, ImportKeyTable keys, ImportProgress progress,
+                                                        boolean dryRun) {
+        ImportResponse<FoodOptionDto> response = new ImportResponse<>();
+        importPipeline.run(file, sheetName, FoodOptionDto.class, importChunkSize, new ImportChunkHandler<FoodOptionDto, FoodOption>() {
+            @Override
+            public String[] validate(List<FoodOptionDto> chunk, int[] rowIndexes) {
+                Set<Long> menus = keys.verify(Menu.class, chunk.stream().map(FoodOptionDto::getMenuId).toList());
+                Set<Long> foods = resolveFoods(chunk, keys);
 
-            for (FoodOptionDto dto : foodOptionDtos) {
-                try {
-                    // تبدیل DTO به موجودیت و ذخیره در پایگاه داده
-                    FoodOption foodOption = foodOptionMapper.toEntity(dto);
-                    foodOptionRepository.save(foodOption);
-                } catch (Exception e) {
-                    String errorMsg = "خطا در ذخیره گزینه غذایی: " + dto.getFoodName() + " - " + e.getMessage();
+                String[] errors = new String[chunk.size()];
+                for (int i = 0; i < chunk.size(); i++) {
+                    FoodOptionDto dto = chunk.get(i);
+                    if (dto.getMenuId() == null || !menus.contains(dto.getMenuId())) {
+                        errors[i] = "منو با شناسه " + dto.getMenuId() + " یافت نشد.";
+                    } else {
+                        errors[i] = foodError(dto, foods);
+                    }
                 }
+                return errors;
+            }
+
+            @Override
+            public FoodOption toEntity(FoodOptionDto dto) {
+                FoodOption foodOption = FoodOptionService.toEntity(dto, keys);
+                foodOption.setMenu(keys.reference(Menu.class, dto.getMenuId()));
+                return foodOption;
             }
-        } catch (ExcelDataImportException e) {
-            // خطاهای مربوط به خواندن فایل Excel
-            //("خطا در وارد کردن داده‌ها از فایل Excel: " + e.getMessage())
-            throw new RuntimeException(e);
+
+            @Override
+            public FoodOptionDto toDto(FoodOption entity) {
+                return foodOptionMapper.toDto(entity);
+            }
+        }, response, progress, dryRun);
+        return response;
+    }
+
+    /**
+     * شناسه غذای گزینه‌هایی را که فقط نام غذا دارند از جدول کلیدها پر می‌کند و وجود غذاها را به صورت دسته‌ای بررسی می‌کند
+     *
+     * @param options گزینه‌های غذایی وارد شده
+     * @param keys    جدول کلیدهای طبیعی این ورود
+     * @return شناسه غذاهای موجود
+     */
+    static Set<Long> resolveFoods(Collection<FoodOptionDto> options, ImportKeyTable keys) {
+        List<String> names = new ArrayList<>();
+        for (FoodOptionDto option : options) {
+            if (option.getFoodId() == null && option.getFoodName() != null) {
+                names.add(option.getFoodName());
+            }
+        }
+        keys.resolve(Food.class, "normalizedName", names);
+        List<Long> ids = new ArrayList<>(options.size());
+        for (FoodOptionDto option : options) {
+            if (option.getFoodId() == null && option.getFoodName() != null) {
+                option.setFoodId(keys.find(Food.class, option.getFoodName()));
+            }
+            ids.add(option.getFoodId());
         }
+        return keys.verify(Food.class, ids);
+    }
 
-        return null;
+    /**
+     * @param option گزینه غذایی پس از {@link #resolveFoods}
+     * @param foods  شناسه غذاهای موجود
+     * @return پیام خطا، یا null اگر غذای گزینه وجود دارد
+     */
+    static String foodError(FoodOptionDto option, Set<Long> foods) {
+        if (option.getFoodId() != null && foods.contains(option.getFoodId())) {
+            return null;
+        }
+        if (option.getFoodId() == null && option.getFoodName() == null) {
+            return "غذای گزینه غذایی مشخص نشده است.";
+        }
+        return "غذا " + (option.getFoodId() != null ? option.getFoodId() : option.getFoodName()) + " یافت نشد.";
     }
-    public byte[] exportCustomersToExcel() throws IOException {
-        List<FoodOptionDto> customerDtos = foodOptionRepository.findAll().stream().map(foodOptionMapper::toDto)
-                .collect(Collectors.toList());
-        return ExcelDataExporter.exportData(customerDtos, FoodOptionDto.class);
+
+    /**
+     * ساخت گزینه غذایی از داده‌های وارد شده با ارجاع بدون بارگذاری به غذا
+     *
+     * @param dto  گزینه غذایی پس از {@link #resolveFoods}
+     * @param keys جدول کلیدهای طبیعی این ورود
+     * @return موجودیت گزینه غذایی بدون منو
+     */
+    static FoodOption toEntity(FoodOptionDto dto, ImportKeyTable keys) {
+        FoodOption foodOption = new FoodOption();
+        foodOption.setPrice(dto.getPrice());
+        foodOption.setFood(keys.reference(Food.class, dto.getFoodId()));
+        return foodOption;
+    }
+
+    /**
+     * نوشتن گزینه‌های غذایی منطبق با فرم جستجو در یک فایل اکسل به صورت جریانی، مستقیما از cursor پایگاه داده
+     * و بدون ساختن لیست میانی
+     *
+     * @param searchForm فرم جستجو
+     * @param out        جریان خروجی، مثلا بدنه پاسخ؛ بسته نمی‌شود
+     * @throws IOException در صورت خطا در نوشتن
+     */
+    @Transactional(readOnly = true)
+    public void exportToExcel(FoodOptionSearchForm searchForm, OutputStream out) throws IOException {
+        Specification<FoodOption> specification = FoodOptionSpecification.getFoodOptionSpecification(searchForm);
+        // The DTO reads the name of the food; the menu is not needed
+        try (Stream<FoodOptionDto> rows = foodOptionRepository.streamAll(specification, Sort.by("id"), List.of("food"),
+                foodOptionMapper::toDto)) {
+            ExcelDataExporter.exportData(rows::iterator, FoodOptionDto.class, out);
+        }
     }
 }
@@ -9,11 +9,12 @@ import com.mapnaom.foodreservation.mappers.FoodMapper;
 import com.mapnaom.foodreservation.repositories.FoodRepository;
 import com.mapnaom.foodreservation.searchForms.FoodSearchForm;
 import com.mapnaom.foodreservation.specifications.FoodSpecification;
-import com.mapnaom.foodreservation.utils.ExcelCellError;
 import com.mapnaom.foodreservation.utils.ExcelImporter;
+import com.mapnaom.foodreservation.utils.ImportProgress;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -22,8 +23,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,6 +33,12 @@ public class FoodService {
 
     private final FoodRepository foodRepository;
     private final FoodMapper foodMapper;
+    private final ImportPipeline importPipeline;
+    private final DuplicateNameDetector duplicateNameDetector;
+    private final ImportAdmissionService importAdmissionService;
+
+    @Value("${import.chunk-size.food:500}")
+    private int importChunkSize;
 
 
 
@@ -121,29 +128,110 @@ public class FoodService {
     /**
      * Imports foods from an Excel file using a functional programming pipeline.
      *
-     * @param file The uploaded Excel file.
+     * @param file   The uploaded Excel file.
+     * @param dryRun If true, rows are only validated and nothing is saved.
      * @return ImportResponse detailing the import results.
      */
-    @Transactional
-    public ImportResponse<FoodDto> importFoodsFromExcel(MultipartFile file) {
+    public ImportResponse<FoodDto> importFoodsFromExcel(MultipartFile file, boolean dryRun) {
+        try (ImportAdmissionService.Permit permit = importAdmissionService.admitImport(file)) {
+            Path stagedFile = ExcelImporter.stage(file);
+            try {
+                return importFoodsFromExcel(stagedFile, new ImportProgress(), dryRun);
+            } finally {
+                ExcelImporter.deleteQuietly(stagedFile);
+            }
+        }
+    }
+
+    /**
+     * Imports foods from an Excel file on disk. Rows are parsed, validated and saved in chunks,
+     * each chunk committing in its own transaction.
+     *
+     * @param file     The Excel file.
+     * @param progress The progress counters to update.
+     * @return ImportResponse detailing the import results.
+     */
+    public ImportResponse<FoodDto> importFoodsFromExcel(Path file, ImportProgress progress) {
+        return importFoodsFromExcel(file, progress, false);
+    }
+
+    /**
+     * Imports foods from an Excel file on disk or, in a dry run, only parses and validates them
+     * without saving anything, so a file can be checked before it is really imported.
+     *
+     * @param file     The Excel file.
+     * @param progress The progress counters to update.
+     * @param dryRun   If true, rows are only validated and nothing is saved.
+     * @return ImportResponse detailing the import results.
+     */
+    public ImportResponse<FoodDto> importFoodsFromExcel(Path file, ImportProgress progress, boolean dryRun) {
+        ImportResponse<FoodDto> response = new ImportResponse<>();
+        importPipeline.run(file, null, FoodDto.class, importChunkSize, new FoodImportHandler(null), response, progress, dryRun);
+        return response;
+    }
+
+    /**
+     * Imports the food sheet of a workbook. The ids of saved foods are registered under their name,
+     * so later sheets can refer to them without a query.
+     *
+     * @param file      The Excel file.
+     * @param sheetName The sheet to import.
+     * @param keys      The natural-key table of the import.
+     * @param progress  The progress counters to update.
+     * @param dryRun    If true, rows are only validated and nothing is saved.
+     * @return ImportResponse detailing the import results of the sheet.
+     */
+    ImportResponse<FoodDto> importFoodSheet(Path file, String sheetName, ImportKeyTable keys, ImportProgress progress,
+                                            boolean dryRun) {
+        ImportResponse<FoodDto> response = new ImportResponse<>();
+        importPipeline.run(file, sheetName, FoodDto.class, importChunkSize, new FoodImportHandler(keys), response, progress, dryRun);
+        return response;
+    }
+
+    /**
+     * Validates and maps imported foods; a food whose name already exists, in the database or earlier in the file, is rejected.
+     */
+    private class FoodImportHandler implements ImportChunkHandler<FoodDto, Food> {
 
-        ImportResponse<FoodDto> response = ExcelImporter.importFromExcel(file, FoodDto.class);
+        private final DuplicateNameDetector.NameCheck<FoodDto> nameCheck =
+                duplicateNameDetector.forImport(Food.class, "normalizedName", FoodDto::getName);
+        private final ImportKeyTable keys;
+
+        FoodImportHandler(ImportKeyTable keys) {
+            this.keys = keys;
+        }
 
+        @Override
+        public String[] validate(List<FoodDto> chunk, int[] rowIndexes) {
+            DuplicateNameDetector.Duplicate[] duplicates = nameCheck.check(chunk);
+
+            String[] errors = new String[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                if (duplicates[i] == DuplicateNameDetector.Duplicate.EXISTING) {
+                    errors[i] = "غذا با نام " + chunk.get(i).getName() + " قبلا اضافه شده است.";
+                } else if (duplicates[i] == DuplicateNameDetector.Duplicate.IN_FILE) {
+                    errors[i] = "غذا با نام " + chunk.get(i).getName() + " در فایل تکراری است.";
+                }
+            }
+            return errors;
+        }
 
-        Map<String, Food> foodMap = foodRepository.findAll()
-                .stream()
-                .collect(Collectors.toMap(Food::getName, food -> food));
+        @Override
+        public Food toEntity(FoodDto dto) {
+            return foodMapper.toImportEntity(dto);
+        }
 
-        List<Food> validatedList  = response.getSuccessfulImports().stream()
-                .filter(foodDto -> foodMap.containsKey(foodDto.getName()))
-                .peek(foodDto -> response.addError(foodDto.getId().intValue(), new ExcelCellError("غذا با نام " + foodDto.getName() + " قبلا اضافه شده است.")))
-                .map(foodMapper::toEntity)
-                .toList();
+        @Override
+        public FoodDto toDto(Food entity) {
+            return foodMapper.toDto(entity);
+        }
 
-        List<Food> savedAll = foodRepository.saveAll(validatedList);
-        if (!savedAll.isEmpty()) {
-            response.getSuccessfulImports().addAll(savedAll.stream().map(foodMapper::toDto).toList());
+        @Override
+        public void afterCommit(List<FoodDto> saved) {
+            nameCheck.remember(saved);
+            if (keys != null) {
+                saved.forEach(dto -> keys.put(Food.class, dto.getName(), dto.getId()));
+            }
         }
-        return response;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+package com.mapnaom.foodreservation.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads {@code EMPLOYEES_DATA_VIEW} (see {@code DATA_VIEW.SQL}) from the HR database.
+ * <p>
+ * The view is read through one forward-only, read-only cursor with {@code hr.sync.fetch-size} rows per round trip,
+ * and handed out in chunks, so only one chunk of employees is in memory at a time however large the view is.
+ * Auto-commit is switched off for the read, because the PostgreSQL driver only honours the fetch size inside a
+ * transaction and otherwise loads the whole result set.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "hr.datasource", name = "url")
+public class HrEmployeeSource {
+
+    static final String EMPLOYEE_CODE = "کد کارمندی";
+    static final String FIRST_NAME = "نام کارمند";
+    static final String LAST_NAME = "نام خانوادگی کارمند";
+    static final String USERNAME = "نام کاربری";
+    static final String WORK_LOCATION_CODE = "کد محل خدمت";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String query;
+    private final int fetchSize;
+
+    public HrEmployeeSource(@Qualifier("hr") DataSource hrDataSource,
+                            @Value("${hr.sync.view:EMPLOYEES_DATA_VIEW}") String view,
+                            @Value("${hr.sync.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(hrDataSource);
+        this.fetchSize = fetchSize;
+        this.query = "SELECT " + String.join(", ", quote(EMPLOYEE_CODE), quote(FIRST_NAME), quote(LAST_NAME),
+                quote(USERNAME), quote(WORK_LOCATION_CODE)) + " FROM " + view;
+    }
+
+    /**
+     * One employee of the view. Text values are trimmed; empty values are null.
+     *
+     * @param employeeCode     the employee code, never null
+     * @param firstName        the first name
+     * @param lastName         the last name
+     * @param username         the directory username
+     * @param workLocationCode the code of the work location, matched against {@code Branch.code}
+     */
+    public record HrEmployee(String employeeCode, String firstName, String lastName, String username,
+                             String workLocationCode) {
+    }
+
+    /**
+     * Streams the view in chunks. Rows without an employee code are skipped.
+     *
+     * @param chunkSize the number of employees per chunk
+     * @param chunks    called with each chunk, while the cursor stays open
+     * @return the number of rows read, including skipped ones
+     */
+    public long read(int chunkSize, Consumer<List<HrEmployee>> chunks) {
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                return read(connection, chunkSize, chunks);
+            } finally {
+                // Nothing was written; end the read transaction and hand the connection back as it came
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    private long read(Connection connection, int chunkSize, Consumer<List<HrEmployee>> chunks) throws SQLException {
+        long rows = 0;
+        try (PreparedStatement statement = connection.prepareStatement(query,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(fetchSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                List<HrEmployee> chunk = new ArrayList<>(chunkSize);
+                while (resultSet.next()) {
+                    rows++;
+                    String employeeCode = text(resultSet, 1);
+                    if (employeeCode == null) {
+                        log.warn("Skipping HR row {} without an employee code", rows);
+                        continue;
+                    }
+                    chunk.add(new HrEmployee(employeeCode, text(resultSet, 2), text(resultSet, 3),
+                            text(resultSet, 4), text(resultSet, 5)));
+                    if (chunk.size() == chunkSize) {
+                        chunks.accept(chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    chunks.accept(chunk);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static String text(ResultSet resultSet, int column) throws SQLException {
+        String value = resultSet.getString(column);
+        if (value == null) {
+            return null;
+        }
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Quotes a column label; double quotes work in PostgreSQL and in SQL Server (QUOTED_IDENTIFIER is on for JDBC).
+     */
+    private static String quote(String column) {
+        return '"' + column + '"';
+    }
+}
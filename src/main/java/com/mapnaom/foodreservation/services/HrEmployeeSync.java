@@ -0,0 +1,178 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.entities.Branch;
+import com.mapnaom.foodreservation.entities.Employee;
+import com.mapnaom.foodreservation.enums.RoleName;
+import com.mapnaom.foodreservation.repositories.EmployeeRepository;
+import com.mapnaom.foodreservation.services.HrEmployeeSource.HrEmployee;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Synchronizes {@link Employee}s with the HR view read by {@link HrEmployeeSource}.
+ * <p>
+ * Each chunk of the view is upserted by employee code in its own transaction: the existing employees of the chunk
+ * are loaded with one query, new ones are inserted (in JDBC batches of {@code hibernate.jdbc.batch_size}), and names,
+ * username and branch ({@code Branch.code} = work location code) of existing ones are updated. A chunk that fails
+ * is retried row by row, so one bad employee does not hold back the others. Employees that are missing from the
+ * view are left as they are.
+ * <p>
+ * Runs on {@code hr.sync.cron} (disabled by default) or on demand; only one sync runs at a time.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "hr.datasource", name = "url")
+public class HrEmployeeSync {
+
+    private final HrEmployeeSource hrEmployeeSource;
+    private final EmployeeRepository employeeRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public HrEmployeeSync(HrEmployeeSource hrEmployeeSource,
+                          EmployeeRepository employeeRepository,
+                          EntityManager entityManager,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${hr.sync.chunk-size:500}") int chunkSize) {
+        this.hrEmployeeSource = hrEmployeeSource;
+        this.employeeRepository = employeeRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Outcome of one sync.
+     *
+     * @param read    the rows read from the view
+     * @param created the employees inserted
+     * @param updated the existing employees updated
+     * @param failed  the employees that could not be saved
+     */
+    public record Result(long read, long created, long updated, long failed) {
+    }
+
+    @Scheduled(cron = "${hr.sync.cron:-}")
+    public void scheduledSync() {
+        try {
+            sync();
+        } catch (TaskRejectedException e) {
+            log.warn("Skipping scheduled HR sync: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("HR employee sync failed", e);
+        }
+    }
+
+    /**
+     * Runs one sync.
+     *
+     * @return the outcome
+     * @throws TaskRejectedException if a sync is already running
+     */
+    public Result sync() {
+        if (!running.compareAndSet(false, true)) {
+            throw new TaskRejectedException("HR employee sync is already running");
+        }
+        try {
+            long start = System.nanoTime();
+            ImportKeyTable branches = new ImportKeyTable(entityManager);
+            long[] counts = new long[3];
+            long read = hrEmployeeSource.read(chunkSize, chunk -> writeChunk(chunk, branches, counts));
+            Result result = new Result(read, counts[0], counts[1], counts[2]);
+            log.info("HR employee sync finished in {} ms: {}", (System.nanoTime() - start) / 1_000_000, result);
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Upserts one chunk in a single transaction; if that fails, retries each employee in its own transaction.
+     *
+     * @param counts created, updated and failed employees so far
+     */
+    private void writeChunk(List<HrEmployee> chunk, ImportKeyTable branches, long[] counts) {
+        int[] written;
+        try {
+            written = transactionTemplate.execute(status -> upsert(chunk, branches));
+        } catch (RuntimeException e) {
+            entityManager.clear();
+            if (chunk.size() == 1) {
+                log.error("Could not sync employee {}: {}", chunk.get(0).employeeCode(), e.getMessage());
+                counts[2]++;
+                return;
+            }
+            log.warn("Syncing employees {}-{} failed, retrying one by one: {}",
+                    chunk.get(0).employeeCode(), chunk.get(chunk.size() - 1).employeeCode(), e.getMessage());
+            for (HrEmployee employee : chunk) {
+                writeChunk(List.of(employee), branches, counts);
+            }
+            return;
+        }
+        counts[0] += written[0];
+        counts[1] += written[1];
+    }
+
+    /**
+     * @return the number of created and of updated employees
+     */
+    private int[] upsert(List<HrEmployee> chunk, ImportKeyTable branches) {
+        // The joins of the view can repeat an employee; the last row wins
+        Map<String, HrEmployee> byCode = new LinkedHashMap<>();
+        Set<String> locationCodes = new HashSet<>();
+        for (HrEmployee employee : chunk) {
+            byCode.put(employee.employeeCode(), employee);
+            if (employee.workLocationCode() != null) {
+                locationCodes.add(employee.workLocationCode());
+            }
+        }
+        Map<String, Employee> existing = new HashMap<>();
+        employeeRepository.findByEmployeeCodeIn(byCode.keySet())
+                .forEach(employee -> existing.putIfAbsent(employee.getEmployeeCode(), employee));
+        branches.resolve(Branch.class, "normalizedCode", locationCodes);
+
+        int[] written = new int[2];
+        for (HrEmployee source : byCode.values()) {
+            Employee employee = existing.get(source.employeeCode());
+            boolean created = employee == null;
+            if (created) {
+                employee = new Employee();
+                employee.setEmployeeCode(source.employeeCode());
+                employee.setRoles(new HashSet<>(Set.of(RoleName.ROLE_EMPLOYEE)));
+            }
+            employee.setFirstName(source.firstName());
+            employee.setLastName(source.lastName());
+            if (source.username() != null) {
+                employee.setUsername(source.username());
+            }
+            employee.setActive(true);
+            Long branchId = branches.find(Branch.class, source.workLocationCode());
+            if (branchId != null) {
+                employee.setBranch(branches.reference(Branch.class, branchId));
+            }
+            if (created) {
+                entityManager.persist(employee);
+                written[0]++;
+            } else {
+                written[1]++;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return written;
+    }
+}
@@ -0,0 +1,232 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.dtos.AdmissionStatsDto;
+import com.mapnaom.foodreservation.enums.ImportFormat;
+import com.mapnaom.foodreservation.exceptions.AdmissionRejectedException;
+import com.mapnaom.foodreservation.utils.ExcelDataExporter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for imports and exports, which can each take hundreds of MB of heap.
+ * <p>
+ * Every import or export estimates its heap use up front, from the upload size and format or from the number of
+ * exported cells, and holds that much of a shared budget ({@code import.admission.memory-budget}, by default 40% of
+ * the maximum heap) until it is done. The budget is a fair semaphore counted in MB, so large jobs are not starved by
+ * small ones. A request that does not fit waits up to {@code import.admission.max-wait}; if it still does not fit,
+ * or {@code import.admission.max-queue} requests are already waiting, it is rejected with an
+ * {@link AdmissionRejectedException} (429 with Retry-After). Background import jobs, which are already bounded by
+ * their executor, wait for budget without a limit.
+ */
+@Slf4j
+@Service
+public class ImportAdmissionService {
+
+    private static final long MB = 1024 * 1024;
+
+    /** Heap of any import regardless of its size: parser buffers, the chunk queue of the pipeline and the binder. */
+    static final long IMPORT_BASE_BYTES = 32 * MB;
+    /** Heap per byte of an XLSX upload; its shared-strings table grows several times once unzipped and decoded. */
+    static final long XLSX_BYTES_PER_FILE_BYTE = 8;
+    /** Heap per byte of an XLS upload; it is not compressed, so its shared-strings table is about its size in chars. */
+    static final long XLS_BYTES_PER_FILE_BYTE = 3;
+    static final long EXPORT_BASE_BYTES = 16 * MB;
+    /** Heap per cell of an XSSF row held in memory. */
+    static final long EXPORT_BYTES_PER_CELL = 1024;
+    /** Rows of a streaming export held in memory at once, see {@link ExcelDataExporter#ROW_WINDOW}. */
+    static final long STREAMING_EXPORT_ROWS = ExcelDataExporter.ROW_WINDOW;
+
+    private final Semaphore budget;
+    private final int budgetMegabytes;
+    private final int maxQueue;
+    private final Duration maxWait;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    /** Moving average of how long admitted work holds its budget, for Retry-After. */
+    private final AtomicLong averageHoldNanos = new AtomicLong(TimeUnit.SECONDS.toNanos(5));
+
+    public ImportAdmissionService(@Value("${import.admission.memory-budget:0B}") DataSize memoryBudget,
+                                  @Value("${import.admission.max-queue:8}") int maxQueue,
+                                  @Value("${import.admission.max-wait:PT10S}") Duration maxWait) {
+        long budgetBytes = memoryBudget.toBytes() > 0 ? memoryBudget.toBytes() : Runtime.getRuntime().maxMemory() / 5 * 2;
+        this.budgetMegabytes = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetBytes / MB));
+        this.budget = new Semaphore(budgetMegabytes, true);
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        log.info("Import admission budget: {} MB, at most {} waiting requests", budgetMegabytes, maxQueue);
+    }
+
+    /**
+     * Budget held by one admitted import or export; closing it gives the budget back.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final int megabytes;
+        private final long admittedAt = System.nanoTime();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(int megabytes) {
+            this.megabytes = megabytes;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                budget.release(megabytes);
+                running.decrementAndGet();
+                long held = System.nanoTime() - admittedAt;
+                averageHoldNanos.accumulateAndGet(held, (average, sample) -> average + (sample - average) / 8);
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap an import of an upload needs.
+     *
+     * @param file the uploaded file
+     * @return the estimate in bytes
+     */
+    public static long estimateImport(MultipartFile file) {
+        ImportFormat format = ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename()).orElse(ImportFormat.XLSX);
+        return estimateImport(format, file.getSize());
+    }
+
+    /**
+     * Estimates the heap an import of a file needs.
+     *
+     * @param format the format of the file
+     * @param size   the file size in bytes
+     * @return the estimate in bytes
+     */
+    public static long estimateImport(ImportFormat format, long size) {
+        return switch (format) {
+            case XLSX -> IMPORT_BASE_BYTES + size * XLSX_BYTES_PER_FILE_BYTE;
+            case XLS -> IMPORT_BASE_BYTES + size * XLS_BYTES_PER_FILE_BYTE;
+            // Delimited files are memory-mapped, outside the heap
+            case CSV, TSV -> IMPORT_BASE_BYTES;
+        };
+    }
+
+    /**
+     * Estimates the heap a streaming XLSX export needs, which keeps only a window of rows in memory.
+     *
+     * @param columns the number of columns per row
+     * @return the estimate in bytes
+     */
+    public static long estimateStreamingExport(int columns) {
+        return EXPORT_BASE_BYTES + STREAMING_EXPORT_ROWS * columns * EXPORT_BYTES_PER_CELL;
+    }
+
+    /**
+     * Admits the import of an upload, waiting up to {@code import.admission.max-wait} for budget.
+     *
+     * @param file the uploaded file
+     * @return the permit to close once the import is done
+     * @throws AdmissionRejectedException if the import does not fit in time
+     */
+    public Permit admitImport(MultipartFile file) {
+        return admit(estimateImport(file), maxWait);
+    }
+
+    /**
+     * Admits a streaming XLSX export, waiting up to {@code import.admission.max-wait} for budget.
+     *
+     * @param columns the number of columns per row
+     * @return the permit to close once the export is written
+     * @throws AdmissionRejectedException if the export does not fit in time
+     */
+    public Permit admitStreamingExport(int columns) {
+        return admit(estimateStreamingExport(columns), maxWait);
+    }
+
+    /**
+     * Waits for budget without a time limit, for background jobs whose number is bounded elsewhere.
+     *
+     * @param estimatedBytes the estimate of {@link #estimateImport}
+     * @return the permit to close once the job is done
+     * @throws AdmissionRejectedException if the waiting thread is interrupted
+     */
+    public Permit await(long estimatedBytes) {
+        return admit(estimatedBytes, null);
+    }
+
+    public AdmissionStatsDto getStats() {
+        long count = admitted.get();
+        return new AdmissionStatsDto(
+                budgetMegabytes * MB,
+                (budgetMegabytes - (long) budget.availablePermits()) * MB,
+                running.get(),
+                queued.get(),
+                count,
+                rejected.get(),
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / count),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+    }
+
+    /**
+     * @param maxWait how long to wait for budget, or null to wait without a limit
+     */
+    private Permit admit(long estimatedBytes, Duration maxWait) {
+        // Work larger than the whole budget still runs, alone
+        int megabytes = (int) Math.max(1, Math.min(budgetMegabytes, (estimatedBytes + MB - 1) / MB));
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            // A zero timeout honours fairness, unlike tryAcquire(int)
+            acquired = budget.tryAcquire(megabytes, 0, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                if (maxWait != null && queued.get() >= maxQueue) {
+                    throw reject(megabytes, "too many requests are waiting");
+                }
+                queued.incrementAndGet();
+                try {
+                    if (maxWait == null) {
+                        budget.acquire(megabytes);
+                        acquired = true;
+                    } else {
+                        acquired = budget.tryAcquire(megabytes, maxWait.toNanos(), TimeUnit.NANOSECONDS);
+                    }
+                } finally {
+                    queued.decrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject(megabytes, "interrupted while waiting");
+        }
+        if (!acquired) {
+            throw reject(megabytes, "no budget within " + maxWait.toSeconds() + "s");
+        }
+
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        admitted.incrementAndGet();
+        running.incrementAndGet();
+        return new Permit(megabytes);
+    }
+
+    private AdmissionRejectedException reject(int megabytes, String reason) {
+        rejected.incrementAndGet();
+        long retryAfterSeconds = Math.max(1, Math.min(60, TimeUnit.NANOSECONDS.toSeconds(averageHoldNanos.get()) + 1));
+        log.warn("Rejected import/export needing {} MB ({} of {} MB in use, {} waiting): {}", megabytes,
+                budgetMegabytes - budget.availablePermits(), budgetMegabytes, queued.get(), reason);
+        return new AdmissionRejectedException("Server is busy with other imports and exports. Please try again later.",
+                Duration.ofSeconds(retryAfterSeconds));
+    }
+}
@@ -0,0 +1,102 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.entities.ImportCheckpoint;
+import com.mapnaom.foodreservation.enums.ImportCheckpointStatus;
+import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+import com.mapnaom.foodreservation.repositories.ImportCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Keeps one {@link ImportCheckpoint} per file fingerprint and import target, so that an identical re-upload is
+ * recognized without reading it and an interrupted import continues after its last committed chunk.
+ * <p>
+ * A checkpoint is {@link ImportCheckpointStatus#RUNNING RUNNING} while an import holds it. An import that fails
+ * marks it {@link ImportCheckpointStatus#INTERRUPTED INTERRUPTED}; a node that dies cannot, so a running checkpoint
+ * that has not advanced for {@code import.checkpoint.stale-after} is treated as interrupted as well.
+ */
+@Slf4j
+@Service
+public class ImportCheckpointService {
+
+    private final ImportCheckpointRepository importCheckpointRepository;
+    private final Duration staleAfter;
+
+    public ImportCheckpointService(ImportCheckpointRepository importCheckpointRepository,
+                                   @Value("${import.checkpoint.stale-after:PT5M}") Duration staleAfter) {
+        this.importCheckpointRepository = importCheckpointRepository;
+        this.staleAfter = staleAfter;
+    }
+
+    /**
+     * Claims the checkpoint of a file for an import, creating it on the first upload.
+     *
+     * @param fingerprint the SHA-256 of the file
+     * @param importKey   what the file is imported into
+     * @return the checkpoint; {@code COMPLETED} if the file was imported before, otherwise {@code RUNNING}
+     * with the row to resume after
+     * @throws ExcelDataImportException if another import of the same file is running
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public ImportCheckpoint begin(String fingerprint, String importKey) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<ImportCheckpoint> existing = importCheckpointRepository.findByFingerprintAndImportKey(fingerprint, importKey);
+        if (existing.isEmpty()) {
+            ImportCheckpoint checkpoint = new ImportCheckpoint();
+            checkpoint.setFingerprint(fingerprint);
+            checkpoint.setImportKey(importKey);
+            checkpoint.setStatus(ImportCheckpointStatus.RUNNING);
+            checkpoint.setCreatedAt(now);
+            checkpoint.setUpdatedAt(now);
+            return importCheckpointRepository.saveAndFlush(checkpoint);
+        }
+
+        ImportCheckpoint checkpoint = existing.get();
+        if (checkpoint.getStatus() == ImportCheckpointStatus.COMPLETED) {
+            return checkpoint;
+        }
+        if (checkpoint.getStatus() == ImportCheckpointStatus.RUNNING && checkpoint.getUpdatedAt().isAfter(now.minus(staleAfter))) {
+            throw new ExcelDataImportException("This file is already being imported");
+        }
+        log.info("Resuming import {} of file {} after row {}", importKey, fingerprint, checkpoint.getLastCommittedRow());
+        checkpoint.setStatus(ImportCheckpointStatus.RUNNING);
+        checkpoint.setUpdatedAt(now);
+        return checkpoint;
+    }
+
+    /**
+     * Records a committed chunk. Must be called inside the transaction of the chunk, so the checkpoint commits or
+     * rolls back together with the rows.
+     *
+     * @param checkpointId the checkpoint
+     * @param lastRow      the 1-based row number of the last row of the chunk
+     * @param saved        the number of rows saved
+     * @param failed       the number of rows rejected
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void advance(Long checkpointId, int lastRow, long saved, long failed) {
+        importCheckpointRepository.advance(checkpointId, lastRow, saved, failed, LocalDateTime.now());
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void complete(Long checkpointId) {
+        importCheckpointRepository.updateStatus(checkpointId, ImportCheckpointStatus.COMPLETED, LocalDateTime.now());
+    }
+
+    /**
+     * Releases a checkpoint after a failed import, so the next upload of the file resumes right away.
+     *
+     * @param checkpointId the checkpoint
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void interrupt(Long checkpointId) {
+        importCheckpointRepository.updateStatus(checkpointId, ImportCheckpointStatus.INTERRUPTED, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,38 @@
+package com.mapnaom.foodreservation.services;
+
+import java.util.List;
+
+/**
+ * Entity-specific steps of the {@link ImportPipeline}: validation of a chunk and mapping between DTO and entity.
+ * All methods except {@link #afterCommit(List)} are called inside the transaction of the chunk being written.
+ *
+ * @param <T> the DTO type read from the file
+ * @param <E> the entity type persisted
+ */
+public interface ImportChunkHandler<T, E> {
+
+    /**
+     * Validates a chunk before it is persisted. A chunk that fails to commit is validated again row by row,
+     * so validating the same rows again must give the same result; a row is recognized by its row index.
+     *
+     * @param chunk      the DTOs of the chunk, in sheet order
+     * @param rowIndexes the row index of each DTO in the file, aligned with {@code chunk}
+     * @return an array aligned with {@code chunk}; a non-null entry is the error message of a row that must be skipped
+     */
+    default String[] validate(List<T> chunk, int[] rowIndexes) {
+        return new String[chunk.size()];
+    }
+
+    E toEntity(T dto);
+
+    T toDto(E entity);
+
+    /**
+     * Called once a chunk has committed, e.g. to remember the ids of the saved rows for later sheets of a workbook.
+     * In a dry run it receives the valid rows of the chunk as read, without ids.
+     *
+     * @param saved the DTOs mapped back from the saved entities
+     */
+    default void afterCommit(List<T> saved) {
+    }
+}
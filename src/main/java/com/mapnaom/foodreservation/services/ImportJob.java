@@ -0,0 +1,74 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.dtos.ImportJobDto;
+import com.mapnaom.foodreservation.dtos.ImportResponse;
+import com.mapnaom.foodreservation.dtos.WorkbookImportResponse;
+import com.mapnaom.foodreservation.enums.ImportJobState;
+import com.mapnaom.foodreservation.utils.ImportProgress;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One background import, tracked by {@link ImportJobService}. State transitions happen on the worker thread,
+ * reads happen on request threads, so the mutable fields are volatile and the counters live in {@link ImportProgress}.
+ */
+@Getter
+class ImportJob {
+
+    private final String id;
+    private final String type;
+    private final String fileName;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final ImportProgress progress = new ImportProgress();
+
+    private volatile ImportJobState state = ImportJobState.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String message;
+    private volatile Object result;
+
+    ImportJob(String id, String type, String fileName) {
+        this.id = id;
+        this.type = type;
+        this.fileName = fileName;
+    }
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        state = ImportJobState.RUNNING;
+    }
+
+    void complete(Object response) {
+        result = response;
+        finishedAt = LocalDateTime.now();
+        state = ImportJobState.COMPLETED;
+    }
+
+    void fail(String errorMessage) {
+        message = errorMessage;
+        finishedAt = LocalDateTime.now();
+        state = ImportJobState.FAILED;
+    }
+
+    /**
+     * Deletes the error spill files of the result.
+     */
+    void discard() {
+        if (result instanceof ImportResponse<?> response) {
+            response.getErrorLog().discard();
+        } else if (result instanceof WorkbookImportResponse workbook) {
+            workbook.getSheets().values().forEach(response -> response.getErrorLog().discard());
+        }
+    }
+
+    boolean isFinished() {
+        return state == ImportJobState.COMPLETED || state == ImportJobState.FAILED;
+    }
+
+    ImportJobDto toDto() {
+        return new ImportJobDto(id, type, fileName, state,
+                progress.getRowsParsed(), progress.getRowsPersisted(), progress.getRowsFailed(),
+                createdAt, startedAt, finishedAt, message);
+    }
+}
@@ -0,0 +1,183 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.dtos.ImportJobDto;
+import com.mapnaom.foodreservation.dtos.ImportResponse;
+import com.mapnaom.foodreservation.dtos.WorkbookImportResponse;
+import com.mapnaom.foodreservation.exceptions.ResourceNotFoundException;
+import com.mapnaom.foodreservation.utils.ExcelImporter;
+import com.mapnaom.foodreservation.utils.ImportErrorLog;
+import com.mapnaom.foodreservation.utils.ImportProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs imports in the background. The upload is staged to a temporary file before the request returns,
+ * the import runs on the bounded {@code importJobExecutor}, and clients poll the job for progress and fetch
+ * the final {@link ImportResponse} once it has completed. Finished jobs are kept for {@code import.jobs.retention};
+ * the full error list of a job can be paged or downloaded until then, and its spill file is deleted on eviction.
+ */
+@Slf4j
+@Service
+public class ImportJobService {
+
+    /**
+     * The import to run for a job, e.g. {@code branchService::importBranchesFromExcel}. It returns the result
+     * served to clients once the job has completed, usually an {@link ImportResponse}.
+     */
+    @FunctionalInterface
+    public interface Importer<R> {
+        R run(Path file, ImportProgress progress);
+    }
+
+    private final ThreadPoolTaskExecutor executor;
+    private final ImportAdmissionService importAdmissionService;
+    private final Duration retention;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public ImportJobService(@Qualifier("importJobExecutor") ThreadPoolTaskExecutor executor,
+                            ImportAdmissionService importAdmissionService,
+                            @Value("${import.jobs.retention:PT1H}") Duration retention) {
+        this.executor = executor;
+        this.importAdmissionService = importAdmissionService;
+        this.retention = retention;
+    }
+
+    /**
+     * Stages the upload and queues an import job for it.
+     *
+     * @param type     a short label of what is imported, e.g. "branches"
+     * @param file     the uploaded file
+     * @param importer the import to run on the staged file
+     * @return the status of the queued job
+     * @throws TaskRejectedException if the import queue is full
+     */
+    public <R> ImportJobDto submit(String type, MultipartFile file, Importer<R> importer) {
+        long estimatedBytes = ImportAdmissionService.estimateImport(file);
+        Path stagedFile = ExcelImporter.stage(file);
+        return submit(type, stagedFile, file.getOriginalFilename(), estimatedBytes, true, importer);
+    }
+
+    /**
+     * Queues an import job for a completed chunked upload. The staged file of the upload is imported in place.
+     * Meant to be the handoff of {@link ChunkedUploadService#take}, so that a rejected job leaves the upload intact.
+     *
+     * @param type     a short label of what is imported, e.g. "branches"
+     * @param upload   the upload being taken from the {@link ChunkedUploadService}
+     * @param importer the import to run on the staged file
+     * @return the status of the queued job
+     * @throws TaskRejectedException if the import queue is full; the staged file is kept for the upload
+     */
+    public <R> ImportJobDto submit(String type, ChunkedUploadService.StagedUpload upload, Importer<R> importer) {
+        return submit(type, upload.stagedFile(), upload.fileName(),
+                ImportAdmissionService.estimateImport(upload.format(), upload.size()), false, importer);
+    }
+
+    private <R> ImportJobDto submit(String type, Path stagedFile, String fileName, long estimatedBytes,
+                                    boolean deleteOnRejection, Importer<R> importer) {
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), type, fileName);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, stagedFile, estimatedBytes, importer));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            if (deleteOnRejection) {
+                ExcelImporter.deleteQuietly(stagedFile);
+            }
+            log.warn("Import job for {} rejected: queue is full", type);
+            throw e;
+        }
+        log.info("Queued import job {} for {} ({})", job.getId(), type, job.getFileName());
+        return job.toDto();
+    }
+
+    /**
+     * @param id the job id
+     * @return the current status of the job
+     * @throws ResourceNotFoundException if no such job exists (or it has expired)
+     */
+    public ImportJobDto getStatus(String id) {
+        return getJob(id).toDto();
+    }
+
+    /**
+     * @param id the job id
+     * @return the result of the importer, or null while the job has not completed
+     * @throws ResourceNotFoundException if no such job exists (or it has expired)
+     */
+    public Object getResult(String id) {
+        return getJob(id).getResult();
+    }
+
+    /**
+     * Returns the error log of a completed job, for paging or download.
+     *
+     * @param id    the job id
+     * @param sheet the sheet of a workbook job; ignored for single-file jobs
+     * @return the error log, or null while the job has not completed
+     * @throws ResourceNotFoundException if no such job or sheet exists
+     */
+    public ImportErrorLog getErrorLog(String id, String sheet) {
+        Object result = getJob(id).getResult();
+        if (result instanceof ImportResponse<?> response) {
+            return response.getErrorLog();
+        }
+        if (result instanceof WorkbookImportResponse workbook) {
+            ImportResponse<?> response = workbook.getSheets().get(sheet);
+            if (response == null) {
+                throw new ResourceNotFoundException("Sheet " + sheet + " of import job " + id + " not found.");
+            }
+            return response.getErrorLog();
+        }
+        return null;
+    }
+
+    @Scheduled(fixedDelayString = "${import.jobs.eviction-interval:PT5M}")
+    public void evictExpiredJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> {
+            if (job.isFinished() && job.getFinishedAt().isBefore(threshold)) {
+                job.discard();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Runs a job once its estimated memory fits in the admission budget; until then it stays queued.
+     */
+    private <R> void run(ImportJob job, Path stagedFile, long estimatedBytes, Importer<R> importer) {
+        try (ImportAdmissionService.Permit permit = importAdmissionService.await(estimatedBytes)) {
+            job.start();
+            job.complete(importer.run(stagedFile, job.getProgress()));
+            log.info("Import job {} completed: {} parsed, {} persisted, {} failed", job.getId(),
+                    job.getProgress().getRowsParsed(), job.getProgress().getRowsPersisted(), job.getProgress().getRowsFailed());
+        } catch (Exception e) {
+            log.error("Import job {} failed: ", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            ExcelImporter.deleteQuietly(stagedFile);
+        }
+    }
+
+    private ImportJob getJob(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import job " + id + " not found.");
+        }
+        return job;
+    }
+}
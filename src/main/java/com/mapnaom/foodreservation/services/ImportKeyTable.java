@@ -0,0 +1,170 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.utils.PersianTextNormalizer;
+import jakarta.persistence.EntityManager;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * In-memory lookup of entity ids for one import, so rows can refer to other entities without a query per row.
+ * <p>
+ * Ids of rows saved earlier in the same import (e.g. the Branch sheet of a workbook) are {@link #put registered}
+ * under their natural key once their chunk commits. Keys and ids that are not in the table are looked up in the
+ * database in {@code IN} batches of at most {@link DuplicateNameDetector#QUERY_BATCH_SIZE}, and the answers, found
+ * or not, are remembered for the rest of the import. Text keys are compared after
+ * {@link PersianTextNormalizer#normalize(String) Persian normalization}, against an indexed attribute that holds the
+ * normalized value, e.g. {@code normalizedName}.
+ * <p>
+ * Not thread-safe; use it from the writing thread of the import only.
+ */
+public final class ImportKeyTable {
+
+    private final EntityManager entityManager;
+    /** Entity class to natural key to id; a null id means the key is known not to exist. */
+    private final Map<Class<?>, Map<Object, Long>> idsByKey = new HashMap<>();
+    /** Entity class to id to whether an entity with that id exists. */
+    private final Map<Class<?>, Map<Long, Boolean>> knownIds = new HashMap<>();
+    /** Last placeholder id handed out for rows validated in a dry run. */
+    private long lastPlaceholderId;
+
+    public ImportKeyTable(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Registers a saved entity under its natural key.
+     *
+     * @param entityClass the entity class
+     * @param naturalKey  the natural key, e.g. a branch code; ignored if null
+     * @param id          the id of the saved entity, or null for a row that was only validated in a dry run; such
+     *                    rows get a negative placeholder id so later sheets can still refer to them
+     */
+    public void put(Class<?> entityClass, Object naturalKey, Long id) {
+        if (id == null) {
+            id = --lastPlaceholderId;
+        }
+        knownIds.computeIfAbsent(entityClass, k -> new HashMap<>()).put(id, Boolean.TRUE);
+        Object key = normalize(naturalKey);
+        if (key != null) {
+            idsByKey.computeIfAbsent(entityClass, k -> new HashMap<>()).put(key, id);
+        }
+    }
+
+    /**
+     * Resolves natural keys to ids, asking the database only about keys that are not in the table yet.
+     *
+     * @param entityClass the entity class
+     * @param attribute   the natural key attribute of the entity, e.g. {@code "id"}; for text keys, the attribute
+     *                    holding the normalized key, e.g. {@code "normalizedCode"}
+     * @param naturalKeys the keys to resolve
+     * @return the normalized keys that exist, mapped to their ids
+     */
+    public Map<Object, Long> resolve(Class<?> entityClass, String attribute, Collection<?> naturalKeys) {
+        Map<Object, Long> table = idsByKey.computeIfAbsent(entityClass, k -> new HashMap<>());
+        Set<Object> missing = new HashSet<>();
+        for (Object naturalKey : naturalKeys) {
+            Object key = normalize(naturalKey);
+            if (key != null && !table.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            String query = "select e." + attribute + ", e.id from " + entityName(entityClass)
+                    + " e where e." + attribute + " in :keys";
+            forEachBatch(missing, batch -> {
+                for (Object[] row : entityManager.createQuery(query, Object[].class).setParameter("keys", batch).getResultList()) {
+                    table.putIfAbsent(row[0], (Long) row[1]);
+                    knownIds.computeIfAbsent(entityClass, k -> new HashMap<>()).put((Long) row[1], Boolean.TRUE);
+                }
+            });
+            missing.forEach(key -> table.putIfAbsent(key, null));
+        }
+
+        Map<Object, Long> resolved = new HashMap<>();
+        for (Object naturalKey : naturalKeys) {
+            Object key = normalize(naturalKey);
+            if (key != null && table.get(key) != null) {
+                resolved.put(key, table.get(key));
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Returns the id registered for a natural key by the last {@link #resolve} or {@link #put} call.
+     *
+     * @param entityClass the entity class
+     * @param naturalKey  the natural key
+     * @return the id, or null if the key does not exist or has not been resolved
+     */
+    public Long find(Class<?> entityClass, Object naturalKey) {
+        Map<Object, Long> table = idsByKey.get(entityClass);
+        Object key = normalize(naturalKey);
+        return table == null || key == null ? null : table.get(key);
+    }
+
+    /**
+     * Checks which of the given ids exist, asking the database only about ids that are not in the table yet.
+     *
+     * @param entityClass the entity class
+     * @param ids         the ids to check
+     * @return the ids that exist
+     */
+    public Set<Long> verify(Class<?> entityClass, Collection<Long> ids) {
+        Map<Long, Boolean> table = knownIds.computeIfAbsent(entityClass, k -> new HashMap<>());
+        Set<Long> missing = new HashSet<>();
+        for (Long id : ids) {
+            if (id != null && !table.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            String query = "select e.id from " + entityName(entityClass) + " e where e.id in :ids";
+            forEachBatch(missing, batch -> entityManager.createQuery(query, Long.class).setParameter("ids", batch)
+                    .getResultList().forEach(id -> table.put(id, Boolean.TRUE)));
+            missing.forEach(id -> table.putIfAbsent(id, Boolean.FALSE));
+        }
+
+        Set<Long> existing = new HashSet<>();
+        for (Long id : ids) {
+            if (id != null && table.get(id)) {
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Returns a reference to an entity whose id is known to exist, without loading it.
+     *
+     * @param entityClass the entity class
+     * @param id          an id returned by {@link #resolve} or accepted by {@link #verify}
+     * @return an uninitialized proxy
+     */
+    public <E> E reference(Class<E> entityClass, Long id) {
+        return entityManager.getReference(entityClass, id);
+    }
+
+    private String entityName(Class<?> entityClass) {
+        return entityManager.getMetamodel().entity(entityClass).getName();
+    }
+
+    private static Object normalize(Object key) {
+        return key instanceof String text ? PersianTextNormalizer.normalize(text) : key;
+    }
+
+    private static <K> void forEachBatch(Collection<K> keys, Consumer<List<K>> query) {
+        List<K> batch = new ArrayList<>(Math.min(keys.size(), DuplicateNameDetector.QUERY_BATCH_SIZE));
+        for (K key : keys) {
+            batch.add(key);
+            if (batch.size() == DuplicateNameDetector.QUERY_BATCH_SIZE) {
+                query.accept(batch);
+                batch = new ArrayList<>(DuplicateNameDetector.QUERY_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            query.accept(batch);
+        }
+    }
+}
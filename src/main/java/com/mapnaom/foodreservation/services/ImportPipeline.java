@@ -0,0 +1,463 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.dtos.ImportResponse;
+import com.mapnaom.foodreservation.entities.ImportCheckpoint;
+import com.mapnaom.foodreservation.enums.ImportCheckpointStatus;
+import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+import com.mapnaom.foodreservation.utils.ExcelImporter;
+import com.mapnaom.foodreservation.utils.ImportFingerprint;
+import com.mapnaom.foodreservation.utils.ImportProgress;
+import com.mapnaom.foodreservation.utils.ImportedRowConsumer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Staged parse → validate → persist pipeline for Excel imports.
+ * <p>
+ * A parser thread streams the file and hands chunks of bound DTOs to the calling thread through a bounded queue.
+ * Each chunk is first checked against the Bean Validation constraints of its DTO by the {@link ImportRowValidator},
+ * in parallel with the chunks before it; rows that violate a constraint are reported per cell and never reach the
+ * database. The calling thread writes each chunk in its own transaction: validate, persist, flush, clear. Memory therefore
+ * stays at a few chunks regardless of file size, the persistence context never grows beyond one chunk, and a bad
+ * row only costs its own chunk, which is then retried row by row so that every other row still gets saved.
+ * <p>
+ * In dry-run mode the same stages run up to validation only: rows are bound in parallel and every chunk is validated
+ * in a read-only transaction against the handler's batched, cached lookups, but nothing is persisted. Valid rows are
+ * reported as successes in their original form, so users can fix a file before really importing it.
+ * <p>
+ * Real imports are checkpointed by the SHA-256 of the file: every chunk commits together with the number of its last
+ * row in an {@link ImportCheckpoint}. Uploading a file that was imported completely before returns the earlier totals
+ * without reading it, and uploading a file whose import was interrupted skips the rows that already committed.
+ */
+@Slf4j
+@Component
+public class ImportPipeline {
+
+    private final EntityManager entityManager;
+    private final ImportCheckpointService importCheckpointService;
+    private final ImportRowValidator importRowValidator;
+    private final ThreadPoolTaskExecutor parsers;
+    private final ThreadPoolTaskExecutor binders;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int queueCapacity;
+
+    public ImportPipeline(EntityManager entityManager,
+                          ImportCheckpointService importCheckpointService,
+                          ImportRowValidator importRowValidator,
+                          @Qualifier("importParserExecutor") ThreadPoolTaskExecutor parsers,
+                          @Qualifier("importBinderExecutor") ThreadPoolTaskExecutor binders,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${import.pipeline.queue-capacity:4}") int queueCapacity) {
+        this.entityManager = entityManager;
+        this.importCheckpointService = importCheckpointService;
+        this.importRowValidator = importRowValidator;
+        this.parsers = parsers;
+        this.binders = binders;
+        // Each chunk commits on its own, even if the caller happens to run inside a transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Imports an XLSX file chunk by chunk. Binding errors, validation errors and rows that fail to save are
+     * recorded in {@code response}; every saved row is added to it as a DTO mapped back from the saved entity.
+     *
+     * @param file      the XLSX file
+     * @param dtoClass  the DTO class the rows are bound to
+     * @param chunkSize rows per transaction
+     * @param handler   the entity-specific validation and mapping
+     * @param response  the response to fill
+     * @param progress  the counters to update
+     */
+    public <T, E> void run(Path file, Class<T> dtoClass, int chunkSize, ImportChunkHandler<T, E> handler,
+                           ImportResponse<T> response, ImportProgress progress) {
+        run(file, null, dtoClass, chunkSize, handler, response, progress);
+    }
+
+    /**
+     * Imports one sheet of an XLSX workbook chunk by chunk, like {@link #run(Path, Class, int, ImportChunkHandler, ImportResponse, ImportProgress)}.
+     *
+     * @param file      the XLSX file
+     * @param sheetName the sheet to import, or null for the first one
+     * @param dtoClass  the DTO class the rows are bound to
+     * @param chunkSize rows per transaction
+     * @param handler   the entity-specific validation and mapping
+     * @param response  the response to fill
+     * @param progress  the counters to update
+     */
+    public <T, E> void run(Path file, String sheetName, Class<T> dtoClass, int chunkSize, ImportChunkHandler<T, E> handler,
+                           ImportResponse<T> response, ImportProgress progress) {
+        run(file, sheetName, dtoClass, chunkSize, handler, response, progress, false);
+    }
+
+    /**
+     * Imports or, with {@code dryRun}, only validates one sheet of an XLSX workbook chunk by chunk.
+     *
+     * @param file      the XLSX file
+     * @param sheetName the sheet to import, or null for the first one
+     * @param dtoClass  the DTO class the rows are bound to
+     * @param chunkSize rows per transaction
+     * @param handler   the entity-specific validation and mapping
+     * @param response  the response to fill
+     * @param progress  the counters to update
+     * @param dryRun    if true, rows are validated but not persisted; valid rows are added to {@code response} as read
+     */
+    public <T, E> void run(Path file, String sheetName, Class<T> dtoClass, int chunkSize, ImportChunkHandler<T, E> handler,
+                           ImportResponse<T> response, ImportProgress progress, boolean dryRun) {
+        ImportCheckpoint checkpoint = dryRun ? null : beginCheckpoint(file, sheetName, dtoClass);
+        if (checkpoint != null && checkpoint.getStatus() == ImportCheckpointStatus.COMPLETED) {
+            log.info("File {} was already imported into {}, skipping it", checkpoint.getFingerprint(), checkpoint.getImportKey());
+            response.markAlreadyImported(checkpoint.getTotalSuccess(), checkpoint.getTotalFailed());
+            return;
+        }
+        int resumeAfter = checkpoint == null ? 0 : checkpoint.getLastCommittedRow();
+        if (resumeAfter > 0) {
+            response.markResumed(resumeAfter, checkpoint.getTotalSuccess(), checkpoint.getTotalFailed());
+        }
+        Long checkpointId = checkpoint == null ? null : checkpoint.getId();
+
+        boolean completed = false;
+        try {
+            read(file, sheetName, dtoClass, chunkSize, resumeAfter, handler, response, progress, dryRun, checkpointId);
+            completed = true;
+        } finally {
+            if (checkpointId != null) {
+                finishCheckpoint(checkpointId, completed);
+            }
+        }
+    }
+
+    private <T, E> void read(Path file, String sheetName, Class<T> dtoClass, int chunkSize, int resumeAfter,
+                             ImportChunkHandler<T, E> handler, ImportResponse<T> response, ImportProgress progress,
+                             boolean dryRun, Long checkpointId) {
+        // Chunks are queued while they are still being validated and taken in sheet order
+        BlockingQueue<Future<Chunk<T>>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Future<Chunk<T>> end = CompletableFuture.completedFuture(new Chunk<>(List.of(), 0));
+        ImportRowValidator validator = importRowValidator.isConstrained(dtoClass) ? importRowValidator : null;
+
+        Future<?> parser = parsers.submit(() -> {
+            try {
+                ChunkCollector<T> collector = new ChunkCollector<>(queue, chunkSize, resumeAfter, validator);
+                ExcelImporter.streamFromExcel(file, sheetName, dtoClass, response, progress, collector,
+                        binders.getThreadPoolExecutor());
+                collector.flush();
+            } finally {
+                put(queue, end);
+            }
+            return null;
+        });
+
+        try {
+            for (Future<Chunk<T>> next = queue.take(); next != end; next = queue.take()) {
+                Chunk<T> chunk = next.get();
+                if (dryRun) {
+                    validateChunk(chunk.rows(), handler, response, progress);
+                } else {
+                    writeChunk(chunk, handler, response, progress, checkpointId);
+                }
+            }
+            parser.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelDataImportException(e, "Import was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ExcelDataImportException(e, "Failed to read Excel file");
+        } finally {
+            parser.cancel(true);
+        }
+    }
+
+    /**
+     * Claims the checkpoint of the file, keyed by the DTO class and, for a workbook, the sheet.
+     */
+    private ImportCheckpoint beginCheckpoint(Path file, String sheetName, Class<?> dtoClass) {
+        String importKey = sheetName == null ? dtoClass.getSimpleName() : dtoClass.getSimpleName() + "#" + sheetName;
+        try {
+            return importCheckpointService.begin(ImportFingerprint.sha256(file), importKey);
+        } catch (DataIntegrityViolationException e) {
+            // Another upload of the same file created the checkpoint first
+            throw new ExcelDataImportException(e, "This file is already being imported");
+        }
+    }
+
+    private void finishCheckpoint(Long checkpointId, boolean completed) {
+        try {
+            if (completed) {
+                importCheckpointService.complete(checkpointId);
+            } else {
+                importCheckpointService.interrupt(checkpointId);
+            }
+        } catch (RuntimeException e) {
+            // A running checkpoint becomes resumable anyway once it is stale
+            log.warn("Could not update import checkpoint {}: {}", checkpointId, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes one chunk in a single transaction; if that fails, retries each row in its own transaction.
+     * The binding failures of the chunk are counted in the checkpoint together with its rows, or with its last row
+     * when retrying.
+     */
+    private <T, E> void writeChunk(Chunk<T> chunk, ImportChunkHandler<T, E> handler,
+                                   ImportResponse<T> response, ImportProgress progress, Long checkpointId) {
+        List<ImportedRow<T>> rows = chunk.rows();
+        if (rows.isEmpty()) {
+            // Only binding failures after the last bound row
+            if (checkpointId != null && chunk.bindingFailures() > 0) {
+                transactionTemplate.executeWithoutResult(status ->
+                        importCheckpointService.advance(checkpointId, 0, 0, chunk.bindingFailures()));
+            }
+            return;
+        }
+        ChunkResult<T> result;
+        try {
+            result = transactionTemplate.execute(status -> persistChunk(chunk, handler, checkpointId));
+        } catch (RuntimeException e) {
+            entityManager.clear();
+            if (rows.size() == 1) {
+                ImportedRow<T> row = rows.get(0);
+                log.error("Error saving row {}: {}", row.rowIndex(), e.getMessage());
+                reject(row, "خطا در ذخیره ردیف: " + e.getMessage(), response, progress);
+                if (checkpointId != null) {
+                    transactionTemplate.executeWithoutResult(status ->
+                            importCheckpointService.advance(checkpointId, row.rowIndex(), 0, 1 + chunk.bindingFailures()));
+                }
+                return;
+            }
+            log.warn("Saving rows {}-{} failed, retrying row by row: {}",
+                    rows.get(0).rowIndex(), rows.get(rows.size() - 1).rowIndex(), e.getMessage());
+            for (int i = 0; i < rows.size(); i++) {
+                int bindingFailures = i == rows.size() - 1 ? chunk.bindingFailures() : 0;
+                writeChunk(new Chunk<>(List.of(rows.get(i)), bindingFailures), handler, response, progress, checkpointId);
+            }
+            return;
+        }
+
+        // Only record outcomes once the chunk has committed
+        result.rejected().forEach((row, message) -> reject(row, message, response, progress));
+        result.saved().forEach(response::incrementSuccess);
+        progress.rowsPersisted(result.saved().size());
+        handler.afterCommit(result.saved());
+    }
+
+    /**
+     * Validates one chunk in a read-only transaction without persisting it. The valid rows are passed to
+     * {@link ImportChunkHandler#afterCommit(List)} without ids, so later sheets of a workbook can refer to them.
+     */
+    private <T, E> void validateChunk(List<ImportedRow<T>> chunk, ImportChunkHandler<T, E> handler,
+                                      ImportResponse<T> response, ImportProgress progress) {
+        String[] errors = readOnlyTransactionTemplate.execute(status -> validate(chunk, handler));
+
+        List<T> valid = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (errors[i] != null) {
+                reject(chunk.get(i), errors[i], response, progress);
+            } else {
+                valid.add(chunk.get(i).dto());
+            }
+        }
+        valid.forEach(response::incrementSuccess);
+        handler.afterCommit(valid);
+    }
+
+    private <T, E> ChunkResult<T> persistChunk(Chunk<T> pending, ImportChunkHandler<T, E> handler, Long checkpointId) {
+        List<ImportedRow<T>> chunk = pending.rows();
+        String[] errors = validate(chunk, handler);
+
+        ChunkResult<T> result = new ChunkResult<>(new ArrayList<>(chunk.size()), new LinkedHashMap<>());
+        List<E> entities = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (errors[i] != null) {
+                result.rejected().put(chunk.get(i), errors[i]);
+                continue;
+            }
+            try {
+                E entity = handler.toEntity(chunk.get(i).dto());
+                entityManager.persist(entity);
+                entities.add(entity);
+            } catch (RuntimeException e) {
+                // Mapping problems (e.g. an unknown reference) only affect this row; a failed persist may also
+                // have marked the transaction rollback-only, in which case the commit fails and the chunk is retried
+                // row by row
+                result.rejected().put(chunk.get(i), e.getMessage());
+            }
+        }
+        entityManager.flush();
+        if (checkpointId != null) {
+            importCheckpointService.advance(checkpointId, chunk.get(chunk.size() - 1).rowIndex(),
+                    entities.size(), result.rejected().size() + pending.bindingFailures());
+        }
+        entities.forEach(entity -> result.saved().add(handler.toDto(entity)));
+        entityManager.clear();
+        return result;
+    }
+
+    /**
+     * Validates a chunk with the handler. Rows that already violate a constraint are not passed to the handler;
+     * their entry is the first violation.
+     */
+    private static <T, E> String[] validate(List<ImportedRow<T>> chunk, ImportChunkHandler<T, E> handler) {
+        List<T> dtos = new ArrayList<>(chunk.size());
+        int[] rowIndexes = new int[chunk.size()];
+        for (ImportedRow<T> row : chunk) {
+            if (row.violations().isEmpty()) {
+                rowIndexes[dtos.size()] = row.rowIndex();
+                dtos.add(row.dto());
+            }
+        }
+        String[] handlerErrors = dtos.isEmpty() ? new String[0]
+                : handler.validate(dtos, dtos.size() == rowIndexes.length ? rowIndexes : Arrays.copyOf(rowIndexes, dtos.size()));
+        if (dtos.size() == chunk.size()) {
+            return handlerErrors;
+        }
+        String[] errors = new String[chunk.size()];
+        int next = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            List<ImportRowValidator.Violation> violations = chunk.get(i).violations();
+            errors[i] = violations.isEmpty() ? handlerErrors[next++] : violations.get(0).message();
+        }
+        return errors;
+    }
+
+    /**
+     * Records a failed row. A row that violates constraints gets one error per violation, in the violated column.
+     */
+    private static <T> void reject(ImportedRow<T> row, String message, ImportResponse<T> response, ImportProgress progress) {
+        response.incrementFailed();
+        if (row.violations().isEmpty()) {
+            response.addError(row.rowIndex(), -1, message);
+        } else {
+            row.violations().forEach(violation ->
+                    response.addError(row.rowIndex(), violation.column(), violation.message()));
+        }
+        progress.rowFailed();
+    }
+
+    private static <T> void put(BlockingQueue<Future<Chunk<T>>> queue, Future<Chunk<T>> chunk) {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelDataImportException(e, "Import was interrupted");
+        }
+    }
+
+    /**
+     * Groups the rows streamed by the parser into chunks and queues every full chunk, blocking while the writer is behind.
+     * Rows up to {@code resumeAfter} were committed by an earlier import of the file and are dropped, and so are their
+     * binding failures, which that import counted. Later binding failures travel with the next chunk, so the
+     * checkpoint counts them. With a validator, every chunk is queued as soon as its validation has been submitted,
+     * so up to the queue capacity of chunks are validated at once.
+     */
+    private static final class ChunkCollector<T> implements ImportedRowConsumer<T> {
+
+        private final BlockingQueue<Future<Chunk<T>>> queue;
+        private final int chunkSize;
+        private final int resumeAfter;
+        private final ImportRowValidator validator;
+        private Map<String, Integer> headerMap = Map.of();
+        private List<ImportedRow<T>> chunk;
+        private int bindingFailures;
+
+        /**
+         * @param validator the validator, or null if the DTO class has no constraints
+         */
+        ChunkCollector(BlockingQueue<Future<Chunk<T>>> queue, int chunkSize, int resumeAfter,
+                       ImportRowValidator validator) {
+            this.queue = queue;
+            this.chunkSize = chunkSize;
+            this.resumeAfter = resumeAfter;
+            this.validator = validator;
+            this.chunk = new ArrayList<>(chunkSize);
+        }
+
+        @Override
+        public void onHeader(Map<String, Integer> headerMap) {
+            this.headerMap = headerMap;
+        }
+
+        @Override
+        public void accept(int rowIndex, T dto) {
+            if (rowIndex <= resumeAfter) {
+                return;
+            }
+            chunk.add(new ImportedRow<>(rowIndex, dto, List.of()));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public boolean onFailure(int rowIndex) {
+            if (rowIndex <= resumeAfter) {
+                return false;
+            }
+            bindingFailures++;
+            return true;
+        }
+
+        void flush() {
+            if (chunk.isEmpty() && bindingFailures == 0) {
+                return;
+            }
+            List<ImportedRow<T>> full = chunk;
+            int failures = bindingFailures;
+            chunk = new ArrayList<>(chunkSize);
+            bindingFailures = 0;
+            if (validator == null || full.isEmpty()) {
+                put(queue, CompletableFuture.completedFuture(new Chunk<>(full, failures)));
+            } else {
+                Map<String, Integer> headers = headerMap;
+                put(queue, validator.executor().submit(() -> new Chunk<>(checkConstraints(full, headers), failures)));
+            }
+        }
+
+        private List<ImportedRow<T>> checkConstraints(List<ImportedRow<T>> rows, Map<String, Integer> headers) {
+            List<ImportedRow<T>> validated = new ArrayList<>(rows.size());
+            for (ImportedRow<T> row : rows) {
+                List<ImportRowValidator.Violation> violations = validator.validate(row.dto(), headers);
+                validated.add(violations.isEmpty() ? row : new ImportedRow<>(row.rowIndex(), row.dto(), violations));
+            }
+            return validated;
+        }
+    }
+
+    /**
+     * @param violations the constraints the row violates, empty if it passed Bean Validation
+     */
+    private record ImportedRow<T>(int rowIndex, T dto, List<ImportRowValidator.Violation> violations) {
+    }
+
+    /**
+     * The rows of a chunk, and the number of rows that failed to bind since the previous chunk.
+     */
+    private record Chunk<T>(List<ImportedRow<T>> rows, int bindingFailures) {
+    }
+
+    private record ChunkResult<T>(List<T> saved, Map<ImportedRow<T>, String> rejected) {
+    }
+}
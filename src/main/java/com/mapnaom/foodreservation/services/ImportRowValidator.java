@@ -0,0 +1,129 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.utils.Excel;
+import com.mapnaom.foodreservation.utils.ExcelExportPlan;
+import com.mapnaom.foodreservation.utils.ImportChecks;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Path;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bean Validation stage of the import pipeline, between row binding and persistence.
+ * <p>
+ * Rows are checked against the constraint annotations of their DTO in the {@link ImportChecks} group, with the
+ * application's shared {@link Validator}, on the {@code importValidatorExecutor} pool, so a chunk is validated while the previous one is
+ * being written. Whether a DTO class has any constraints at all is looked up once per class; rows of unconstrained
+ * classes skip validation entirely.
+ * Every violation is reported in the column whose header matches the name of the violated property, or its
+ * {@link Excel} header, so an error points at the cell to fix.
+ */
+@Component
+public class ImportRowValidator {
+
+    private final Validator validator;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final ClassValue<Boolean> constrained = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return validator.getConstraintsForClass(type).isBeanConstrained();
+        }
+    };
+
+    public ImportRowValidator(Validator validator,
+                              @Qualifier("importValidatorExecutor") ThreadPoolTaskExecutor executor) {
+        this.validator = validator;
+        this.executor = executor;
+    }
+
+    /**
+     * One violated constraint of a row.
+     *
+     * @param column  the 0-based column of the violated property, or -1 if it has no column
+     * @param message the message, prefixed with the property path
+     */
+    public record Violation(int column, String message) {
+    }
+
+    /**
+     * @return the pool chunks are validated on
+     */
+    ThreadPoolTaskExecutor executor() {
+        return executor;
+    }
+
+    /**
+     * Returns whether instances of a class have constraints to check.
+     *
+     * @param type the DTO class
+     * @return true if the class or one of its properties is constrained or cascaded
+     */
+    public boolean isConstrained(Class<?> type) {
+        return constrained.get(type);
+    }
+
+    /**
+     * Validates one bound row.
+     *
+     * @param dto       the bound row
+     * @param headerMap the header names of the sheet mapped to their 0-based column indexes
+     * @return the violations, or an empty list if the row is valid
+     */
+    public List<Violation> validate(Object dto, Map<String, Integer> headerMap) {
+        if (!isConstrained(dto.getClass())) {
+            return List.of();
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(dto, ImportChecks.class);
+        if (violations.isEmpty()) {
+            return List.of();
+        }
+        List<Violation> result = new ArrayList<>(violations.size());
+        for (ConstraintViolation<Object> violation : violations) {
+            String property = leafName(violation.getPropertyPath());
+            Integer column = property == null ? null : headerMap.get(property);
+            if (column == null && property != null) {
+                column = headerMap.get(excelHeader(violation.getLeafBean(), property));
+            }
+            result.add(new Violation(column == null ? -1 : column, violation.getPropertyPath() + ": " + violation.getMessage()));
+        }
+        // The validator returns violations in no particular order
+        result.sort(Comparator.comparingInt(Violation::column).thenComparing(Violation::message));
+        return result;
+    }
+
+    /**
+     * Returns the {@link Excel} header of a property, under which its column may appear instead of the property name.
+     */
+    private static String excelHeader(Object bean, String property) {
+        if (bean == null) {
+            return property;
+        }
+        try {
+            return ExcelExportPlan.headerOf(bean.getClass().getDeclaredField(property));
+        } catch (NoSuchFieldException e) {
+            return property;
+        }
+    }
+
+    /**
+     * Returns the name of the last property in a path, which is the header of its column.
+     */
+    private static String leafName(Path path) {
+        String name = null;
+        for (Path.Node node : path) {
+            if (node.getName() != null) {
+                name = node.getName();
+            }
+        }
+        return name;
+    }
+}
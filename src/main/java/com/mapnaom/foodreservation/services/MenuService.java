@@ -1,21 +1,36 @@
 package com.mapnaom.foodreservation.services;
 
+import com.mapnaom.foodreservation.dtos.FoodOptionDto;
+import com.mapnaom.foodreservation.dtos.ImportResponse;
 import com.mapnaom.foodreservation.dtos.MenuDto;
+import com.mapnaom.foodreservation.entities.Branch;
+import com.mapnaom.foodreservation.entities.Contractor;
+import com.mapnaom.foodreservation.entities.FoodOption;
 import com.mapnaom.foodreservation.exceptions.ResourceNotFoundException;
 import com.mapnaom.foodreservation.mappers.MenuMapper;
 import com.mapnaom.foodreservation.entities.Menu;
 import com.mapnaom.foodreservation.repositories.MenuRepository;
 import com.mapnaom.foodreservation.searchForms.MenuSearchForm;
 import com.mapnaom.foodreservation.specifications.MenuSpecification;
+import com.mapnaom.foodreservation.utils.ExcelImporter;
+import com.mapnaom.foodreservation.utils.ImportProgress;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +39,12 @@ public class MenuService {
 
     private final MenuRepository menuRepository;
     private final MenuMapper menuMapper;
+    private final ImportPipeline importPipeline;
+    private final EntityManager entityManager;
+    private final ImportAdmissionService importAdmissionService;
+
+    @Value("${import.chunk-size.menu:200}")
+    private int importChunkSize;
 
     /**
      * دریافت تمام منوها به صورت صفحه‌بندی شده با شرایط جستجو
@@ -102,4 +123,150 @@ public class MenuService {
         }
         menuRepository.deleteById(id);
     }
+
+    /**
+     * ورود منوها از فایل Excel، CSV یا TSV
+     *
+     * @param file   فایل بارگذاری شده
+     * @param dryRun اگر true باشد ردیف‌ها فقط اعتبارسنجی می‌شوند و چیزی ذخیره نمی‌شود
+     * @return نتیجه ورود اطلاعات
+     */
+    public ImportResponse<MenuDto> importMenusFromExcel(MultipartFile file, boolean dryRun) {
+        try (ImportAdmissionService.Permit permit = importAdmissionService.admitImport(file)) {
+            Path stagedFile = ExcelImporter.stage(file);
+            try {
+                return importMenusFromExcel(stagedFile, new ImportProgress(), dryRun);
+            } finally {
+                ExcelImporter.deleteQuietly(stagedFile);
+            }
+        }
+    }
+
+    /**
+     * ورود منوها از فایل روی دیسک. ردیف‌های پشت سر هم با تاریخ، شعبه و پیمانکار یکسان یک منو با چند غذا
+     * را تشکیل می‌دهند؛ هر دسته از منوها در تراکنش جداگانه ذخیره می‌شود.
+     *
+     * @param file     فایل Excel، CSV یا TSV
+     * @param progress شمارنده‌های پیشرفت
+     * @return نتیجه ورود اطلاعات
+     */
+    public ImportResponse<MenuDto> importMenusFromExcel(Path file, ImportProgress progress) {
+        return importMenusFromExcel(file, progress, false);
+    }
+
+    /**
+     * ورود یا فقط اعتبارسنجی منوها از فایل روی دیسک؛ در حالت آزمایشی (dry run) چیزی ذخیره نمی‌شود.
+     *
+     * @param file     فایل Excel، CSV یا TSV
+     * @param progress شمارنده‌های پیشرفت
+     * @param dryRun   اگر true باشد ردیف‌ها فقط اعتبارسنجی می‌شوند
+     * @return نتیجه ورود اطلاعات
+     */
+    public ImportResponse<MenuDto> importMenusFromExcel(Path file, ImportProgress progress, boolean dryRun) {
+        return importMenuSheet(file, null, new ImportKeyTable(entityManager), progress, dryRun);
+    }
+
+    /**
+     * ورود برگه منوهای یک کارپوشه؛ شعبه با شناسه یا کد و غذا با شناسه یا نام از جدول کلیدها پیدا می‌شود.
+     *
+     * @param file      فایل Excel
+     * @param sheetName نام برگه، یا null برای برگه اول
+     * @param keys      جدول کلیدهای طبیعی این ورود
+     * @param progress  شمارنده‌های پیشرفت
+     * @param dryRun    اگر true باشد ردیف‌ها فقط اعتبارسنجی می‌شوند
+     * @return نتیجه ورود برگه
+     */
+    ImportResponse<MenuDto> importMenuSheet(Path file, String sheetName, ImportKeyTable keys, ImportProgress progress,
+                                            boolean dryRun) {
+        ImportResponse<MenuDto> response = new ImportResponse<>();
+        importPipeline.run(file, sheetName, MenuDto.class, importChunkSize, new MenuImportHandler(keys), response, progress, dryRun);
+        return response;
+    }
+
+    /**
+     * اعتبارسنجی و نگاشت منوهای وارد شده؛ منوی بدون تاریخ، شعبه، پیمانکار یا غذا، منویی که شعبه، پیمانکار
+     * یا غذای آن وجود ندارد و منویی که کلید آن پیش‌تر در همین فایل آمده است رد می‌شود.
+     * ارجاع‌ها با جدول کلیدها و به صورت دسته‌ای بررسی می‌شوند و موجودیت‌ها با getReference بدون بارگذاری ساخته می‌شوند.
+     */
+    private class MenuImportHandler implements ImportChunkHandler<MenuDto, Menu> {
+
+        private final ImportKeyTable keys;
+        // Row of the first menu seen per (date, branch, contractor), so that re-validating a row is harmless
+        private final Map<List<Object>, Integer> firstRowByKey = new HashMap<>();
+
+        MenuImportHandler(ImportKeyTable keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public String[] validate(List<MenuDto> chunk, int[] rowIndexes) {
+            List<String> branchCodes = new ArrayList<>();
+            List<Long> contractorIds = new ArrayList<>();
+            List<FoodOptionDto> foodOptions = new ArrayList<>();
+            for (MenuDto dto : chunk) {
+                if (dto.getBranchId() == null && dto.getBranchCode() != null) {
+                    branchCodes.add(dto.getBranchCode());
+                }
+                contractorIds.add(dto.getContractorId());
+                if (dto.getFoodOptions() != null) {
+                    foodOptions.addAll(dto.getFoodOptions());
+                }
+            }
+            keys.resolve(Branch.class, "normalizedCode", branchCodes);
+            for (MenuDto dto : chunk) {
+                if (dto.getBranchId() == null && dto.getBranchCode() != null) {
+                    dto.setBranchId(keys.find(Branch.class, dto.getBranchCode()));
+                }
+            }
+            Set<Long> branches = keys.verify(Branch.class, chunk.stream().map(MenuDto::getBranchId).toList());
+            Set<Long> contractors = keys.verify(Contractor.class, contractorIds);
+            Set<Long> foods = FoodOptionService.resolveFoods(foodOptions, keys);
+
+            String[] errors = new String[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                MenuDto dto = chunk.get(i);
+                int rowIndex = rowIndexes[i];
+                if (dto.getDate() == null || (dto.getBranchId() == null && dto.getBranchCode() == null) || dto.getContractorId() == null) {
+                    errors[i] = "تاریخ، شعبه و پیمانکار منو الزامی است.";
+                } else if (dto.getBranchId() == null || !branches.contains(dto.getBranchId())) {
+                    errors[i] = "شعبه " + (dto.getBranchId() != null ? dto.getBranchId() : dto.getBranchCode()) + " یافت نشد.";
+                } else if (!contractors.contains(dto.getContractorId())) {
+                    errors[i] = "پیمانکار با شناسه " + dto.getContractorId() + " یافت نشد.";
+                } else if (dto.getFoodOptions() == null || dto.getFoodOptions().isEmpty()) {
+                    errors[i] = "منوی تاریخ " + dto.getDate() + " هیچ غذایی ندارد.";
+                } else if (firstRowByKey.computeIfAbsent(List.of(dto.getDate(), dto.getBranchId(), dto.getContractorId()),
+                        key -> rowIndex) != rowIndex) {
+                    errors[i] = "منوی تاریخ " + dto.getDate() + " برای این شعبه و پیمانکار در فایل تکراری است.";
+                } else {
+                    for (FoodOptionDto option : dto.getFoodOptions()) {
+                        String error = FoodOptionService.foodError(option, foods);
+                        if (error != null) {
+                            errors[i] = error;
+                            break;
+                        }
+                    }
+                }
+            }
+            return errors;
+        }
+
+        @Override
+        public Menu toEntity(MenuDto dto) {
+            Menu menu = new Menu();
+            menu.setDate(dto.getDate());
+            menu.setBranch(keys.reference(Branch.class, dto.getBranchId()));
+            menu.setContractor(keys.reference(Contractor.class, dto.getContractorId()));
+            for (FoodOptionDto optionDto : dto.getFoodOptions()) {
+                FoodOption option = FoodOptionService.toEntity(optionDto, keys);
+                option.setMenu(menu);
+                menu.getFoodOptions().add(option);
+            }
+            return menu;
+        }
+
+        @Override
+        public MenuDto toDto(Menu entity) {
+            return menuMapper.toDto(entity);
+        }
+    }
 }
@@ -8,16 +8,21 @@ import com.mapnaom.foodreservation.entities.Order;
 import com.mapnaom.foodreservation.repositories.OrderRepository;
 import com.mapnaom.foodreservation.searchForms.OrderSearchForm;
 import com.mapnaom.foodreservation.specifications.OrderSpecification;
+import com.mapnaom.foodreservation.utils.ExcelDataExporter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -43,6 +48,24 @@ public class OrderService {
         return new PageImpl<>(orderDtos, pageable, orderPage.getTotalElements());
     }
 
+    /**
+     * نوشتن سفارش‌های منطبق با فرم جستجو در یک فایل اکسل به صورت جریانی.
+     * سفارش‌ها از یک cursor پایگاه داده خوانده و مستقیما در فایل نوشته می‌شوند، بدون ساختن لیست میانی،
+     * بنابراین حافظه مصرفی به تعداد سفارش‌ها بستگی ندارد.
+     *
+     * @param searchForm فرم جستجو
+     * @param out        جریان خروجی، مثلا بدنه پاسخ؛ بسته نمی‌شود
+     * @throws IOException در صورت خطا در نوشتن
+     */
+    @Transactional(readOnly = true)
+    public void exportToExcel(OrderSearchForm searchForm, OutputStream out) throws IOException {
+        Specification<Order> specification = OrderSpecification.getOrderSpecification(searchForm);
+        // The DTO only reads the ids of the employee and the food option, which proxies hold without a query
+        try (Stream<OrderDto> rows = orderRepository.streamAll(specification, Sort.by("id"), List.of(), orderMapper::toDto)) {
+            ExcelDataExporter.exportData(rows::iterator, OrderDto.class, out);
+        }
+    }
+
     /**
      * دریافت یک سفارش بر اساس شناسه
      *
@@ -0,0 +1,112 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.dtos.WorkbookImportResponse;
+import com.mapnaom.foodreservation.enums.ImportFormat;
+import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+import com.mapnaom.foodreservation.utils.ExcelImporter;
+import com.mapnaom.foodreservation.utils.ImportProgress;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Imports a workbook holding several kinds of reference data in one job.
+ * <p>
+ * The sheets are imported in dependency order: {@value #BRANCH_SHEET}, {@value #FOOD_SHEET}, {@value #MENU_SHEET},
+ * {@value #FOOD_OPTION_SHEET}. Missing sheets are skipped. Every sheet goes through the chunked {@link ImportPipeline};
+ * the ids of saved branches and foods are registered in an {@link ImportKeyTable} under their code and name, so the
+ * menu and food option sheets can refer to them by natural key and are resolved without a query per row.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkbookImportService {
+
+    public static final String BRANCH_SHEET = "Branch";
+    public static final String FOOD_SHEET = "Food";
+    public static final String MENU_SHEET = "Menu";
+    public static final String FOOD_OPTION_SHEET = "FoodOption";
+
+    private final BranchService branchService;
+    private final FoodService foodService;
+    private final MenuService menuService;
+    private final FoodOptionService foodOptionService;
+    private final EntityManager entityManager;
+    private final ImportAdmissionService importAdmissionService;
+
+    /**
+     * Imports an uploaded XLSX workbook.
+     *
+     * @param file   the uploaded workbook
+     * @param dryRun if true, the sheets are only validated and nothing is saved
+     * @return the results per sheet
+     */
+    public WorkbookImportResponse importWorkbook(MultipartFile file, boolean dryRun) {
+        try (ImportAdmissionService.Permit permit = importAdmissionService.admitImport(file)) {
+            Path stagedFile = ExcelImporter.stage(file);
+            try {
+                return importWorkbook(stagedFile, new ImportProgress(), dryRun);
+            } finally {
+                ExcelImporter.deleteQuietly(stagedFile);
+            }
+        }
+    }
+
+    /**
+     * Imports an XLSX workbook on disk, sheet by sheet in dependency order.
+     *
+     * @param file     the XLSX workbook
+     * @param progress the counters to update; they add up the rows of all sheets
+     * @return the results per sheet
+     * @throws ExcelDataImportException if the file is not an XLSX or XLS workbook or has none of the known sheets
+     */
+    public WorkbookImportResponse importWorkbook(Path file, ImportProgress progress) {
+        return importWorkbook(file, progress, false);
+    }
+
+    /**
+     * Imports or, in a dry run, only validates an XLSX workbook on disk. In a dry run, rows of the Branch and Food
+     * sheets that pass validation are still registered in the key table, so the Menu sheet can refer to them.
+     *
+     * @param file     the XLSX workbook
+     * @param progress the counters to update; they add up the rows of all sheets
+     * @param dryRun   if true, the sheets are only validated and nothing is saved
+     * @return the results per sheet
+     * @throws ExcelDataImportException if the file is not an XLSX or XLS workbook or has none of the known sheets
+     */
+    public WorkbookImportResponse importWorkbook(Path file, ImportProgress progress, boolean dryRun) {
+        if (!ImportFormat.fromFileName(file.getFileName().toString()).orElse(ImportFormat.XLSX).hasSheets()) {
+            throw new ExcelDataImportException("Workbook imports need an XLSX or XLS file");
+        }
+        List<String> sheetNames = ExcelImporter.sheetNames(file);
+        ImportKeyTable keys = new ImportKeyTable(entityManager);
+        WorkbookImportResponse response = new WorkbookImportResponse();
+
+        find(sheetNames, BRANCH_SHEET).ifPresent(sheet ->
+                response.addSheet(sheet, branchService.importBranchSheet(file, sheet, keys, progress, dryRun)));
+        find(sheetNames, FOOD_SHEET).ifPresent(sheet ->
+                response.addSheet(sheet, foodService.importFoodSheet(file, sheet, keys, progress, dryRun)));
+        find(sheetNames, MENU_SHEET).ifPresent(sheet ->
+                response.addSheet(sheet, menuService.importMenuSheet(file, sheet, keys, progress, dryRun)));
+        find(sheetNames, FOOD_OPTION_SHEET).ifPresent(sheet ->
+                response.addSheet(sheet, foodOptionService.importFoodOptionSheet(file, sheet, keys, progress, dryRun)));
+
+        if (response.getSheets().isEmpty()) {
+            throw new ExcelDataImportException("Workbook has none of the sheets " + String.join(", ",
+                    BRANCH_SHEET, FOOD_SHEET, MENU_SHEET, FOOD_OPTION_SHEET));
+        }
+        log.info("{} workbook sheets {}: {} {}, {} failed", dryRun ? "Validated" : "Imported", response.getSheets().keySet(),
+                response.getTotalSuccess(), dryRun ? "valid" : "saved", response.getTotalFailed());
+        return response;
+    }
+
+    private static Optional<String> find(List<String> sheetNames, String name) {
+        return sheetNames.stream().filter(name::equalsIgnoreCase).findFirst();
+    }
+}
@@ -0,0 +1,19 @@
+package com.mapnaom.foodreservation.utils;
+
+/**
+ * Converts one cell of a {@link StreamedRow} into the Java type of the field it is bound to.
+ * Implementations are stateless and safe to share between imports and threads.
+ */
+@FunctionalInterface
+public interface CellConverter {
+
+    /**
+     * Converts the value of a non-blank cell.
+     *
+     * @param row    the current row
+     * @param column the 0-based column index of the cell
+     * @return the converted value, or null if the cell has no usable value
+     * @throws Exception if the cell cannot be converted
+     */
+    Object convert(StreamedRow row, int column) throws Exception;
+}
@@ -0,0 +1,456 @@
+package com.mapnaom.foodreservation.utils;
+
+import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Year;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Registry of the {@link CellConverter}s for every field type an import can bind: text, the boxed and primitive
+ * numbers, {@link BigDecimal}, {@link BigInteger}, booleans, {@link Date}, {@link LocalDate}, {@link LocalTime},
+ * {@link LocalDateTime} and enums.
+ * <p>
+ * A converter is looked up once per field when a {@link RowBindingPlan} is compiled, so binding a cell is a single
+ * call without any type dispatch. Text cells accept Persian and Arabic-Indic digits and thousands separators.
+ * Text dates are read as year, month and day separated by {@code /}, {@code -} or {@code .}; a year below
+ * {@value #FIRST_GREGORIAN_YEAR} is taken as a Jalali (Solar Hijri) year, so {@code 1403/05/12} and
+ * {@code 2024-08-02} give the same date. Dates are parsed in place, without splitting the text.
+ */
+public final class CellConverters {
+
+    /** Text years from this one on are Gregorian, earlier ones Jalali. */
+    private static final int FIRST_GREGORIAN_YEAR = 1700;
+
+    /** Jalali years at which the leap pattern of the 2820-year cycle shifts. */
+    private static final int[] JALALI_BREAKS = {
+            -61, 9, 38, 199, 426, 686, 756, 818, 1111, 1181, 1210, 1635, 2060, 2097, 2192, 2262, 2324, 2394, 2456, 3178
+    };
+
+    /** Added to packed epoch days so that dates before 1970 pack into a positive long. */
+    private static final long EPOCH_DAY_OFFSET = 1L << 30;
+
+    private static final Map<Class<?>, CellConverter> CONVERTERS;
+
+    static {
+        Map<Class<?>, CellConverter> converters = new HashMap<>();
+        converters.put(String.class, CellConverters::toText);
+        register(converters, Integer.class, int.class, (row, column) -> (int) integralValue(row, column, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        register(converters, Long.class, long.class, (row, column) -> integralValue(row, column, Long.MIN_VALUE, Long.MAX_VALUE));
+        register(converters, Short.class, short.class, (row, column) -> (short) integralValue(row, column, Short.MIN_VALUE, Short.MAX_VALUE));
+        register(converters, Byte.class, byte.class, (row, column) -> (byte) integralValue(row, column, Byte.MIN_VALUE, Byte.MAX_VALUE));
+        register(converters, Double.class, double.class, CellConverters::numericValue);
+        register(converters, Float.class, float.class, (row, column) -> (float) numericValue(row, column));
+        register(converters, Boolean.class, boolean.class, CellConverters::booleanValue);
+        converters.put(BigDecimal.class, CellConverters::decimalValue);
+        converters.put(BigInteger.class, (row, column) -> decimalValue(row, column).toBigIntegerExact());
+        converters.put(LocalDate.class, CellConverters::localDateValue);
+        converters.put(LocalDateTime.class, CellConverters::localDateTimeValue);
+        converters.put(LocalTime.class, CellConverters::localTimeValue);
+        converters.put(Date.class, (row, column) -> row.getKind(column) == StreamedRow.CellKind.NUMERIC
+                ? row.getDate(column)
+                : Date.from(localDateValue(row, column).atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        CONVERTERS = Map.copyOf(converters);
+    }
+
+    private static final ClassValue<CellConverter> ENUM_CONVERTERS = new ClassValue<>() {
+        @Override
+        protected CellConverter computeValue(Class<?> type) {
+            return enumConverter(type);
+        }
+    };
+
+    private CellConverters() {
+        // Prevent instantiation
+    }
+
+    /**
+     * @param type a field type
+     * @return true if cells can be converted to {@code type}
+     */
+    public static boolean supports(Class<?> type) {
+        return CONVERTERS.containsKey(type) || type.isEnum();
+    }
+
+    /**
+     * Returns the converter for a field type.
+     *
+     * @param type the field type
+     * @return the converter
+     * @throws ExcelDataImportException if the type is not {@link #supports supported}
+     */
+    public static CellConverter forType(Class<?> type) {
+        CellConverter converter = CONVERTERS.get(type);
+        if (converter != null) {
+            return converter;
+        }
+        if (type.isEnum()) {
+            return ENUM_CONVERTERS.get(type);
+        }
+        throw new ExcelDataImportException("No cell converter for type " + type.getName());
+    }
+
+    private static void register(Map<Class<?>, CellConverter> converters, Class<?> boxed, Class<?> primitive, CellConverter converter) {
+        converters.put(boxed, converter);
+        converters.put(primitive, converter);
+    }
+
+    private static Object toText(StreamedRow row, int column) {
+        return switch (row.getKind(column)) {
+            case NUMERIC -> {
+                double number = row.getNumeric(column);
+                yield number == Math.rint(number) ? String.valueOf((long) number) : String.valueOf(number);
+            }
+            case BOOLEAN -> String.valueOf(row.getBoolean(column));
+            default -> checkedString(row, column);
+        };
+    }
+
+    private static double numericValue(StreamedRow row, int column) {
+        return switch (row.getKind(column)) {
+            case NUMERIC, BOOLEAN -> row.getNumeric(column);
+            default -> Double.parseDouble(numericText(row, column));
+        };
+    }
+
+    private static long integralValue(StreamedRow row, int column, long min, long max) {
+        long value;
+        if (row.getKind(column) == StreamedRow.CellKind.STRING) {
+            String text = numericText(row, column);
+            value = text.indexOf('.') < 0 ? Long.parseLong(text) : (long) Double.parseDouble(text);
+        } else {
+            value = (long) numericValue(row, column);
+        }
+        if (value < min || value > max) {
+            throw new ExcelDataImportException("Error parsing cell value: " + value + " is out of range");
+        }
+        return value;
+    }
+
+    private static BigDecimal decimalValue(StreamedRow row, int column) {
+        return switch (row.getKind(column)) {
+            // valueOf uses the shortest decimal form of the double, so 12.5 stays 12.5
+            case NUMERIC, BOOLEAN -> BigDecimal.valueOf(row.getNumeric(column));
+            default -> new BigDecimal(numericText(row, column));
+        };
+    }
+
+    private static Object booleanValue(StreamedRow row, int column) {
+        return switch (row.getKind(column)) {
+            case BOOLEAN, NUMERIC -> row.getNumeric(column) != 0;
+            default -> Boolean.parseBoolean(checkedString(row, column).trim());
+        };
+    }
+
+    private static LocalDate localDateValue(StreamedRow row, int column) {
+        if (row.getKind(column) == StreamedRow.CellKind.NUMERIC) {
+            return DateUtil.getLocalDateTime(row.getNumeric(column)).toLocalDate();
+        }
+        String text = checkedString(row, column);
+        long date = parseDate(text, 0);
+        if (date < 0 || skipSpaces(text, end(date)) != text.length()) {
+            throw invalidDate(text);
+        }
+        return LocalDate.ofEpochDay(epochDay(date));
+    }
+
+    private static LocalDateTime localDateTimeValue(StreamedRow row, int column) {
+        if (row.getKind(column) == StreamedRow.CellKind.NUMERIC) {
+            return DateUtil.getLocalDateTime(row.getNumeric(column));
+        }
+        String text = checkedString(row, column);
+        long date = parseDate(text, 0);
+        if (date < 0) {
+            throw invalidDate(text);
+        }
+        int end = end(date);
+        int secondOfDay = 0;
+        if (skipSpaces(text, end) < text.length()) {
+            char separator = text.charAt(end);
+            if (separator != ' ' && separator != 'T') {
+                throw invalidDate(text);
+            }
+            secondOfDay = parseTime(text, end + 1);
+            if (secondOfDay < 0) {
+                throw invalidDate(text);
+            }
+        }
+        return LocalDateTime.of(LocalDate.ofEpochDay(epochDay(date)), LocalTime.ofSecondOfDay(secondOfDay));
+    }
+
+    private static LocalTime localTimeValue(StreamedRow row, int column) {
+        if (row.getKind(column) == StreamedRow.CellKind.NUMERIC) {
+            // Excel stores a time as the fraction of a day
+            double fraction = row.getNumeric(column) - Math.floor(row.getNumeric(column));
+            return LocalTime.ofSecondOfDay(Math.round(fraction * 86_400) % 86_400);
+        }
+        String text = checkedString(row, column);
+        int secondOfDay = parseTime(text, 0);
+        if (secondOfDay < 0) {
+            throw new ExcelDataImportException("Error parsing cell value: invalid time " + text);
+        }
+        return LocalTime.ofSecondOfDay(secondOfDay);
+    }
+
+    private static CellConverter enumConverter(Class<?> type) {
+        Object[] constants = type.getEnumConstants();
+        Map<String, Object> byName = new HashMap<>();
+        for (Object constant : constants) {
+            byName.put(((Enum<?>) constant).name().toUpperCase(Locale.ROOT), constant);
+        }
+        return (row, column) -> {
+            if (row.getKind(column) == StreamedRow.CellKind.NUMERIC) {
+                int ordinal = (int) row.getNumeric(column);
+                if (ordinal >= 0 && ordinal < constants.length) {
+                    return constants[ordinal];
+                }
+            } else {
+                Object constant = byName.get(checkedString(row, column).trim().toUpperCase(Locale.ROOT));
+                if (constant != null) {
+                    return constant;
+                }
+            }
+            throw new ExcelDataImportException("Error parsing cell value: no " + type.getSimpleName()
+                    + " named " + toText(row, column));
+        };
+    }
+
+    /**
+     * Returns the text of a cell as a plain number: Persian and Arabic-Indic digits become ASCII digits, the Arabic
+     * decimal separator becomes a dot, and thousands separators and surrounding spaces are dropped. Plain ASCII text
+     * is returned as is.
+     */
+    private static String numericText(StreamedRow row, int column) {
+        String text = checkedString(row, column);
+        int length = text.length();
+        boolean plain = length > 0 && text.charAt(0) > ' ' && text.charAt(length - 1) > ' ';
+        for (int i = 0; i < length && plain; i++) {
+            char c = text.charAt(i);
+            plain = c < 0x80 && c != ',';
+        }
+        if (plain) {
+            return text;
+        }
+        StringBuilder number = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int digit = digit(c);
+            if (digit >= 0) {
+                number.append((char) ('0' + digit));
+            } else if (c == '٫') {
+                number.append('.');
+            } else if (c != ',' && c != '٬' && c != '،' && !Character.isWhitespace(c)) {
+                number.append(c);
+            }
+        }
+        return number.toString();
+    }
+
+    // A parsed date is returned as one long packing its epoch day and the offset after it, so nothing is allocated.
+
+    /**
+     * Parses {@code year sep month sep day} starting at {@code start}, skipping leading spaces.
+     *
+     * @return the packed Gregorian date and the offset after the day, or -1 if the text is not a valid date
+     */
+    private static long parseDate(String text, int start) {
+        int length = text.length();
+        int pos = skipSpaces(text, start);
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        for (int field = 0; field < 3; field++) {
+            if (field > 0) {
+                if (pos >= length || !isDateSeparator(text.charAt(pos))) {
+                    return -1;
+                }
+                pos++;
+            }
+            int value = 0;
+            int digits = 0;
+            while (pos < length && digits < 5) {
+                int digit = digit(text.charAt(pos));
+                if (digit < 0) {
+                    break;
+                }
+                value = value * 10 + digit;
+                digits++;
+                pos++;
+            }
+            if (digits == 0) {
+                return -1;
+            }
+            switch (field) {
+                case 0 -> year = value;
+                case 1 -> month = value;
+                default -> day = value;
+            }
+        }
+        if (year < 1000 || month < 1 || month > 12 || day < 1) {
+            // Two-digit years are ambiguous, and so is day-first order
+            return -1;
+        }
+        if (year < FIRST_GREGORIAN_YEAR) {
+            return jalaliToGregorian(year, month, day, pos);
+        }
+        int monthLength = month == 2 ? (Year.isLeap(year) ? 29 : 28) : month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+        if (day > monthLength) {
+            return -1;
+        }
+        return packEpochDay(daysFromCivil(year, month, day), pos);
+    }
+
+    /**
+     * Parses {@code H:mm} or {@code H:mm:ss} starting at {@code start}.
+     *
+     * @return the second of the day, or -1 if the text is not a valid time
+     */
+    private static int parseTime(String text, int start) {
+        int length = text.length();
+        int pos = skipSpaces(text, start);
+        int seconds = 0;
+        int fields = 0;
+        while (fields < 3) {
+            if (fields > 0) {
+                if (pos >= length || text.charAt(pos) != ':') {
+                    break;
+                }
+                pos++;
+            }
+            int value = 0;
+            int digits = 0;
+            while (pos < length && digits < 2) {
+                int digit = digit(text.charAt(pos));
+                if (digit < 0) {
+                    break;
+                }
+                value = value * 10 + digit;
+                digits++;
+                pos++;
+            }
+            if (digits == 0 || value >= (fields == 0 ? 24 : 60)) {
+                return -1;
+            }
+            seconds = seconds * 60 + value;
+            fields++;
+        }
+        if (fields < 2 || skipSpaces(text, pos) != length) {
+            return -1;
+        }
+        return fields == 2 ? seconds * 60 : seconds;
+    }
+
+    /**
+     * Converts a Jalali date with the arithmetic of the jalaali calendar (break years of the 2820-year cycle).
+     *
+     * @return the packed Gregorian date, or -1 if the Jalali date does not exist
+     */
+    private static long jalaliToGregorian(int jy, int jm, int jd, int end) {
+        if (jy < 1 || jy >= JALALI_BREAKS[JALALI_BREAKS.length - 1]) {
+            return -1;
+        }
+        int gy = jy + 621;
+        int leapJ = -14;
+        int jp = JALALI_BREAKS[0];
+        int jump = 0;
+        for (int i = 1; i < JALALI_BREAKS.length; i++) {
+            int jm2 = JALALI_BREAKS[i];
+            jump = jm2 - jp;
+            if (jy < jm2) {
+                break;
+            }
+            leapJ += jump / 33 * 8 + jump % 33 / 4;
+            jp = jm2;
+        }
+        int n = jy - jp;
+        leapJ += n / 33 * 8 + (n % 33 + 3) / 4;
+        if (jump % 33 == 4 && jump - n == 4) {
+            leapJ++;
+        }
+        int leapG = gy / 4 - (gy / 100 + 1) * 3 / 4 - 150;
+        int march = 20 + leapJ - leapG;
+        if (jump - n < 6) {
+            n = n - jump + (jump + 4) / 33 * 33;
+        }
+        int leap = ((n + 1) % 33 - 1) % 4;
+        if (leap == -1) {
+            leap = 4;
+        }
+
+        int monthLength = jm <= 6 ? 31 : jm <= 11 ? 30 : leap == 0 ? 30 : 29;
+        if (jd > monthLength) {
+            return -1;
+        }
+        long epochDay = daysFromCivil(gy, 3, march) + (jm - 1) * 31L - jm / 7 * (jm - 7) + jd - 1;
+        return packEpochDay(epochDay, end);
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468;
+    }
+
+    /** Packs an epoch day (offset so it is never negative) and the end offset of the parsed text into one long. */
+    private static long packEpochDay(long epochDay, int end) {
+        return (epochDay + EPOCH_DAY_OFFSET) << 20 | end;
+    }
+
+    private static long epochDay(long packed) {
+        return (packed >>> 20) - EPOCH_DAY_OFFSET;
+    }
+
+    private static int end(long packed) {
+        return (int) (packed & 0xFFFFF);
+    }
+
+    private static int skipSpaces(String text, int pos) {
+        while (pos < text.length() && text.charAt(pos) == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isDateSeparator(char c) {
+        return c == '/' || c == '-' || c == '.';
+    }
+
+    /**
+     * @return the value of an ASCII, Persian or Arabic-Indic digit, or -1
+     */
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= '۰' && c <= '۹') {
+            return c - '۰';
+        }
+        if (c >= '٠' && c <= '٩') {
+            return c - '٠';
+        }
+        return -1;
+    }
+
+    private static ExcelDataImportException invalidDate(String text) {
+        return new ExcelDataImportException("Error parsing cell value: invalid date " + text);
+    }
+
+    private static String checkedString(StreamedRow row, int column) {
+        if (row.getKind(column) == StreamedRow.CellKind.ERROR) {
+            throw new ExcelDataImportException("Error parsing cell value: cell contains error " + row.getString(column));
+        }
+        return row.getString(column);
+    }
+}
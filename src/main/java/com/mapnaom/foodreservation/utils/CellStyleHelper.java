@@ -2,68 +2,45 @@ package com.mapnaom.foodreservation.utils;
 
 import org.apache.poi.ss.usermodel.*;
 
+/**
+ * Styles of the application's sheets, taken from a {@link WorkbookStyles} registry of the workbook so that styles
+ * and fonts are created once per workbook. The returned styles are shared and must not be modified.
+ */
 public class CellStyleHelper {
+
+    private WorkbookStyles styles;
+
     public CellStyle getCellStyle(Workbook workbook) {
-        return initiaTeCellStyle(workbook);
+        return stylesOf(workbook).style(WorkbookStyles.Theme.BODY);
     }
 
     public CellStyle getHeaderCellStyle(Workbook workbook) {
-        CellStyle cellStyle = workbook.createCellStyle();
-        cellStyle.setAlignment(HorizontalAlignment.CENTER);
-        cellStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-        cellStyle.setFont(getHeaderFont(workbook));
-        cellStyle.setFillForegroundColor(IndexedColors.LIGHT_BLUE.getIndex());
-        cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        cellStyle.setBorderTop(BorderStyle.THIN);
-        cellStyle.setBorderBottom(BorderStyle.THIN);
-        cellStyle.setBorderLeft(BorderStyle.THIN);
-        cellStyle.setBorderRight(BorderStyle.THIN);
-
-        return cellStyle;
+        return stylesOf(workbook).style(WorkbookStyles.Theme.HEADER);
     }
 
     public CellStyle getFooterCellStyle(Workbook workbook) {
-        CellStyle cellStyle = initiaTeCellStyle(workbook);
-
-        DataFormat dataFormat = workbook.createDataFormat();
-        cellStyle.setDataFormat(dataFormat.getFormat("#,##0"));
-
-        return cellStyle;
+        return stylesOf(workbook).style(WorkbookStyles.Theme.MONETARY);
     }
 
     public CellStyle getMonatoryCellStyle(Workbook workbook) {
-
-        CellStyle cellStyle = initiaTeCellStyle(workbook);
-        DataFormat dataFormat = workbook.createDataFormat();
-        cellStyle.setDataFormat(dataFormat.getFormat("#,##0"));
-
-        return cellStyle;
+        return stylesOf(workbook).style(WorkbookStyles.Theme.MONETARY);
     }
 
     public Font getFont(Workbook workbook) {
-        Font font = workbook.createFont();
-        font.setFontHeightInPoints((short) 11);
-        font.setFontName("B Nazanin");
-        return font;
+        return stylesOf(workbook).font(WorkbookStyles.FONT_NAME, WorkbookStyles.FONT_HEIGHT_IN_POINTS, false);
     }
 
     public Font getHeaderFont(Workbook workbook) {
-        Font font = workbook.createFont();
-        font.setFontHeightInPoints((short) 11);
-        font.setFontName("B Nazanin");
-        font.setBold(true);
-        return font;
+        return stylesOf(workbook).font(WorkbookStyles.FONT_NAME, WorkbookStyles.FONT_HEIGHT_IN_POINTS, true);
     }
 
-    private CellStyle initiaTeCellStyle(Workbook workbook) {
-        CellStyle cellStyle = workbook.createCellStyle();
-        cellStyle.setAlignment(HorizontalAlignment.CENTER);
-        cellStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-        cellStyle.setFont(getFont(workbook));
-        cellStyle.setBorderTop(BorderStyle.THIN);
-        cellStyle.setBorderBottom(BorderStyle.THIN);
-        cellStyle.setBorderLeft(BorderStyle.THIN);
-        cellStyle.setBorderRight(BorderStyle.THIN);
-        return cellStyle;
+    /**
+     * Returns the registry of the workbook, starting a new one when the helper moves on to another workbook.
+     */
+    private WorkbookStyles stylesOf(Workbook workbook) {
+        if (styles == null || styles.getWorkbook() != workbook) {
+            styles = new WorkbookStyles(workbook);
+        }
+        return styles;
     }
 }
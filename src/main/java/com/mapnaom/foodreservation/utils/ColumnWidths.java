@@ -0,0 +1,119 @@
+package com.mapnaom.foodreservation.utils;
+
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * Estimates column widths from the values written, as a cheap stand-in for {@link Sheet#autoSizeColumn(int)}.
+ * <p>
+ * Autosizing lays out every cell of a column with AWT font metrics, which is slow on large sheets, and a streaming
+ * sheet can only autosize the rows still in its window. Instead, the display width of every value is estimated in
+ * characters as it is written, the maximum is kept per column, and the widths are set once when the sheet is done.
+ * <p>
+ * Widths are in characters of the default font. Persian and Arabic letters are joined and narrower than Latin ones,
+ * and their diacritics and the zero-width non-joiner take no space at all, so they are weighted accordingly.
+ * A tracker is confined to one sheet.
+ */
+public final class ColumnWidths {
+
+    /** How much wider a bold header is than the same text in the body. */
+    static final double BOLD_FACTOR = 1.1;
+    /** Space around the text, in characters. */
+    private static final double PADDING = 2;
+    private static final double MIN_WIDTH = 4;
+    /** No column is made wider than this; longer texts are cut off at the cell edge, as cells do not wrap. */
+    private static final double MAX_WIDTH = 80;
+    /** The widest number in the General format, after which Excel switches to scientific notation. */
+    private static final int GENERAL_NUMBER_WIDTH = 11;
+
+    private final double[] widths;
+
+    public ColumnWidths(int columns) {
+        this.widths = new double[columns];
+    }
+
+    /**
+     * Records a value of a column.
+     *
+     * @param column the 0-based column
+     * @param width  the display width of the value in characters
+     */
+    public void measure(int column, double width) {
+        if (width > widths[column]) {
+            widths[column] = width;
+        }
+    }
+
+    /**
+     * Sets the width of every column of the sheet to its widest value.
+     *
+     * @param sheet the sheet
+     */
+    public void apply(Sheet sheet) {
+        for (int i = 0; i < widths.length; i++) {
+            double width = Math.min(MAX_WIDTH, Math.max(MIN_WIDTH, widths[i] + PADDING));
+            sheet.setColumnWidth(i, (int) Math.ceil(width * 256));
+        }
+    }
+
+    /**
+     * Estimates the display width of a text.
+     *
+     * @param text the text
+     * @return the width in characters
+     */
+    public static double textWidth(CharSequence text) {
+        double width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            width += glyphWidth(text.charAt(i));
+        }
+        return width;
+    }
+
+    /**
+     * Estimates the display width of a number.
+     *
+     * @param value   the number
+     * @param grouped whether it is shown with thousands separators and no decimals, as with {@code #,##0}
+     * @return the width in characters
+     */
+    public static double numberWidth(double value, boolean grouped) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return GENERAL_NUMBER_WIDTH;
+        }
+        double abs = Math.abs(grouped ? Math.rint(value) : value);
+        int sign = value < 0 ? 1 : 0;
+        if (abs != Math.rint(abs) || abs >= (grouped ? 1e15 : 1e11)) {
+            return GENERAL_NUMBER_WIDTH;
+        }
+        int digits = abs < 1 ? 1 : (int) Math.log10(abs) + 1;
+        return sign + digits + (grouped ? (digits - 1) / 3 : 0);
+    }
+
+    private static double glyphWidth(char c) {
+        if (c < 0x80) {
+            if (c == 'i' || c == 'j' || c == 'l' || c == '.' || c == ',' || c == ':' || c == ';' || c == '\'' || c == '|') {
+                return 0.5;
+            }
+            if (c == 'm' || c == 'w' || c >= 'A' && c <= 'Z') {
+                return c == 'I' ? 0.5 : 1.2;
+            }
+            return 1;
+        }
+        int type = Character.getType(c);
+        if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK || type == Character.FORMAT) {
+            // Arabic diacritics, the zero-width non-joiner and direction marks
+            return 0;
+        }
+        if (c >= 0x06F0 && c <= 0x06F9 || c >= 0x0660 && c <= 0x0669) {
+            // Persian and Arabic-Indic digits
+            return 1;
+        }
+        if (c >= 0x0600 && c <= 0x06FF || c >= 0xFB50 && c <= 0xFDFF || c >= 0xFE70 && c <= 0xFEFF) {
+            return 0.8;
+        }
+        if (Character.isIdeographic(c) || c >= 0xFF00 && c <= 0xFFEF || c >= 0xAC00 && c <= 0xD7A3) {
+            return 2;
+        }
+        return 1;
+    }
+}
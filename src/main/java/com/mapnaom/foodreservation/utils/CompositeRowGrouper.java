@@ -0,0 +1,211 @@
+package com.mapnaom.foodreservation.utils;
+
+import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Folds consecutive rows of a {@link ExcelStrategy#COMPOSITE} class into one parent instance.
+ * <p>
+ * Every row is bound to its own parent carrying a single child element, e.g. a {@code MenuDto} with one
+ * {@code FoodOptionDto}. Rows whose parent key (all top-level non-collection fields except {@code id}) equals the
+ * key of the previous row, or whose key columns are all blank, are continuation rows: their child elements are
+ * appended to the pending parent. The pending parent is handed on as soon as a row with a different key arrives,
+ * so only one parent is buffered at any time and the file is still read in a single forward pass.
+ *
+ * @param <T> the parent DTO type
+ */
+public final class CompositeRowGrouper<T> implements ImportedRowConsumer<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return new Layout(type);
+        }
+    };
+
+    private final Layout layout;
+    private final ImportedRowConsumer<T> downstream;
+    private T pending;
+    private Object[] pendingKey;
+    private int pendingRowIndex;
+
+    private CompositeRowGrouper(Class<T> type, ImportedRowConsumer<T> downstream) {
+        this.layout = LAYOUTS.get(type);
+        this.downstream = downstream;
+    }
+
+    /**
+     * Returns whether rows of the given class are grouped, i.e. whether it is annotated with
+     * {@code @Excel(strategy = COMPOSITE)}.
+     *
+     * @param type the DTO class
+     * @return true if the class uses the composite strategy
+     */
+    public static boolean isComposite(Class<?> type) {
+        Excel excel = type.getAnnotation(Excel.class);
+        return excel != null && excel.strategy() == ExcelStrategy.COMPOSITE;
+    }
+
+    /**
+     * Creates a grouper that hands every complete parent to {@code downstream}, reported under the row number of
+     * its first row.
+     *
+     * @param type       the parent DTO class
+     * @param downstream receives the grouped parents
+     * @param <T>        the parent DTO type
+     * @return the grouper; call {@link #finish()} once the last row has been accepted
+     */
+    public static <T> CompositeRowGrouper<T> of(Class<T> type, ImportedRowConsumer<T> downstream) {
+        return new CompositeRowGrouper<>(type, downstream);
+    }
+
+    @Override
+    public void onHeader(Map<String, Integer> headerMap) {
+        downstream.onHeader(headerMap);
+    }
+
+    @Override
+    public boolean onFailure(int rowIndex) {
+        return downstream.onFailure(rowIndex);
+    }
+
+    @Override
+    public void accept(int rowIndex, T instance) {
+        Object[] key = layout.keyOf(instance);
+        if (pending != null && (layout.isBlank(key) || layout.sameKey(pendingKey, key))) {
+            layout.appendChildren(pending, instance);
+            return;
+        }
+        finish();
+        pending = instance;
+        pendingKey = key;
+        pendingRowIndex = rowIndex;
+    }
+
+    /**
+     * Hands on the pending parent, if any.
+     */
+    public void finish() {
+        if (pending != null) {
+            T completed = pending;
+            pending = null;
+            pendingKey = null;
+            downstream.accept(pendingRowIndex, completed);
+        }
+    }
+
+    /**
+     * Getters of the parent key fields and accessors of the child collections of one class.
+     */
+    private static final class Layout {
+
+        private final MethodHandle[] keyGetters;
+        private final MethodHandle[] collectionGetters;
+        private final MethodHandle[] collectionSetters;
+
+        Layout(Class<?> type) {
+            List<MethodHandle> keys = new ArrayList<>();
+            List<MethodHandle> getters = new ArrayList<>();
+            List<MethodHandle> setters = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                if (field.getName().equalsIgnoreCase("id") || Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                if (Collection.class.isAssignableFrom(field.getType())) {
+                    getters.add(getter(field));
+                    setters.add(setter(field));
+                } else {
+                    keys.add(getter(field));
+                }
+            }
+            if (getters.isEmpty()) {
+                throw new ExcelDataImportException("Composite class " + type.getName() + " has no collection field");
+            }
+            this.keyGetters = keys.toArray(new MethodHandle[0]);
+            this.collectionGetters = getters.toArray(new MethodHandle[0]);
+            this.collectionSetters = setters.toArray(new MethodHandle[0]);
+        }
+
+        Object[] keyOf(Object instance) {
+            Object[] key = new Object[keyGetters.length];
+            try {
+                for (int i = 0; i < keyGetters.length; i++) {
+                    key[i] = keyGetters[i].invokeExact(instance);
+                }
+            } catch (Throwable e) {
+                throw new ExcelDataImportException("Failed to read parent key: " + e.getMessage());
+            }
+            return key;
+        }
+
+        boolean isBlank(Object[] key) {
+            for (Object value : key) {
+                if (value != null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean sameKey(Object[] a, Object[] b) {
+            for (int i = 0; i < a.length; i++) {
+                if (!Objects.equals(a[i], b[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        void appendChildren(Object parent, Object row) {
+            try {
+                for (int i = 0; i < collectionGetters.length; i++) {
+                    Object children = collectionGetters[i].invokeExact(row);
+                    if (children == null || ((Collection<Object>) children).isEmpty()) {
+                        continue;
+                    }
+                    Object target = collectionGetters[i].invokeExact(parent);
+                    if (target == null) {
+                        collectionSetters[i].invokeExact(parent, children);
+                    } else {
+                        ((Collection<Object>) target).addAll((Collection<Object>) children);
+                    }
+                }
+            } catch (Throwable e) {
+                throw new ExcelDataImportException("Failed to group composite rows: " + e.getMessage());
+            }
+        }
+
+        private static MethodHandle getter(Field field) {
+            try {
+                field.setAccessible(true);
+                return LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new ExcelDataImportException(e, "Cannot access field " + field.getName());
+            }
+        }
+
+        private static MethodHandle setter(Field field) {
+            try {
+                field.setAccessible(true);
+                return LOOKUP.unreflectSetter(field).asType(SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new ExcelDataImportException(e, "Cannot access field " + field.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.mapnaom.foodreservation.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a UTF-8 CSV or TSV file through a memory-mapped {@link FileChannel} and emits each record as a
+ * {@link StreamedRow} of string cells, so delimited files share the header mapping and binding of the Excel importer.
+ * <p>
+ * Fields are quoted as in RFC 4180: quotes inside quoted fields are doubled, and quoted fields may contain delimiters
+ * and line breaks. Unlike RFC 4180, values are trimmed like the text cells of the Excel readers, so leading and
+ * trailing spaces are dropped even inside quotes, and a field of only spaces is a blank cell.
+ * <p>
+ * Lines end with LF, CRLF or CR. Empty lines are skipped but still counted, so row numbers in errors match line
+ * numbers as long as no quoted field spans lines.
+ * <p>
+ * Fields of columns the handler does not want are skipped without decoding. Wanted fields are decoded straight from a
+ * reused byte buffer into a reused char buffer and then looked up in a per-read {@link StringInterner}, so a value
+ * repeated on many lines costs one String for the whole file.
+ */
+public class DelimitedTextReader implements RowSource {
+
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final Path path;
+    private final byte delimiter;
+
+    public DelimitedTextReader(Path path, char delimiter) {
+        this.path = path;
+        this.delimiter = (byte) delimiter;
+    }
+
+    @Override
+    public void read(StreamedRowHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to import: " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            new Tokenizer(buffer, (int) size, delimiter, handler).run();
+        }
+    }
+
+    private static final class Tokenizer {
+
+        private final MappedByteBuffer buffer;
+        private final int limit;
+        private final byte delimiter;
+        private final StreamedRowHandler handler;
+        private final StreamedRow row = new StreamedRow();
+        private final StringInterner interner = new StringInterner();
+        // Malformed input is replaced, as new String(bytes, UTF_8) does
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private byte[] scratch = new byte[256];
+        private ByteBuffer scratchBytes = ByteBuffer.wrap(scratch);
+        private CharBuffer chars = CharBuffer.allocate(256);
+        private int pos;
+
+        Tokenizer(MappedByteBuffer buffer, int limit, byte delimiter, StreamedRowHandler handler) {
+            this.buffer = buffer;
+            this.limit = limit;
+            this.delimiter = delimiter;
+            this.handler = handler;
+        }
+
+        void run() {
+            skipByteOrderMark();
+            int rowNum = 0;
+            while (pos < limit && !handler.isDone()) {
+                if (atLineEnd()) {
+                    skipLineEnd();
+                } else {
+                    row.reset(rowNum);
+                    readRecord();
+                    handler.handleRow(row);
+                }
+                rowNum++;
+            }
+        }
+
+        private void readRecord() {
+            int column = 0;
+            while (true) {
+                boolean wanted = handler.wantsColumn(column);
+                if (pos < limit && buffer.get(pos) == QUOTE) {
+                    readQuotedField(column, wanted);
+                } else {
+                    readPlainField(column, wanted);
+                }
+                if (pos >= limit) {
+                    return;
+                }
+                byte b = buffer.get(pos);
+                if (b == delimiter) {
+                    pos++;
+                    column++;
+                } else {
+                    skipLineEnd();
+                    return;
+                }
+            }
+        }
+
+        private void readPlainField(int column, boolean wanted) {
+            int start = pos;
+            while (pos < limit) {
+                byte b = buffer.get(pos);
+                if (b == delimiter || b == LF || b == CR) {
+                    break;
+                }
+                pos++;
+            }
+            if (wanted && pos > start) {
+                int length = pos - start;
+                ensureScratch(length);
+                buffer.get(start, scratch, 0, length);
+                setCell(column, length);
+            }
+        }
+
+        private void readQuotedField(int column, boolean wanted) {
+            pos++; // opening quote
+            int length = 0;
+            while (pos < limit) {
+                byte b = buffer.get(pos++);
+                if (b == QUOTE) {
+                    if (pos < limit && buffer.get(pos) == QUOTE) {
+                        pos++; // escaped quote
+                    } else {
+                        break; // closing quote
+                    }
+                }
+                if (wanted) {
+                    ensureScratch(length + 1);
+                    scratch[length] = b;
+                }
+                length++;
+            }
+            // Anything between the closing quote and the next delimiter is malformed; ignore it
+            while (pos < limit) {
+                byte b = buffer.get(pos);
+                if (b == delimiter || b == LF || b == CR) {
+                    break;
+                }
+                pos++;
+            }
+            if (wanted && length > 0) {
+                setCell(column, length);
+            }
+        }
+
+        private void setCell(int column, int length) {
+            // UTF-8 never decodes to more chars than it has bytes
+            if (chars.capacity() < length) {
+                chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+            }
+            scratchBytes.limit(length).position(0);
+            chars.clear();
+            decoder.reset();
+            decoder.decode(scratchBytes, chars, true);
+            decoder.flush(chars);
+            chars.flip();
+            String value = interner.intern(chars, 0, chars.length());
+            if (!value.isEmpty()) {
+                row.setString(column, value);
+            }
+        }
+
+        private boolean atLineEnd() {
+            byte b = buffer.get(pos);
+            return b == LF || b == CR;
+        }
+
+        private void skipLineEnd() {
+            if (buffer.get(pos) == CR) {
+                pos++;
+                if (pos < limit && buffer.get(pos) == LF) {
+                    pos++;
+                }
+            } else {
+                pos++;
+            }
+        }
+
+        private void skipByteOrderMark() {
+            if (limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+                pos = 3;
+            }
+        }
+
+        private void ensureScratch(int length) {
+            if (length > scratch.length) {
+                byte[] grown = new byte[Math.max(length, scratch.length * 2)];
+                System.arraycopy(scratch, 0, grown, 0, scratch.length);
+                scratch = grown;
+                scratchBytes = ByteBuffer.wrap(scratch);
+            }
+        }
+    }
+}
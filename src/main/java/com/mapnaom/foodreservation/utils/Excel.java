@@ -7,12 +7,17 @@ import java.lang.annotation.Target;
 
 /**
  * Custom annotation to specify how a class should be mapped to an Excel sheet.
+ * <p>
+ * On a field it sets the column of that field instead: {@link #name()} is the header of the column in exports,
+ * also accepted by imports besides the field name, and {@link #order()} its position; the other attributes are
+ * ignored there.
  */
-@Target(ElementType.TYPE)
+@Target({ElementType.TYPE, ElementType.FIELD})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Excel {
-    String name();                // The sheet name or the name of the data section
+    String name() default "";     // The sheet name or the name of the data section; on a field, the column header
     boolean useTitleRow() default false;  // Whether the first row is a header row
-    ExcelStrategy strategy();     // The strategy for how to map the class (flat or composite)
+    ExcelStrategy strategy() default ExcelStrategy.FLAT; // The strategy for how to map the class (flat or composite)
     Class<?> parent() default Object.class; // The parent class if the field is nested (for composite structure)
+    int order() default Integer.MAX_VALUE; // On a field, the position of its column; ties keep the declaration order
 }
@@ -9,7 +9,8 @@ import java.io.Serializable;
 
 @EqualsAndHashCode(callSuper = true)
 @Data
-@JsonIgnoreProperties(ignoreUnknown = true)
+// Only the error fields are serialized, not the Throwable internals (stack trace, cause, ...)
+@JsonIgnoreProperties(value = {"stackTrace", "cause", "localizedMessage", "suppressed"}, ignoreUnknown = true)
 @RequiredArgsConstructor
 public class ExcelCellError extends Throwable implements Serializable {
     private String message;
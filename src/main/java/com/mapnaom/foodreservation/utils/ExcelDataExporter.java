@@ -3,73 +3,27 @@ package com.mapnaom.foodreservation.utils;
 
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.time.LocalDate;
+import java.io.OutputStream;
 import java.util.List;
 
-import static com.mapnaom.foodreservation.utils.DateConvertor.convertGregorianToJalali;
-
 @RequiredArgsConstructor
 public class ExcelDataExporter {
 
+    /**
+     * Rows kept in memory by a streaming export; older rows are flushed to a compressed temporary file.
+     */
+    public static final int ROW_WINDOW = 100;
+
     public static <T> byte[] exportData(List<T> data, Class<T> dtoClass) throws IOException {
         try (Workbook workbook = new XSSFWorkbook()) {
             Sheet sheet = workbook.createSheet("Data");
-
-            // Create header style
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            setBorders(headerStyle);
-
-            // Create body style
-            CellStyle bodyStyle = workbook.createCellStyle();
-            setBorders(bodyStyle);
-
-            // Create header row with field names
-            Row headerRow = sheet.createRow(0);
-            Field[] fields = dtoClass.getDeclaredFields();
-            for (int i = 0; i < fields.length; i++) {
-                Cell headerCell = headerRow.createCell(i);
-                headerCell.setCellValue(fields[i].getName());
-                headerCell.setCellStyle(headerStyle);
-                sheet.autoSizeColumn(i);
-            }
-
-
-            int rowNum = 1;
-            for (T item : data) {
-                Row dataRow = sheet.createRow(rowNum++);
-                for (int i = 0; i < fields.length; i++) {
-                    fields[i].setAccessible(true);
-                    Cell cell = dataRow.createCell(i);
-                    cell.setCellStyle(bodyStyle);
-                    try {
-                        Object value = fields[i].get(item);
-                        if (value != null) {
-                            if (value instanceof Number) {
-                                cell.setCellValue(((Number) value).doubleValue());
-                            } else if (value instanceof Boolean) {
-                                cell.setCellValue((Boolean) value);
-                            } else if (value instanceof LocalDate) {
-                                cell.setCellValue(convertGregorianToJalali((LocalDate) value));
-                            } else {
-                                cell.setCellValue(value.toString());
-                            }
-                        }
-                    } catch (IllegalAccessException e) {
-                        throw new RuntimeException("Error accessing field value", e);
-                    }
-                }
-            }
+            writeSheet(workbook, sheet, data, dtoClass);
 
             // Write the output to a byte array
             try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
@@ -79,10 +33,45 @@ public class ExcelDataExporter {
         }
     }
 
-    private static void setBorders(CellStyle headerStyle) {
-        headerStyle.setBorderTop(BorderStyle.THIN);
-        headerStyle.setBorderBottom(BorderStyle.THIN);
-        headerStyle.setBorderLeft(BorderStyle.THIN);
-        headerStyle.setBorderRight(BorderStyle.THIN);
+    /**
+     * Writes an export straight to {@code out} with a {@link SXSSFWorkbook}. Only the last {@link #ROW_WINDOW} rows
+     * are on the heap at any time, so memory use does not depend on the number of rows; the rows are pulled from
+     * {@code data} one at a time, so it may be backed by a database cursor or by pages.
+     *
+     * @param data     the rows to export, iterated once
+     * @param dtoClass the class of the rows, whose fields become the columns as laid out by {@link ExcelExportPlan}
+     * @param out      the stream to write the XLSX file to, e.g. the response; it is not closed
+     * @param <T>      the row type
+     * @throws IOException if writing to {@code out} fails
+     */
+    public static <T> void exportData(Iterable<? extends T> data, Class<T> dtoClass, OutputStream out) throws IOException {
+        // Inline strings instead of a shared-strings table, which would have to stay in memory until the end
+        SXSSFWorkbook workbook = new SXSSFWorkbook(null, ROW_WINDOW, true, false);
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Data");
+            writeSheet(workbook, sheet, data, dtoClass);
+            workbook.write(out);
+        } finally {
+            // Deletes the temporary files of the flushed rows
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static <T> void writeSheet(Workbook workbook, Sheet sheet, Iterable<? extends T> data, Class<T> dtoClass) {
+        // Every cell shares one of a few interned styles
+        WorkbookStyles styles = new WorkbookStyles(workbook);
+
+        // Create header row with the column headers
+        ExcelExportPlan<T> plan = ExcelExportPlan.of(dtoClass);
+        plan.writeHeader(sheet.createRow(0), styles);
+
+        ExcelExportPlan<T>.RowWriter rowWriter = plan.newRowWriter(styles);
+        int rowNum = 1;
+        for (T item : data) {
+            rowWriter.write(sheet.createRow(rowNum++), item);
+        }
+        // Widths estimated from every row, where autosizing would only see the rows still in a streaming window
+        rowWriter.applyColumnWidths(sheet);
     }
 }
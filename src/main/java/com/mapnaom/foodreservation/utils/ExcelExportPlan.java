@@ -0,0 +1,302 @@
+package com.mapnaom.foodreservation.utils;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * A compiled description of how instances of a DTO class are written as spreadsheet rows, the export counterpart
+ * of {@link RowBindingPlan}.
+ * <p>
+ * Plans are built once per class and cached in a {@link ClassValue}. Every declared field becomes a column with a
+ * {@link MethodHandle} getter, a {@link ColumnKind} and a {@link WorkbookStyles.Theme} chosen from its declared type,
+ * so writing a row does no reflection and no {@code instanceof} dispatch. The header and position of a column can be
+ * set with {@link Excel} on the field; otherwise the header is the field name and columns follow the declaration
+ * order.
+ *
+ * @param <T> the DTO type
+ */
+public final class ExcelExportPlan<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<ExcelExportPlan<?>> PLANS = new ClassValue<>() {
+        @Override
+        protected ExcelExportPlan<?> computeValue(Class<?> type) {
+            return new ExcelExportPlan<>(type);
+        }
+    };
+
+    private final Column[] columns;
+
+    /**
+     * Returns the cached plan for the given class, compiling it on first use.
+     *
+     * @param clazz the DTO class
+     * @param <T>   the DTO type
+     * @return the export plan
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ExcelExportPlan<T> of(Class<T> clazz) {
+        return (ExcelExportPlan<T>) PLANS.get(clazz);
+    }
+
+    /**
+     * Returns the header of the column of a field: the name given by {@link Excel} on the field, or else the field name.
+     *
+     * @param field the field
+     * @return the column header
+     */
+    public static String headerOf(Field field) {
+        Excel excel = field.getAnnotation(Excel.class);
+        return excel == null || excel.name().isEmpty() ? field.getName() : excel.name();
+    }
+
+    private ExcelExportPlan(Class<T> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                fields.add(field);
+            }
+        }
+        // Stable sort: fields without an order keep the declaration order, after the ordered ones
+        fields.sort(Comparator.comparingInt(ExcelExportPlan::orderOf));
+        this.columns = new Column[fields.size()];
+        for (int i = 0; i < columns.length; i++) {
+            Field field = fields.get(i);
+            ColumnKind kind = ColumnKind.forType(field.getType());
+            columns[i] = new Column(headerOf(field), getter(field), kind, themeFor(field.getType(), kind));
+        }
+    }
+
+    public int columnCount() {
+        return columns.length;
+    }
+
+    /**
+     * Writes the header row.
+     *
+     * @param row    the empty row to write to
+     * @param styles the styles of the workbook
+     */
+    public void writeHeader(Row row, WorkbookStyles styles) {
+        CellStyle style = styles.style(WorkbookStyles.Theme.HEADER);
+        for (int i = 0; i < columns.length; i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellValue(columns[i].header);
+            cell.setCellStyle(style);
+        }
+    }
+
+    /**
+     * Starts writing the rows of one sheet. The writer keeps state across rows, so it is confined to one export.
+     *
+     * @param styles the styles of the workbook of the sheet
+     * @return a new row writer
+     */
+    public RowWriter newRowWriter(WorkbookStyles styles) {
+        CellStyle[] cellStyles = new CellStyle[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            cellStyles[i] = styles.style(columns[i].theme);
+        }
+        return new RowWriter(cellStyles);
+    }
+
+    private static int orderOf(Field field) {
+        Excel excel = field.getAnnotation(Excel.class);
+        return excel == null ? Integer.MAX_VALUE : excel.order();
+    }
+
+    private static WorkbookStyles.Theme themeFor(Class<?> type, ColumnKind kind) {
+        if (kind == ColumnKind.JALALI_DATE) {
+            return WorkbookStyles.Theme.JALALI_DATE;
+        }
+        return type == BigDecimal.class ? WorkbookStyles.Theme.MONETARY : WorkbookStyles.Theme.BODY;
+    }
+
+    private static MethodHandle getter(Field field) {
+        try {
+            field.setAccessible(true);
+            return LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access field " + field.getName(), e);
+        }
+    }
+
+    /**
+     * Writes the data rows of one sheet, estimating the width of every column from the header and the values written.
+     */
+    public final class RowWriter {
+
+        /** Exports repeat few distinct dates, and converting one to Jalali is expensive. */
+        private final Map<LocalDate, String> jalaliDates = new HashMap<>();
+        private final CellStyle[] cellStyles;
+        private final boolean[] grouped;
+        private final ColumnWidths widths = new ColumnWidths(columns.length);
+
+        private RowWriter(CellStyle[] cellStyles) {
+            this.cellStyles = cellStyles;
+            this.grouped = new boolean[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                grouped[i] = columns[i].theme == WorkbookStyles.Theme.MONETARY;
+                widths.measure(i, ColumnWidths.textWidth(columns[i].header) * ColumnWidths.BOLD_FACTOR);
+            }
+        }
+
+        /**
+         * Writes one item. Cells of null values are created with the style of their column but left blank.
+         *
+         * @param row  the empty row to write to
+         * @param item the item
+         */
+        public void write(Row row, T item) {
+            for (int i = 0; i < columns.length; i++) {
+                Column column = columns[i];
+                Cell cell = row.createCell(i);
+                cell.setCellStyle(cellStyles[i]);
+                Object value;
+                try {
+                    value = column.getter.invokeExact((Object) item);
+                } catch (Throwable e) {
+                    throw new IllegalStateException("Error accessing field value of column " + column.header, e);
+                }
+                if (value != null) {
+                    column.kind.write(cell, value, jalaliDates);
+                    widths.measure(i, column.kind.width(value, grouped[i]));
+                }
+            }
+        }
+
+        /**
+         * Sets the width of every column to its widest value so far; call once after the last row.
+         *
+         * @param sheet the sheet the rows were written to
+         */
+        public void applyColumnWidths(Sheet sheet) {
+            widths.apply(sheet);
+        }
+    }
+
+    /**
+     * How the values of a column are written, chosen once from the declared type of its field.
+     */
+    enum ColumnKind {
+        NUMERIC {
+            @Override
+            void write(Cell cell, Object value, Map<LocalDate, String> jalaliDates) {
+                cell.setCellValue(((Number) value).doubleValue());
+            }
+
+            @Override
+            double width(Object value, boolean grouped) {
+                return ColumnWidths.numberWidth(((Number) value).doubleValue(), grouped);
+            }
+        },
+        BOOLEAN {
+            @Override
+            void write(Cell cell, Object value, Map<LocalDate, String> jalaliDates) {
+                cell.setCellValue((Boolean) value);
+            }
+
+            @Override
+            double width(Object value, boolean grouped) {
+                // Shown as TRUE or FALSE
+                return (Boolean) value ? 4 : 5;
+            }
+        },
+        JALALI_DATE {
+            @Override
+            void write(Cell cell, Object value, Map<LocalDate, String> jalaliDates) {
+                cell.setCellValue(jalaliDates.computeIfAbsent((LocalDate) value, DateConvertor::convertGregorianToJalali));
+            }
+
+            @Override
+            double width(Object value, boolean grouped) {
+                // yyyy/MM/dd
+                return 10;
+            }
+        },
+        TEXT {
+            @Override
+            void write(Cell cell, Object value, Map<LocalDate, String> jalaliDates) {
+                cell.setCellValue(value.toString());
+            }
+
+            @Override
+            double width(Object value, boolean grouped) {
+                return ColumnWidths.textWidth(value.toString());
+            }
+        },
+        /** For fields declared as a supertype, e.g. {@code Object}, whose values may be of any kind. */
+        DYNAMIC {
+            @Override
+            void write(Cell cell, Object value, Map<LocalDate, String> jalaliDates) {
+                if (value instanceof Number) {
+                    NUMERIC.write(cell, value, jalaliDates);
+                } else if (value instanceof Boolean) {
+                    BOOLEAN.write(cell, value, jalaliDates);
+                } else if (value instanceof LocalDate) {
+                    JALALI_DATE.write(cell, value, jalaliDates);
+                } else {
+                    TEXT.write(cell, value, jalaliDates);
+                }
+            }
+
+            @Override
+            double width(Object value, boolean grouped) {
+                if (value instanceof Number) {
+                    return NUMERIC.width(value, grouped);
+                } else if (value instanceof Boolean) {
+                    return BOOLEAN.width(value, grouped);
+                } else if (value instanceof LocalDate) {
+                    return JALALI_DATE.width(value, grouped);
+                }
+                return TEXT.width(value, grouped);
+            }
+        };
+
+        abstract void write(Cell cell, Object value, Map<LocalDate, String> jalaliDates);
+
+        /**
+         * Estimates the display width of a value written by {@link #write}.
+         *
+         * @param grouped whether numbers are shown with thousands separators
+         * @return the width in characters
+         */
+        abstract double width(Object value, boolean grouped);
+
+        static ColumnKind forType(Class<?> type) {
+            if (type.isPrimitive()) {
+                if (type == boolean.class) {
+                    return BOOLEAN;
+                }
+                return type == char.class ? TEXT : NUMERIC;
+            }
+            if (Number.class.isAssignableFrom(type)) {
+                return NUMERIC;
+            } else if (type == Boolean.class) {
+                return BOOLEAN;
+            } else if (type == LocalDate.class) {
+                return JALALI_DATE;
+            } else if (type.isAssignableFrom(Number.class) || type.isAssignableFrom(Boolean.class)
+                    || type.isAssignableFrom(LocalDate.class)) {
+                return DYNAMIC;
+            }
+            return TEXT;
+        }
+    }
+
+    private record Column(String header, MethodHandle getter, ColumnKind kind, WorkbookStyles.Theme theme) {
+    }
+}
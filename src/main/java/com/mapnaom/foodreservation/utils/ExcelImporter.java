@@ -1,22 +1,16 @@
 package com.mapnaom.foodreservation.utils;
 
 import com.mapnaom.foodreservation.dtos.ImportResponse;
+import com.mapnaom.foodreservation.enums.ImportFormat;
 import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.ZoneId;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Slf4j
 public final class ExcelImporter {
@@ -25,285 +19,331 @@ public final class ExcelImporter {
         // Prevent instantiation
     }
 
-    // Supported data types
-    private static final Set<Class<?>> SUPPORTED_TYPES = Set.of(
-            Boolean.class, Integer.class, String.class, Double.class, Float.class,
-            Long.class, Short.class, Byte.class, Date.class, LocalDate.class,
-            LocalTime.class, LocalDateTime.class
-    );
-
     /**
-     * Imports data from an Excel file into a list of objects of the specified class.
+     * Binds only the first {@code rows} data rows of an upload, so users can check the column mapping of a file
+     * before importing it. The reader stops as soon as enough rows are bound; the rest of the file is never parsed.
      *
-     * @param file  the Excel file to import
+     * @param file  the Excel, CSV or TSV file to preview
      * @param clazz the class of the objects to create
+     * @param rows  the maximum number of data rows to read
      * @param <T>   the type parameter
-     * @return a list of populated objects
+     * @return the bound rows and the binding errors of the previewed rows
      * @throws ExcelDataImportException if an error occurs during import
      */
-    public static <T> ImportResponse<T> importFromExcel(MultipartFile file, Class<T> clazz) throws ExcelDataImportException {
+    public static <T> ImportResponse<T> previewFromExcel(MultipartFile file, Class<T> clazz, int rows) throws ExcelDataImportException {
         Objects.requireNonNull(file, "File must not be null");
         Objects.requireNonNull(clazz, "Class type must not be null");
 
-        ImportResponse<T> response = new ImportResponse<>();
-
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rowIterator = sheet.iterator();
-
-            if (!rowIterator.hasNext()) {
-                throw new ExcelDataImportException("Excel sheet is empty");
-            }
-
-            // Process header row
-            Row headerRow = rowIterator.next();
-            Map<String, Integer> headerMap = getHeaderMap(headerRow);
-
-            // Retrieve fields and filter unsupported types recursively
-            Map<String, Field> fieldMap = FieldProcessor.getFilteredFields(clazz);
+        Path stagedFile = stage(file);
+        try {
+            return previewFromExcel(stagedFile, clazz, rows);
+        } finally {
+            deleteQuietly(stagedFile);
+        }
+    }
 
-            // Iterate over data rows
-            while (rowIterator.hasNext()) {
-                Row row = rowIterator.next();
-                int rowIndex = row.getRowNum() + 1; // For error reporting
-                try {
-                    T instance = clazz.getDeclaredConstructor().newInstance();
+    /**
+     * Binds only the first {@code rows} data rows of a file on disk; see {@link #previewFromExcel(MultipartFile, Class, int)}.
+     * Rows of a {@code COMPOSITE} class are grouped as usual, so the last parent may lack children from later rows.
+     *
+     * @param path  the XLSX, CSV or TSV file to preview
+     * @param clazz the class of the objects to create
+     * @param rows  the maximum number of data rows to read
+     * @param <T>   the type parameter
+     * @return the bound rows and the binding errors of the previewed rows
+     * @throws ExcelDataImportException if an error occurs during import
+     */
+    public static <T> ImportResponse<T> previewFromExcel(Path path, Class<T> clazz, int rows) throws ExcelDataImportException {
+        Objects.requireNonNull(path, "Path must not be null");
+        Objects.requireNonNull(clazz, "Class type must not be null");
+        if (rows <= 0) {
+            throw new ExcelDataImportException("Preview row count must be positive");
+        }
 
-                    for (Map.Entry<String, Field> entry : fieldMap.entrySet()) {
-                        String fieldPath = entry.getKey();
-                        Field field = entry.getValue();
+        ImportResponse<T> response = new ImportResponse<>();
+        importRows(sourceFor(path), clazz, 0, null, rows, response, new ImportProgress(), collectInto(response));
+        return response;
+    }
 
-                        // Determine the expected type for the field
-                        Class<?> fieldType = getFieldType(clazz, fieldPath);
+    /**
+     * Streams an XLSX, CSV or TSV file on disk through the parallel binder without collecting the results.
+     * Rows that fail to bind are recorded in {@code response}; bound instances are handed to {@code consumer}
+     * in sheet order, on the calling thread, so the caller can process the file in bounded memory.
+     *
+     * @param path     the XLSX, CSV or TSV file to import
+     * @param clazz    the class of the objects to create
+     * @param response the response to record binding errors in
+     * @param progress the counters to update
+     * @param consumer receives every bound instance
+     * @param binders  the pool rows are bound on
+     * @param <T>      the type parameter
+     * @throws ExcelDataImportException if the file cannot be read
+     */
+    public static <T> void streamFromExcel(Path path, Class<T> clazz, ImportResponse<T> response, ImportProgress progress,
+                                           ImportedRowConsumer<T> consumer, ThreadPoolExecutor binders) throws ExcelDataImportException {
+        streamFromExcel(path, null, clazz, response, progress, consumer, binders);
+    }
 
-                        // Extract the value from the row
-                        Object value = getValueFromRow(row, fieldPath, headerMap, fieldType);
-                        if (value != null) {
-                            setFieldValue(instance, fieldPath, value);
-                        }
-                    }
+    /**
+     * Streams one sheet of an XLSX workbook through the parallel binder, like
+     * {@link #streamFromExcel(Path, Class, ImportResponse, ImportProgress, ImportedRowConsumer, ThreadPoolExecutor)}.
+     *
+     * @param path      the XLSX, CSV or TSV file to import
+     * @param sheetName the sheet to read, or null for the first one; CSV and TSV files have a single sheet and ignore it
+     * @param clazz     the class of the objects to create
+     * @param response  the response to record binding errors in
+     * @param progress  the counters to update
+     * @param consumer  receives every bound instance
+     * @param binders   the pool rows are bound on
+     * @param <T>       the type parameter
+     * @throws ExcelDataImportException if the file cannot be read or the sheet is missing or empty
+     */
+    public static <T> void streamFromExcel(Path path, String sheetName, Class<T> clazz, ImportResponse<T> response,
+                                           ImportProgress progress, ImportedRowConsumer<T> consumer,
+                                           ThreadPoolExecutor binders) throws ExcelDataImportException {
+        Objects.requireNonNull(path, "Path must not be null");
+        Objects.requireNonNull(clazz, "Class type must not be null");
+        Objects.requireNonNull(consumer, "Consumer must not be null");
+        Objects.requireNonNull(binders, "Binder pool must not be null");
 
-                    response.incrementSuccess(instance);
-                } catch (Exception e) {
-                    log.error("Error processing row {}: {}", rowIndex, e.getMessage());
-                    response.incrementFailed();
-                    response.addError(rowIndex, new ExcelCellError(e.getMessage()));
-                }
-            }
+        importRows(sourceFor(path, sheetName), clazz, ParallelRowBinder.DEFAULT_CHUNK_SIZE, binders, 0, response, progress, consumer);
+    }
 
+    /**
+     * Lists the sheets of an XLSX or XLS workbook in workbook order.
+     *
+     * @param path the XLSX or XLS file
+     * @return the sheet names
+     * @throws ExcelDataImportException if the file cannot be read
+     */
+    public static List<String> sheetNames(Path path) throws ExcelDataImportException {
+        try {
+            return ImportFormat.fromFileName(path.getFileName().toString()).orElse(ImportFormat.XLSX) == ImportFormat.XLS
+                    ? XlsStreamingReader.sheetNames(path)
+                    : XlsxStreamingReader.sheetNames(path);
         } catch (IOException e) {
             log.error("IO Exception while reading Excel file: {}", e.getMessage());
             throw new ExcelDataImportException(e, "Failed to read Excel file");
         }
+    }
 
-        return response;
+    private static <T> ImportedRowConsumer<T> collectInto(ImportResponse<T> response) {
+        return (rowIndex, instance) -> response.incrementSuccess(instance);
     }
 
     /**
-     * Creates a map of header names to their corresponding column indices.
+     * Reads the rows of a source and binds them to instances of {@code clazz}. Rows of a class annotated with
+     * {@code @Excel(strategy = COMPOSITE)} are grouped by a {@link CompositeRowGrouper} before they reach the consumer.
      *
-     * @param headerRow the header row
-     * @return a map where keys are header names and values are column indices
+     * @param source    the row source
+     * @param clazz     the class of the objects to create
+     * @param chunkSize rows per parallel chunk, or 0 to bind sequentially on the reading thread
+     * @param binders   the pool parallel chunks are bound on, or null when binding sequentially
+     * @param rowLimit  the maximum number of data rows to read, or 0 to read them all
+     * @param response  the response to record binding errors in
+     * @param progress  the counters to update
+     * @param consumer  receives every bound instance
+     * @param <T>       the type parameter
      */
-    private static Map<String, Integer> getHeaderMap(Row headerRow) {
-        Map<String, Integer> headerMap = new HashMap<>();
-        for (Cell cell : headerRow) {
-            String headerName = cell.getStringCellValue().trim();
-            if (!headerName.isEmpty()) {
-                headerMap.put(headerName, cell.getColumnIndex());
+    private static <T> void importRows(RowSource source, Class<T> clazz, int chunkSize, ThreadPoolExecutor binders,
+                                       int rowLimit, ImportResponse<T> response, ImportProgress progress,
+                                       ImportedRowConsumer<T> consumer) {
+        CompositeRowGrouper<T> grouper = CompositeRowGrouper.isComposite(clazz) ? CompositeRowGrouper.of(clazz, consumer) : null;
+        StreamingRowBinder<T> binder = new StreamingRowBinder<>(RowBindingPlan.of(clazz), response, chunkSize, binders,
+                rowLimit, progress, grouper != null ? grouper : consumer);
+
+        try {
+            source.read(binder);
+            binder.finish();
+            if (grouper != null) {
+                grouper.finish();
             }
+        } catch (IOException e) {
+            binder.cancel();
+            log.error("IO Exception while reading Excel file: {}", e.getMessage());
+            throw new ExcelDataImportException(e, "Failed to read Excel file");
+        } catch (RuntimeException e) {
+            binder.cancel();
+            throw e;
+        }
+
+        if (binder.plan == null) {
+            throw new ExcelDataImportException("Excel sheet is empty");
         }
-        return headerMap;
     }
 
     /**
-     * Retrieves the expected field type based on the field path.
-     *
-     * @param clazz     the root class
-     * @param fieldPath the dot-notated field path
-     * @return the Class type of the field
-     * @throws NoSuchFieldException if a field in the path does not exist
+     * Row handler that treats the first row as the header and binds every following row to a new instance,
+     * either directly or through a {@link ParallelRowBinder}.
      */
-    private static Class<?> getFieldType(Class<?> clazz, String fieldPath) throws NoSuchFieldException {
-        String[] parts = fieldPath.split("\\.");
-        Class<?> currentClass = clazz;
+    private static final class StreamingRowBinder<T> implements StreamedRowHandler {
+
+        private final RowBindingPlan<T> bindingPlan;
+        private final ImportResponse<T> response;
+        private final int chunkSize;
+        private final ThreadPoolExecutor binders;
+        private final int rowLimit;
+        private final ImportProgress progress;
+        private final ImportedRowConsumer<T> consumer;
+        private RowBindingPlan<T>.Bound plan;
+        private ParallelRowBinder<T> parallelBinder;
+        private int dataRows;
+
+        StreamingRowBinder(RowBindingPlan<T> bindingPlan, ImportResponse<T> response, int chunkSize,
+                           ThreadPoolExecutor binders, int rowLimit, ImportProgress progress, ImportedRowConsumer<T> consumer) {
+            this.bindingPlan = bindingPlan;
+            this.response = response;
+            this.chunkSize = chunkSize;
+            this.binders = binders;
+            this.rowLimit = rowLimit;
+            this.progress = progress;
+            this.consumer = consumer;
+        }
 
-        for (String part : parts) {
-            Field field = currentClass.getDeclaredField(part);
-            currentClass = field.getType();
+        @Override
+        public boolean wantsColumn(int column) {
+            return plan == null || plan.wantsColumn(column);
+        }
 
-            // If the field is a collection, get its generic type
-            if (Collection.class.isAssignableFrom(currentClass)) {
-                Type genericType = field.getGenericType();
-                if (genericType instanceof ParameterizedType pt) {
-                    Type[] actualTypeArguments = pt.getActualTypeArguments();
-                    if (actualTypeArguments.length == 1 && actualTypeArguments[0] instanceof Class) {
-                        currentClass = (Class<?>) actualTypeArguments[0];
-                    }
+        @Override
+        public void handleRow(StreamedRow row) {
+            if (plan == null) {
+                Map<String, Integer> headerMap = getHeaderMap(row);
+                plan = bindingPlan.bind(headerMap);
+                consumer.onHeader(headerMap);
+                if (chunkSize > 0) {
+                    parallelBinder = new ParallelRowBinder<>(plan, response, consumer, chunkSize, progress, binders);
                 }
+                return;
+            }
+            dataRows++;
+            if (parallelBinder != null) {
+                parallelBinder.add(row);
+            } else {
+                bindRow(plan, row, response, progress, consumer);
+            }
+        }
+
+        @Override
+        public boolean isDone() {
+            return rowLimit > 0 && dataRows >= rowLimit;
+        }
+
+        void finish() {
+            if (parallelBinder != null) {
+                parallelBinder.finish();
             }
         }
 
-        return currentClass;
+        void cancel() {
+            if (parallelBinder != null) {
+                parallelBinder.cancel();
+            }
+        }
     }
 
     /**
-     * Retrieves a value from the row based on the field path.
-     *
-     * @param row       the Excel row
-     * @param fieldPath the dot-notated field path (e.g., "foodOptions.price")
-     * @param headerMap the header-to-column index map
-     * @param type      the expected Java type of the field
-     * @return the extracted value
-     * @throws ExcelDataImportException if extraction fails
+     * Binds one data row, hands the instance to the consumer and records failures the consumer does not veto in the
+     * response and the progress counters.
      */
-    private static Object getValueFromRow(Row row, String fieldPath, Map<String, Integer> headerMap, Class<?> type) throws ExcelDataImportException {
-        String[] parts = fieldPath.split("\\.");
-        Object currentObject = null;
-
-        // Traverse the field path to reach the target field
-        // For simplicity, only handle the leaf field
-        // Complex nested object creation can be implemented as needed
-        String leafField = parts[parts.length - 1];
-
-        Integer cellIndex = headerMap.get(leafField);
-        if (cellIndex == null) {
-            throw new ExcelDataImportException("Missing header for field: " + leafField);
+    private static <T> void bindRow(RowBindingPlan<T>.Bound plan, StreamedRow row, ImportResponse<T> response,
+                                    ImportProgress progress, ImportedRowConsumer<T> consumer) {
+        int rowIndex = row.getRowNum() + 1; // For error reporting
+        progress.rowParsed();
+        T instance;
+        try {
+            instance = plan.bindRow(row);
+        } catch (Exception e) {
+            log.error("Error processing row {}: {}", rowIndex, e.getMessage());
+            if (consumer.onFailure(rowIndex)) {
+                response.incrementFailed();
+                response.addError(rowIndex, ExcelDataImportException.columnOf(e), e.getMessage());
+                progress.rowFailed();
+            }
+            return;
         }
+        consumer.accept(rowIndex, instance);
+    }
 
-        Cell cell = row.getCell(cellIndex, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
-        if (cell == null) {
-            return null;
+    /**
+     * Creates a map of header names to their corresponding column indices from a streamed header row.
+     *
+     * @param headerRow the streamed header row
+     * @return a map where keys are header names and values are column indices
+     */
+    private static Map<String, Integer> getHeaderMap(StreamedRow headerRow) {
+        Map<String, Integer> headerMap = new HashMap<>();
+        for (int i = 0; i <= headerRow.getLastColumn(); i++) {
+            String headerName = headerRow.getString(i);
+            if (headerName != null && !headerName.isEmpty()) {
+                headerMap.put(headerName, i);
+            }
         }
-
-        return parseCellValue(cell, type);
+        return headerMap;
     }
 
     /**
-     * Sets a value on an object based on the field path.
+     * Returns the reader for a file on disk, chosen by its extension; files without a known extension are read as XLSX.
      *
-     * @param instance  the object instance
-     * @param fieldPath the dot-notated field path
-     * @param value     the value to set
-     * @throws IllegalAccessException    if field access fails
-     * @throws NoSuchFieldException      if the field doesn't exist
-     * @throws ExcelDataImportException  if any error occurs during setting the value
-     * @throws InstantiationException    if instantiation of nested objects fails
+     * @param path the file to read
+     * @return the row source
      */
-    private static void setFieldValue(Object instance, String fieldPath, Object value) throws IllegalAccessException, NoSuchFieldException, ExcelDataImportException, InstantiationException, NoSuchMethodException, InvocationTargetException {
-        String[] parts = fieldPath.split("\\.");
-        Object currentObject = instance;
-
-        for (int i = 0; i < parts.length; i++) {
-            String part = parts[i];
-            Field field = currentObject.getClass().getDeclaredField(part);
-            field.setAccessible(true);
+    private static RowSource sourceFor(Path path) {
+        return sourceFor(path, null);
+    }
 
-            if (i == parts.length - 1) {
-                // Last part, set the value
-                if (Collection.class.isAssignableFrom(field.getType())) {
-                    // Handle collections
-                    Collection<Object> collection = (Collection<Object>) field.get(currentObject);
-                    if (collection == null) {
-                        collection = instantiateCollection(field.getType());
-                        field.set(currentObject, collection);
-                    }
-                    collection.add(value);
-                } else {
-                    field.set(currentObject, value);
-                }
-            } else {
-                // Intermediate part, navigate or create the nested object
-                Object nestedObject = field.get(currentObject);
-                if (nestedObject == null) {
-                    nestedObject = field.getType().getDeclaredConstructor().newInstance();
-                    field.set(currentObject, nestedObject);
-                }
-                currentObject = nestedObject;
-            }
-        }
+    /**
+     * Returns the reader for one sheet of a file on disk; see {@link #sourceFor(Path)}.
+     *
+     * @param path      the file to read
+     * @param sheetName the XLSX or XLS sheet to read, or null for the first one
+     * @return the row source
+     */
+    private static RowSource sourceFor(Path path, String sheetName) {
+        return switch (ImportFormat.fromFileName(path.getFileName().toString()).orElse(ImportFormat.XLSX)) {
+            case XLSX -> new XlsxStreamingReader(path, sheetName);
+            case XLS -> new XlsStreamingReader(path, sheetName);
+            case CSV -> new DelimitedTextReader(path, ',');
+            case TSV -> new DelimitedTextReader(path, '\t');
+        };
     }
 
     /**
-     * Instantiates a collection based on its type.
+     * Copies an upload to a temporary file so it can be read with random access by the streaming readers.
+     * The staged file gets the extension of the negotiated {@link ImportFormat}, so the readers can tell the formats apart.
      *
-     * @param collectionType the collection class
-     * @return an instance of the collection
-     * @throws ExcelDataImportException if instantiation fails
+     * @param file the uploaded file
+     * @return the path of the staged copy; the caller deletes it
+     * @throws ExcelDataImportException if the upload is not in a supported format or cannot be copied
      */
-    private static Collection<Object> instantiateCollection(Class<?> collectionType) throws ExcelDataImportException {
-        if (collectionType.isInterface()) {
-            if (List.class.isAssignableFrom(collectionType)) {
-                return new ArrayList<>();
-            } else if (Set.class.isAssignableFrom(collectionType)) {
-                return new LinkedHashSet<>();
-            } else {
-                throw new ExcelDataImportException("Unsupported collection type: " + collectionType.getName());
-            }
-        } else {
-            try {
-                return (Collection<Object>) collectionType.getDeclaredConstructor().newInstance();
-            } catch (Exception e) {
-                throw new ExcelDataImportException(e, "Failed to instantiate collection type: " + collectionType.getName());
-            }
+    public static Path stage(MultipartFile file) {
+        ImportFormat format = ImportFormat.negotiate(file.getContentType(), file.getOriginalFilename())
+                .orElseThrow(() -> new ExcelDataImportException("Unsupported file type: " + file.getContentType()));
+        Path stagedFile = null;
+        try {
+            stagedFile = Files.createTempFile("excel-import-", format.getExtension());
+            file.transferTo(stagedFile);
+            return stagedFile;
+        } catch (IOException e) {
+            deleteQuietly(stagedFile);
+            log.error("IO Exception while staging Excel file: {}", e.getMessage());
+            throw new ExcelDataImportException(e, "Failed to read Excel file");
         }
     }
 
     /**
-     * Parses the cell value into the specified type.
+     * Deletes a staged file, logging instead of failing if it cannot be removed.
      *
-     * @param cell the cell to parse
-     * @param type the target type
-     * @return the parsed value
-     * @throws ExcelDataImportException if the cell type is unsupported or parsing fails
+     * @param path the file to delete, may be null
      */
-    private static Object parseCellValue(Cell cell, Class<?> type) throws ExcelDataImportException {
-        if (type == null) {
-            // Infer type based on cell type
-            switch (cell.getCellType()) {
-                case STRING:
-                    return cell.getStringCellValue().trim();
-                case BOOLEAN:
-                    return cell.getBooleanCellValue();
-                case NUMERIC:
-                    if (DateUtil.isCellDateFormatted(cell)) {
-                        return cell.getDateCellValue();
-                    } else {
-                        return cell.getNumericCellValue();
-                    }
-                case FORMULA:
-                    return cell.getCellFormula();
-                case BLANK:
-                default:
-                    return null;
-            }
+    public static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
         }
-
-        // Parse based on the specified type
         try {
-            if (type.equals(String.class)) {
-                return cell.getStringCellValue().trim();
-            } else if (type.equals(Integer.class) || type.equals(int.class)) {
-                return (int) cell.getNumericCellValue();
-            } else if (type.equals(Long.class) || type.equals(long.class)) {
-                return (long) cell.getNumericCellValue();
-            } else if (type.equals(Double.class) || type.equals(double.class)) {
-                return cell.getNumericCellValue();
-            } else if (type.equals(Float.class) || type.equals(float.class)) {
-                return (float) cell.getNumericCellValue();
-            } else if (type.equals(Boolean.class) || type.equals(boolean.class)) {
-                return cell.getBooleanCellValue();
-            } else if (type.equals(LocalDate.class)) {
-                Date date = cell.getDateCellValue();
-                return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-            } else if (type.equals(Date.class)) {
-                return cell.getDateCellValue();
-            }
-            // Add more type parsers as needed
-        } catch (Exception e) {
-            throw new ExcelDataImportException(e, "Error parsing cell value: " + e.getMessage());
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary file {}: {}", path, e.getMessage());
         }
-
-        return null;
     }
 }
@@ -2,32 +2,32 @@ package com.mapnaom.foodreservation.utils;
 
 import java.awt.*;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.*;
 
 public class FieldProcessor {
 
-    // Define supported types
-    private static final Set<Class<?>> SUPPORTED_TYPES = Set.of(
-            Boolean.class, Integer.class, String.class, Double.class, Float.class,
-            Long.class, Short.class, Byte.class, Date.class, LocalDate.class,
-            LocalTime.class, LocalDateTime.class
-    );
+    // Filtered fields per class; the class graph is walked only once per class
+    private static final ClassValue<Map<String, Field>> FILTERED_FIELDS = new ClassValue<>() {
+        @Override
+        protected Map<String, Field> computeValue(Class<?> type) {
+            Map<String, Field> fieldMap = new LinkedHashMap<>();
+            processClassFields(type, fieldMap, "");
+            return Collections.unmodifiableMap(fieldMap);
+        }
+    };
 
     /**
      * Recursively retrieves fields from the given class, handling nested collections.
+     * The result is cached per class and must not be modified.
      *
      * @param clazz the class to process
      * @return a map of field names to Field objects
      */
     public static Map<String, Field> getFilteredFields(Class<?> clazz) {
-        Map<String, Field> fieldMap = new LinkedHashMap<>();
-        processClassFields(clazz, fieldMap, "");
-        return fieldMap;
+        return FILTERED_FIELDS.get(clazz);
     }
 
     /**
@@ -44,13 +44,14 @@ public class FieldProcessor {
             String fieldName = prefix.isEmpty() ? field.getName() : prefix + "." + field.getName();
 
 
-            if (field.getName().equalsIgnoreCase("id")) {
+            if (field.getName().equalsIgnoreCase("id") || Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
                 continue;
             }
 
             Class<?> fieldType = field.getType();
 
-            if (SUPPORTED_TYPES.contains(fieldType)) {
+            // Leaf fields: every type the converter registry can bind
+            if (CellConverters.supports(fieldType)) {
                 fieldMap.put(fieldName, field);
             } else if (Collection.class.isAssignableFrom(fieldType)) {
                 Type genericType = field.getGenericType();
@@ -59,19 +60,29 @@ public class FieldProcessor {
                     if (actualTypeArguments.length == 1) {
                         Type actualType = actualTypeArguments[0];
                         if (actualType instanceof Class<?> actualClass) {
-                            if (!SUPPORTED_TYPES.contains(actualClass) && !actualClass.isEnum()) {
+                            if (!CellConverters.supports(actualClass) && !isJdkType(actualClass)) {
                                 processClassFields(actualClass, fieldMap, fieldName);
                             }
                         }
                     }
                 }
-            } else if (!fieldType.isArray() && !isComposite(fieldType)) {
+            } else if (!fieldType.isArray() && !isComposite(fieldType) && !isJdkType(fieldType)) {
                 processClassFields(fieldType, fieldMap, fieldName);
             }
         }
     }
 
 
+    /**
+     * JDK types (BigDecimal, UUID, ...) are never walked into: their internals are not spreadsheet columns.
+     *
+     * @param clazz the class to check
+     * @return true if the class is a primitive or belongs to the JDK
+     */
+    private static boolean isJdkType(Class<?> clazz) {
+        return clazz.isPrimitive() || clazz.getName().startsWith("java.");
+    }
+
     /**
      * Determines if a class is a composite type.
      * Adjust this method based on your application's definition of "Composite."
@@ -0,0 +1,31 @@
+package com.mapnaom.foodreservation.utils;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks an entity id that is assigned by {@link PluggableIdGenerator} before the insert, so that inserts can be
+ * JDBC-batched. Which strategy is used is configured once for the whole application with
+ * {@code spring.jpa.properties.food-reservation.id.strategy}.
+ */
+@IdGeneratorType(PluggableIdGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface GeneratedId {
+
+    /**
+     * Name of the database sequence for the pooled-sequence strategy. Defaults to {@code <entity>_seq}.
+     */
+    String sequenceName() default "";
+
+    /**
+     * Number of ids reserved per sequence call for the pooled-sequence strategy.
+     */
+    int allocationSize() default 50;
+}
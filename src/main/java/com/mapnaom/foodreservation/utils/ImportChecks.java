@@ -0,0 +1,9 @@
+package com.mapnaom.foodreservation.utils;
+
+/**
+ * Validation group of the constraints checked on imported rows. DTO constraints meant for imports are declared in
+ * this group, so the create and update endpoints, which validate the same DTOs in the default group, do not apply
+ * them.
+ */
+public interface ImportChecks {
+}
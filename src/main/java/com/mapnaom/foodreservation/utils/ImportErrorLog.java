@@ -0,0 +1,272 @@
+package com.mapnaom.foodreservation.utils;
+
+import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.Cleaner;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Error list of one import in bounded memory.
+ * <p>
+ * Errors are kept as parallel primitive arrays (row, column) plus the message, up to {@code sampleLimit} entries.
+ * When the sample overflows, the whole list, sample included, is spilled to a temporary file, one
+ * {@code row<TAB>column<TAB>message} line per error in the order the errors were recorded, and every later error
+ * is appended there. The file can then be paged or downloaded; it is deleted by {@link #discard()}, or at the latest
+ * when the log becomes unreachable.
+ * <p>
+ * Thread-safe: errors are recorded by the reader and the writer thread of an import while status requests read them.
+ */
+@Slf4j
+public final class ImportErrorLog {
+
+    public static final int DEFAULT_SAMPLE_LIMIT = 1000;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int sampleLimit;
+    private int[] rows = new int[16];
+    private int[] columns = new int[16];
+    private String[] messages = new String[16];
+    private int sampleSize;
+    private long count;
+    private final SpillFile spill = new SpillFile();
+    /** Set once spilling has failed; the full list is then incomplete for good, so nothing is spilled any more. */
+    private boolean spillFailed;
+    private final Cleaner.Cleanable cleanable;
+
+    public ImportErrorLog() {
+        this(DEFAULT_SAMPLE_LIMIT);
+    }
+
+    public ImportErrorLog(int sampleLimit) {
+        this.sampleLimit = sampleLimit;
+        this.cleanable = CLEANER.register(this, spill);
+    }
+
+    /**
+     * Records an error.
+     *
+     * @param row     the 1-based row number, or -1 for errors of the whole file
+     * @param column  the 0-based column index, or -1 if unknown
+     * @param message the error message
+     */
+    public synchronized void add(int row, int column, String message) {
+        count++;
+        if (sampleSize < sampleLimit) {
+            if (sampleSize == rows.length) {
+                int length = Math.min(sampleLimit, sampleSize * 2);
+                rows = Arrays.copyOf(rows, length);
+                columns = Arrays.copyOf(columns, length);
+                messages = Arrays.copyOf(messages, length);
+            }
+            rows[sampleSize] = row;
+            columns[sampleSize] = column;
+            messages[sampleSize] = message;
+            sampleSize++;
+            return;
+        }
+        if (spillFailed) {
+            return;
+        }
+        try {
+            if (spill.writer == null) {
+                spill.open();
+                for (int i = 0; i < sampleSize; i++) {
+                    spill.write(rows[i], columns[i], messages[i]);
+                }
+            }
+            spill.write(row, column, message);
+        } catch (IOException e) {
+            // The sample and the count stay correct; only the full list is lost. A new spill file would lack the
+            // errors written to this one, so it must not be started.
+            log.warn("Could not spill import errors to {}: {}", spill.path, e.getMessage());
+            spillFailed = true;
+            spill.close();
+        }
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return true if more errors were recorded than the in-memory sample holds
+     */
+    public synchronized boolean isTruncated() {
+        return count > sampleSize;
+    }
+
+    /**
+     * @return true if the full list is available from {@link #page} and {@link #copyTo}
+     */
+    public synchronized boolean isComplete() {
+        return !isTruncated() || spill.writer != null && !spillFailed;
+    }
+
+    /**
+     * Returns the in-memory sample, ordered by row.
+     *
+     * @return at most {@code sampleLimit} errors
+     */
+    public synchronized List<ExcelCellError> sample() {
+        List<ExcelCellError> errors = new ArrayList<>(sampleSize);
+        for (int i = 0; i < sampleSize; i++) {
+            errors.add(toError(rows[i], columns[i], messages[i]));
+        }
+        errors.sort(Comparator.comparing(ExcelCellError::getRow));
+        return errors;
+    }
+
+    /**
+     * Returns a page of the full list, in the order the errors were recorded.
+     *
+     * @param offset the number of errors to skip
+     * @param limit  the maximum number of errors to return
+     * @return the errors of the page
+     * @throws ExcelDataImportException if the full list is not available or cannot be read
+     */
+    public synchronized List<ExcelCellError> page(long offset, int limit) {
+        List<ExcelCellError> errors = new ArrayList<>(Math.max(0, Math.min(limit, 1000)));
+        if (spill.writer == null) {
+            requireComplete();
+            for (long i = offset; i < sampleSize && errors.size() < limit; i++) {
+                errors.add(toError(rows[(int) i], columns[(int) i], messages[(int) i]));
+            }
+            return errors;
+        }
+        try (BufferedReader reader = spill.reader()) {
+            long skipped = 0;
+            for (String line = reader.readLine(); line != null && errors.size() < limit; line = reader.readLine()) {
+                if (skipped++ < offset) {
+                    continue;
+                }
+                String[] fields = line.split("\t", 3);
+                errors.add(toError(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), fields[2]));
+            }
+        } catch (IOException e) {
+            throw new ExcelDataImportException(e, "Failed to read import errors");
+        }
+        return errors;
+    }
+
+    /**
+     * Writes the full list as tab-separated {@code row, column, message} lines with a header.
+     *
+     * @param out the stream to write to; it is not closed
+     * @throws IOException if writing fails
+     */
+    public synchronized void copyTo(OutputStream out) throws IOException {
+        requireComplete();
+        out.write("row\tcolumn\tmessage\n".getBytes(StandardCharsets.UTF_8));
+        if (spill.writer == null) {
+            StringBuilder lines = new StringBuilder();
+            for (int i = 0; i < sampleSize; i++) {
+                SpillFile.append(lines, rows[i], columns[i], messages[i]);
+            }
+            out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        spill.writer.flush();
+        Files.copy(spill.path, out);
+    }
+
+    /**
+     * Deletes the spill file, if any. Later errors are still counted but only kept while the sample has room.
+     */
+    public synchronized void discard() {
+        cleanable.clean();
+    }
+
+    private void requireComplete() {
+        if (!isComplete()) {
+            throw new ExcelDataImportException("The full error list of this import is not available");
+        }
+    }
+
+    private static ExcelCellError toError(int row, int column, String message) {
+        return new ExcelCellError(message, row, column < 0 ? null : columnName(column));
+    }
+
+    /**
+     * Converts a 0-based column index into its spreadsheet letters, e.g. 27 into "AB".
+     */
+    private static String columnName(int column) {
+        StringBuilder name = new StringBuilder();
+        for (int index = column + 1; index > 0; index = (index - 1) / 26) {
+            name.insert(0, (char) ('A' + (index - 1) % 26));
+        }
+        return name.toString();
+    }
+
+    /**
+     * The spill file. Kept apart from the log so the {@link Cleaner} can delete it once the log is unreachable.
+     */
+    private static final class SpillFile implements Runnable {
+
+        private Path path;
+        private BufferedWriter writer;
+        private boolean closed;
+
+        void open() throws IOException {
+            if (closed) {
+                throw new IOException("error log was discarded");
+            }
+            path = Files.createTempFile("import-errors-", ".tsv");
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        }
+
+        void write(int row, int column, String message) throws IOException {
+            StringBuilder line = new StringBuilder(message == null ? 16 : message.length() + 16);
+            append(line, row, column, message);
+            writer.write(line.toString());
+        }
+
+        BufferedReader reader() throws IOException {
+            writer.flush();
+            return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        }
+
+        static void append(StringBuilder line, int row, int column, String message) {
+            line.append(row).append('\t').append(column).append('\t');
+            if (message != null) {
+                for (int i = 0; i < message.length(); i++) {
+                    char c = message.charAt(i);
+                    line.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+                }
+            }
+            line.append('\n');
+        }
+
+        synchronized void close() {
+            try {
+                if (writer != null) {
+                    writer.close();
+                }
+                if (path != null) {
+                    Files.deleteIfExists(path);
+                }
+            } catch (IOException e) {
+                log.warn("Could not delete import error file {}: {}", path, e.getMessage());
+            }
+            writer = null;
+            path = null;
+        }
+
+        @Override
+        public void run() {
+            closed = true;
+            close();
+        }
+    }
+}
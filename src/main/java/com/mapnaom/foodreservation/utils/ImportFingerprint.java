@@ -0,0 +1,48 @@
+package com.mapnaom.foodreservation.utils;
+
+import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content fingerprint of an import file, used to recognize a file that was uploaded before.
+ */
+public final class ImportFingerprint {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ImportFingerprint() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Computes the SHA-256 of a file, streaming it through a fixed-size buffer.
+     *
+     * @param path the file
+     * @return the digest as 64 lowercase hex characters
+     * @throws ExcelDataImportException if the file cannot be read
+     */
+    public static String sha256(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new ExcelDataImportException(e, "Failed to read Excel file");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
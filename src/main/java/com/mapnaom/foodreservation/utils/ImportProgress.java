@@ -0,0 +1,38 @@
+package com.mapnaom.foodreservation.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live row counters of a running import. Updated by the import engine and the persisting service,
+ * read concurrently by status requests.
+ */
+public final class ImportProgress {
+
+    private final AtomicLong rowsParsed = new AtomicLong();
+    private final AtomicLong rowsPersisted = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+
+    public void rowParsed() {
+        rowsParsed.incrementAndGet();
+    }
+
+    public void rowFailed() {
+        rowsFailed.incrementAndGet();
+    }
+
+    public void rowsPersisted(long count) {
+        rowsPersisted.addAndGet(count);
+    }
+
+    public long getRowsParsed() {
+        return rowsParsed.get();
+    }
+
+    public long getRowsPersisted() {
+        return rowsPersisted.get();
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed.get();
+    }
+}
@@ -0,0 +1,37 @@
+package com.mapnaom.foodreservation.utils;
+
+import java.util.Map;
+
+/**
+ * Receives every successfully bound row of an import, in sheet order, on the thread that reads the file, and is told
+ * of every row that fails to bind.
+ *
+ * @param <T> the DTO type
+ */
+@FunctionalInterface
+public interface ImportedRowConsumer<T> {
+
+    /**
+     * @param rowIndex the 1-based row number, as used in import errors
+     * @param instance the bound instance
+     */
+    void accept(int rowIndex, T instance);
+
+    /**
+     * Called once with the header of the sheet, before the first row.
+     *
+     * @param headerMap the header names mapped to their 0-based column indexes
+     */
+    default void onHeader(Map<String, Integer> headerMap) {
+    }
+
+    /**
+     * Called for every row that fails to bind, before the failure is recorded in the import response.
+     *
+     * @param rowIndex the 1-based row number
+     * @return whether to record the failure; false if it was counted already, e.g. by an earlier run of a resumed import
+     */
+    default boolean onFailure(int rowIndex) {
+        return true;
+    }
+}
@@ -0,0 +1,15 @@
+package com.mapnaom.foodreservation.utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a DTO field whose column may be left out of an import file. Without the column the field simply stays null;
+ * every other bound field still needs its header.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OptionalColumn {
+}
@@ -0,0 +1,145 @@
+package com.mapnaom.foodreservation.utils;
+
+import com.mapnaom.foodreservation.dtos.ImportResponse;
+import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Binds rows in chunks on a bounded thread pool shared by all imports and merges the results back into an
+ * {@link ImportResponse} in the original row order.
+ * <p>
+ * Rows are handed in by a single reader thread. Chunks are bound concurrently, but merging always
+ * happens on the reader thread in submission order, so successes and errors appear exactly as they
+ * would in a sequential import. At most {@code 2 x poolSize} chunks are in flight, which keeps memory bounded.
+ *
+ * @param <T> the DTO type
+ */
+@Slf4j
+public final class ParallelRowBinder<T> {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final RowBindingPlan<T>.Bound plan;
+    private final ImportResponse<T> response;
+    private final ImportedRowConsumer<T> consumer;
+    private final int chunkSize;
+    private final ImportProgress progress;
+    private final ExecutorService pool;
+    private final int maxInFlight;
+    private final Deque<Future<Object[]>> inFlight = new ArrayDeque<>();
+    private List<StreamedRow> chunk;
+
+    public ParallelRowBinder(RowBindingPlan<T>.Bound plan, ImportResponse<T> response, ImportedRowConsumer<T> consumer,
+                             int chunkSize, ImportProgress progress, ThreadPoolExecutor pool) {
+        this.plan = plan;
+        this.response = response;
+        this.consumer = consumer;
+        this.chunkSize = chunkSize;
+        this.progress = progress;
+        this.pool = pool;
+        this.maxInFlight = pool.getMaximumPoolSize() * 2;
+        this.chunk = new ArrayList<>(chunkSize);
+    }
+
+    /**
+     * Queues a copy of the row for binding. Blocks while too many chunks are in flight.
+     *
+     * @param row the row to bind; it is copied, so the caller may reuse it
+     */
+    public void add(StreamedRow row) {
+        chunk.add(row.copy());
+        if (chunk.size() >= chunkSize) {
+            submitChunk();
+        }
+    }
+
+    /**
+     * Binds the remaining rows and waits until every chunk has been merged into the response.
+     */
+    public void finish() {
+        if (!chunk.isEmpty()) {
+            submitChunk();
+        }
+        while (!inFlight.isEmpty()) {
+            mergeOldest();
+        }
+    }
+
+    /**
+     * Cancels chunks that have not been merged yet, e.g. after the reader failed.
+     */
+    public void cancel() {
+        inFlight.forEach(future -> future.cancel(true));
+        inFlight.clear();
+    }
+
+    private void submitChunk() {
+        List<StreamedRow> rows = chunk;
+        chunk = new ArrayList<>(chunkSize);
+
+        inFlight.addLast(pool.submit(() -> bindChunk(rows)));
+        while (inFlight.size() > maxInFlight) {
+            mergeOldest();
+        }
+    }
+
+    /**
+     * Binds every row of a chunk. Results are stored as pairs: the row number, then either the bound instance
+     * or a {@link RowFailure}.
+     */
+    private Object[] bindChunk(List<StreamedRow> rows) {
+        Object[] results = new Object[rows.size() * 2];
+        for (int i = 0; i < rows.size(); i++) {
+            results[2 * i] = rows.get(i).getRowNum();
+            try {
+                results[2 * i + 1] = plan.bindRow(rows.get(i));
+            } catch (Exception e) {
+                results[2 * i + 1] = new RowFailure(e);
+            }
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mergeOldest() {
+        Future<Object[]> future = inFlight.removeFirst();
+        Object[] results;
+        try {
+            results = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new ExcelDataImportException(e, "Import was interrupted");
+        } catch (ExecutionException e) {
+            cancel();
+            throw new ExcelDataImportException(e, "Failed to bind rows: " + e.getCause().getMessage());
+        }
+
+        for (int i = 0; i < results.length; i += 2) {
+            int rowIndex = (Integer) results[i] + 1; // For error reporting
+            progress.rowParsed();
+            if (results[i + 1] instanceof RowFailure failure) {
+                log.error("Error processing row {}: {}", rowIndex, failure.cause().getMessage());
+                if (consumer.onFailure(rowIndex)) {
+                    response.incrementFailed();
+                    response.addError(rowIndex, ExcelDataImportException.columnOf(failure.cause()), failure.cause().getMessage());
+                    progress.rowFailed();
+                }
+            } else {
+                consumer.accept(rowIndex, (T) results[i + 1]);
+            }
+        }
+    }
+
+    private record RowFailure(Exception cause) {
+    }
+}
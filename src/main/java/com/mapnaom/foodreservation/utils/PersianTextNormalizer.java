@@ -0,0 +1,46 @@
+package com.mapnaom.foodreservation.utils;
+
+/**
+ * Normalizes Persian text so that names typed on Arabic and Persian keyboards compare equal:
+ * Arabic yeh (U+064A) becomes Persian yeh (U+06CC), Arabic kaf (U+0643) becomes keheh (U+06A9),
+ * and a zero-width non-joiner (U+200C) becomes a space. Leading and trailing whitespace is removed.
+ */
+public final class PersianTextNormalizer {
+
+    private static final char ARABIC_YEH = 'ي';
+    private static final char PERSIAN_YEH = 'ی';
+    private static final char ARABIC_KAF = 'ك';
+    private static final char KEHEH = 'ک';
+    private static final char ZWNJ = '\u200C';
+
+    private PersianTextNormalizer() {
+        // Prevent instantiation
+    }
+
+    /**
+     * @param text the text to normalize, may be null
+     * @return the normalized text, or null if {@code text} is null
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+        char[] chars = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char replacement = switch (c) {
+                case ARABIC_YEH -> PERSIAN_YEH;
+                case ARABIC_KAF -> KEHEH;
+                case ZWNJ -> ' ';
+                default -> c;
+            };
+            if (replacement != c) {
+                if (chars == null) {
+                    chars = text.toCharArray();
+                }
+                chars[i] = replacement;
+            }
+        }
+        return (chars == null ? text : new String(chars)).trim();
+    }
+}
@@ -0,0 +1,112 @@
+package com.mapnaom.foodreservation.utils;
+
+import com.mapnaom.foodreservation.enums.IdStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.OptimizableGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Properties;
+
+/**
+ * Id generator behind {@link GeneratedId}. Both strategies assign the id before the insert, which keeps
+ * Hibernate's JDBC insert batching enabled (unlike {@code IDENTITY} columns):
+ * <ul>
+ *     <li>{@link IdStrategy#POOLED_SEQUENCE} - one sequence per entity with the pooled optimizer, so only one
+ *     sequence call is needed per {@link GeneratedId#allocationSize()} inserts.</li>
+ *     <li>{@link IdStrategy#TIME_ORDERED} - {@link TimeOrderedIdGenerator} ids, no database round trip at all.
+ *     The node id is taken from {@code food-reservation.id.node-id}, or derived from the host name if not set.</li>
+ * </ul>
+ */
+@Slf4j
+public class PluggableIdGenerator implements IdentifierGenerator {
+
+    public static final String STRATEGY_SETTING = "food-reservation.id.strategy";
+    public static final String NODE_ID_SETTING = "food-reservation.id.node-id";
+
+    private static volatile TimeOrderedIdGenerator timeOrderedGenerator;
+
+    private final GeneratedId config;
+    private IdStrategy strategy;
+    private SequenceStyleGenerator sequenceGenerator;
+
+    public PluggableIdGenerator(GeneratedId config) {
+        this.config = config;
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        ConfigurationService configuration = serviceRegistry.requireService(ConfigurationService.class);
+        String strategySetting = configuration.getSetting(STRATEGY_SETTING, String.class, IdStrategy.POOLED_SEQUENCE.name());
+        strategy = IdStrategy.valueOf(strategySetting.trim().toUpperCase().replace('-', '_'));
+
+        if (strategy == IdStrategy.TIME_ORDERED) {
+            initTimeOrderedGenerator(configuration.getSetting(NODE_ID_SETTING, String.class, null));
+            return;
+        }
+
+        if (!config.sequenceName().isEmpty()) {
+            parameters.setProperty(SequenceStyleGenerator.SEQUENCE_PARAM, config.sequenceName());
+        }
+        parameters.setProperty(OptimizableGenerator.INCREMENT_PARAM, String.valueOf(config.allocationSize()));
+        parameters.setProperty(OptimizableGenerator.OPT_PARAM, "pooled");
+        sequenceGenerator = new SequenceStyleGenerator();
+        sequenceGenerator.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public void registerExportables(Database database) {
+        if (sequenceGenerator != null) {
+            sequenceGenerator.registerExportables(database);
+        }
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        if (sequenceGenerator != null) {
+            sequenceGenerator.initialize(context);
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        if (strategy == IdStrategy.TIME_ORDERED) {
+            return timeOrderedGenerator.nextId();
+        }
+        return sequenceGenerator.generate(session, object);
+    }
+
+    private static synchronized void initTimeOrderedGenerator(String nodeIdSetting) {
+        if (timeOrderedGenerator != null) {
+            return;
+        }
+        long nodeId = nodeIdSetting != null && !nodeIdSetting.isBlank()
+                ? Long.parseLong(nodeIdSetting.trim())
+                : hostNodeId();
+        timeOrderedGenerator = new TimeOrderedIdGenerator(nodeId);
+        log.info("Using time-ordered ids with node id {}", nodeId);
+    }
+
+    /**
+     * Derives a node id from the host name. Configure {@link #NODE_ID_SETTING} explicitly when running
+     * several instances, since two host names can hash to the same node id.
+     */
+    private static long hostNodeId() {
+        try {
+            return InetAddress.getLocalHost().getHostName().hashCode() & TimeOrderedIdGenerator.MAX_NODE_ID;
+        } catch (UnknownHostException e) {
+            log.warn("Could not resolve host name for the id node, using 0: {}", e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.mapnaom.foodreservation.utils;
+
+import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * A compiled description of how spreadsheet rows are bound to instances of a DTO class.
+ * <p>
+ * Plans are built once per class and cached in a {@link ClassValue}. All field paths are split,
+ * all fields are resolved to {@link MethodHandle} getters/setters and every leaf field gets its
+ * {@link CellConverter} up front, so binding a row does no reflection lookups or string splitting.
+ *
+ * @param <T> the DTO type
+ */
+public final class RowBindingPlan<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class);
+
+    private static final ClassValue<RowBindingPlan<?>> PLANS = new ClassValue<>() {
+        @Override
+        protected RowBindingPlan<?> computeValue(Class<?> type) {
+            return new RowBindingPlan<>(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final Node[] nodes;
+    private final Binding[] bindings;
+
+    /**
+     * Returns the cached plan for the given class, compiling it on first use.
+     *
+     * @param clazz the DTO class
+     * @param <T>   the DTO type
+     * @return the binding plan
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowBindingPlan<T> of(Class<T> clazz) {
+        return (RowBindingPlan<T>) PLANS.get(clazz);
+    }
+
+    private RowBindingPlan(Class<T> type) {
+        this.type = type;
+        this.constructor = factoryFor(type);
+
+        Map<String, Integer> nodeIndexes = new LinkedHashMap<>();
+        List<Node> nodeList = new ArrayList<>();
+        nodeList.add(new Node(-1, type, null, null, null, null, null));
+        nodeIndexes.put("", 0);
+
+        List<Binding> bindingList = new ArrayList<>();
+        for (Map.Entry<String, Field> entry : FieldProcessor.getFilteredFields(type).entrySet()) {
+            String[] parts = entry.getKey().split("\\.");
+            int parent = 0;
+            StringBuilder prefix = new StringBuilder();
+            for (int i = 0; i < parts.length - 1; i++) {
+                if (i > 0) {
+                    prefix.append('.');
+                }
+                prefix.append(parts[i]);
+                Integer existing = nodeIndexes.get(prefix.toString());
+                if (existing == null) {
+                    existing = nodeList.size();
+                    nodeList.add(compileNode(parent, nodeList.get(parent).valueType, parts[i]));
+                    nodeIndexes.put(prefix.toString(), existing);
+                }
+                parent = existing;
+            }
+            bindingList.add(compileBinding(entry.getKey(), parts[parts.length - 1], parent, entry.getValue()));
+        }
+
+        this.nodes = nodeList.toArray(new Node[0]);
+        this.bindings = bindingList.toArray(new Binding[0]);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Resolves the column index of every bound field against the header row of a sheet.
+     * A column is found by the field name or by the header given with {@link Excel} on the field, so exported
+     * sheets can be imported again. Fields marked {@link OptionalColumn} may be missing from the header; they are
+     * then never set.
+     *
+     * @param headerMap header names mapped to 0-based column indexes
+     * @return the plan bound to the columns of the sheet
+     */
+    public Bound bind(Map<String, Integer> headerMap) {
+        int[] columns = new int[bindings.length];
+        CellConverter[] converters = new CellConverter[bindings.length];
+        BitSet wanted = new BitSet();
+        String missingHeader = null;
+        for (int i = 0; i < bindings.length; i++) {
+            Integer column = headerMap.get(bindings[i].leafName);
+            if (column == null && bindings[i].header != null) {
+                column = headerMap.get(bindings[i].header);
+            }
+            if (column == null) {
+                columns[i] = -1;
+                if (missingHeader == null && !bindings[i].optional) {
+                    missingHeader = bindings[i].leafName;
+                }
+            } else {
+                columns[i] = column;
+                converters[i] = bindings[i].converter;
+                wanted.set(column);
+            }
+        }
+        return new Bound(columns, converters, wanted, missingHeader);
+    }
+
+    /**
+     * A binding plan whose field bindings have been resolved to the columns of one sheet.
+     */
+    public final class Bound {
+
+        private final int[] columns;
+        /** Converter of each binding, or null if its column is missing from the sheet. */
+        private final CellConverter[] converters;
+        private final BitSet wantedColumns;
+        private final String missingHeader;
+
+        private Bound(int[] columns, CellConverter[] converters, BitSet wantedColumns, String missingHeader) {
+            this.columns = columns;
+            this.converters = converters;
+            this.wantedColumns = wantedColumns;
+            this.missingHeader = missingHeader;
+        }
+
+        public boolean wantsColumn(int column) {
+            return wantedColumns.get(column);
+        }
+
+        /**
+         * Creates a new instance and populates it from the given row.
+         *
+         * @param row the row to bind
+         * @return the populated instance
+         * @throws ExcelDataImportException if a header is missing or a cell cannot be converted
+         */
+        @SuppressWarnings("unchecked")
+        public T bindRow(StreamedRow row) throws ExcelDataImportException {
+            if (missingHeader != null) {
+                throw new ExcelDataImportException("Missing header for field: " + missingHeader);
+            }
+
+            Object[] slots = new Object[nodes.length];
+            Object[] collections = new Object[nodes.length];
+            try {
+                slots[0] = constructor.invokeExact();
+            } catch (Throwable e) {
+                throw new ExcelDataImportException("Failed to instantiate " + type.getName() + ": " + e.getMessage());
+            }
+
+            for (int i = 0; i < bindings.length; i++) {
+                int column = columns[i];
+                CellConverter converter = converters[i];
+                if (converter == null || row.isBlank(column)) {
+                    continue;
+                }
+                Object value;
+                try {
+                    value = converter.convert(row, column);
+                } catch (ExcelDataImportException e) {
+                    throw e.atColumn(column);
+                } catch (Exception e) {
+                    throw new ExcelDataImportException(e, "Error parsing cell value: " + e.getMessage()).atColumn(column);
+                }
+                if (value != null) {
+                    Binding binding = bindings[i];
+                    binding.assign(resolve(binding.parent, slots, collections), value);
+                }
+            }
+
+            // Elements are added only once populated, so hash-based collections see their final hashCode.
+            // Deeper nodes have higher indexes and are added before their parents.
+            for (int i = nodes.length - 1; i > 0; i--) {
+                if (collections[i] != null) {
+                    ((Collection<Object>) collections[i]).add(slots[i]);
+                }
+            }
+            return (T) slots[0];
+        }
+    }
+
+    /**
+     * Returns the object a node stands for in the current row, creating it (and any missing ancestors) on demand.
+     * Collection nodes get one new element per row, which is remembered in {@code collections} and added later.
+     */
+    private Object resolve(int index, Object[] slots, Object[] collections) {
+        Object current = slots[index];
+        if (current != null) {
+            return current;
+        }
+        Node node = nodes[index];
+        Object parent = resolve(node.parent, slots, collections);
+        try {
+            Object value = node.getter.invokeExact(parent);
+            if (node.collectionFactory != null) {
+                if (value == null) {
+                    value = node.collectionFactory.invokeExact();
+                    node.setter.invokeExact(parent, value);
+                }
+                collections[index] = value;
+                current = node.factory.invokeExact();
+            } else {
+                if (value == null) {
+                    value = node.factory.invokeExact();
+                    node.setter.invokeExact(parent, value);
+                }
+                current = value;
+            }
+        } catch (Throwable e) {
+            throw new ExcelDataImportException("Failed to create nested value for " + node.valueType.getName() + ": " + e.getMessage());
+        }
+        slots[index] = current;
+        return current;
+    }
+
+    private static Node compileNode(int parent, Class<?> owner, String fieldName) {
+        Field field = findField(owner, fieldName);
+        Class<?> fieldType = field.getType();
+        if (Collection.class.isAssignableFrom(fieldType)) {
+            Class<?> elementType = elementType(field);
+            return new Node(parent, elementType, field, getter(field), setter(field),
+                    factoryFor(elementType), collectionFactoryFor(fieldType));
+        }
+        return new Node(parent, fieldType, field, getter(field), setter(field), factoryFor(fieldType), null);
+    }
+
+    private static Binding compileBinding(String fieldPath, String leafName, int parent, Field field) {
+        Class<?> fieldType = field.getType();
+        String header = field.isAnnotationPresent(Excel.class) ? ExcelExportPlan.headerOf(field) : null;
+        if (Collection.class.isAssignableFrom(fieldType)) {
+            Class<?> elementType = elementType(field);
+            return new Binding(fieldPath, leafName, header, parent, converterFor(elementType), field.isAnnotationPresent(OptionalColumn.class),
+                    getter(field), setter(field), collectionFactoryFor(fieldType));
+        }
+        return new Binding(fieldPath, leafName, header, parent, converterFor(fieldType), field.isAnnotationPresent(OptionalColumn.class),
+                null, setter(field), null);
+    }
+
+    private static Field findField(Class<?> owner, String name) {
+        try {
+            return owner.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new ExcelDataImportException(e, "No field '" + name + "' in " + owner.getName());
+        }
+    }
+
+    private static Class<?> elementType(Field field) {
+        Type genericType = field.getGenericType();
+        if (genericType instanceof ParameterizedType pt) {
+            Type[] actualTypeArguments = pt.getActualTypeArguments();
+            if (actualTypeArguments.length == 1 && actualTypeArguments[0] instanceof Class<?> elementClass) {
+                return elementClass;
+            }
+        }
+        return Object.class;
+    }
+
+    private static MethodHandle getter(Field field) {
+        try {
+            field.setAccessible(true);
+            return LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new ExcelDataImportException(e, "Cannot access field " + field.getName());
+        }
+    }
+
+    private static MethodHandle setter(Field field) {
+        try {
+            field.setAccessible(true);
+            return LOOKUP.unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new ExcelDataImportException(e, "Cannot access field " + field.getName());
+        }
+    }
+
+    private static MethodHandle factoryFor(Class<?> clazz) {
+        try {
+            var constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return LOOKUP.unreflectConstructor(constructor).asType(FACTORY_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExcelDataImportException(e, "No accessible no-arg constructor for " + clazz.getName());
+        }
+    }
+
+    private static MethodHandle collectionFactoryFor(Class<?> collectionType) {
+        if (collectionType.isInterface()) {
+            if (List.class.isAssignableFrom(collectionType)) {
+                return factoryFor(ArrayList.class);
+            } else if (Set.class.isAssignableFrom(collectionType)) {
+                return factoryFor(LinkedHashSet.class);
+            }
+            throw new ExcelDataImportException("Unsupported collection type: " + collectionType.getName());
+        }
+        return factoryFor(collectionType);
+    }
+
+    /**
+     * Selects the converter for a field type once, when the plan is compiled.
+     */
+    static CellConverter converterFor(Class<?> type) {
+        return CellConverters.forType(type);
+    }
+
+    /**
+     * An intermediate object on a field path, e.g. the {@code FoodOptionDto} element of {@code foodOptions.price}.
+     */
+    private record Node(int parent, Class<?> valueType, Field field, MethodHandle getter, MethodHandle setter,
+                        MethodHandle factory, MethodHandle collectionFactory) {
+    }
+
+    /**
+     * A leaf field bound to one column; {@code header} is its {@link Excel} header, or null if it has none.
+     */
+    private record Binding(String fieldPath, String leafName, String header, int parent, CellConverter converter, boolean optional,
+                           MethodHandle getter, MethodHandle setter, MethodHandle collectionFactory) {
+
+        void assign(Object target, Object value) {
+            try {
+                if (collectionFactory == null) {
+                    setter.invokeExact(target, value);
+                    return;
+                }
+                // Leaf collections of simple values: append the cell value
+                Object collection = getter.invokeExact(target);
+                if (collection == null) {
+                    collection = collectionFactory.invokeExact();
+                    setter.invokeExact(target, collection);
+                }
+                @SuppressWarnings("unchecked")
+                Collection<Object> values = (Collection<Object>) collection;
+                values.add(value);
+            } catch (Throwable e) {
+                throw new ExcelDataImportException("Failed to set field " + fieldPath + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.mapnaom.foodreservation.utils;
+
+import java.io.IOException;
+
+/**
+ * A forward-only source of spreadsheet rows that pushes each row to a {@link StreamedRowHandler}.
+ */
+public interface RowSource {
+
+    /**
+     * Reads all rows of the source and passes them to the handler.
+     *
+     * @param handler the row callback
+     * @throws IOException if the underlying file cannot be read
+     */
+    void read(StreamedRowHandler handler) throws IOException;
+}
@@ -0,0 +1,144 @@
+package com.mapnaom.foodreservation.utils;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A lightweight, reusable view over a single spreadsheet row produced by a streaming reader.
+ * The same instance is refilled for every row, so handlers must copy any values they keep.
+ */
+public final class StreamedRow {
+
+    public enum CellKind {
+        BLANK, STRING, NUMERIC, BOOLEAN, ERROR
+    }
+
+    private int rowNum;
+    private int lastColumn = -1;
+    private CellKind[] kinds;
+    private String[] strings;
+    private double[] numbers;
+    private boolean[] dateFormatted;
+
+    public StreamedRow() {
+        this(16);
+    }
+
+    private StreamedRow(int capacity) {
+        capacity = Math.max(capacity, 1);
+        kinds = new CellKind[capacity];
+        strings = new String[capacity];
+        numbers = new double[capacity];
+        dateFormatted = new boolean[capacity];
+        Arrays.fill(kinds, CellKind.BLANK);
+    }
+
+    /**
+     * Clears the cells of the previous row and prepares the instance for the given row.
+     *
+     * @param rowNum the 0-based row index in the sheet
+     */
+    public void reset(int rowNum) {
+        for (int i = 0; i <= lastColumn; i++) {
+            kinds[i] = CellKind.BLANK;
+            strings[i] = null;
+            dateFormatted[i] = false;
+        }
+        this.rowNum = rowNum;
+        this.lastColumn = -1;
+    }
+
+    public void setString(int column, String value) {
+        ensureCapacity(column);
+        kinds[column] = CellKind.STRING;
+        strings[column] = value;
+    }
+
+    public void setNumeric(int column, double value, boolean isDateFormatted) {
+        ensureCapacity(column);
+        kinds[column] = CellKind.NUMERIC;
+        numbers[column] = value;
+        dateFormatted[column] = isDateFormatted;
+    }
+
+    public void setBoolean(int column, boolean value) {
+        ensureCapacity(column);
+        kinds[column] = CellKind.BOOLEAN;
+        numbers[column] = value ? 1 : 0;
+    }
+
+    public void setError(int column, String value) {
+        ensureCapacity(column);
+        kinds[column] = CellKind.ERROR;
+        strings[column] = value;
+    }
+
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    public int getLastColumn() {
+        return lastColumn;
+    }
+
+    public CellKind getKind(int column) {
+        return column < 0 || column > lastColumn ? CellKind.BLANK : kinds[column];
+    }
+
+    public boolean isBlank(int column) {
+        return getKind(column) == CellKind.BLANK;
+    }
+
+    public String getString(int column) {
+        return column < 0 || column > lastColumn ? null : strings[column];
+    }
+
+    public double getNumeric(int column) {
+        return numbers[column];
+    }
+
+    public boolean getBoolean(int column) {
+        return numbers[column] != 0;
+    }
+
+    public boolean isDateFormatted(int column) {
+        return getKind(column) == CellKind.NUMERIC && dateFormatted[column];
+    }
+
+    public Date getDate(int column) {
+        return DateUtil.getJavaDate(numbers[column]);
+    }
+
+    /**
+     * Returns an independent copy of this row, sized to its last column, that is safe to hand to another thread.
+     *
+     * @return the copy
+     */
+    public StreamedRow copy() {
+        StreamedRow copy = new StreamedRow(lastColumn + 1);
+        copy.rowNum = rowNum;
+        copy.lastColumn = lastColumn;
+        System.arraycopy(kinds, 0, copy.kinds, 0, lastColumn + 1);
+        System.arraycopy(strings, 0, copy.strings, 0, lastColumn + 1);
+        System.arraycopy(numbers, 0, copy.numbers, 0, lastColumn + 1);
+        System.arraycopy(dateFormatted, 0, copy.dateFormatted, 0, lastColumn + 1);
+        return copy;
+    }
+
+    private void ensureCapacity(int column) {
+        if (column >= kinds.length) {
+            int newLength = Math.max(column + 1, kinds.length * 2);
+            int oldLength = kinds.length;
+            kinds = Arrays.copyOf(kinds, newLength);
+            Arrays.fill(kinds, oldLength, newLength, CellKind.BLANK);
+            strings = Arrays.copyOf(strings, newLength);
+            numbers = Arrays.copyOf(numbers, newLength);
+            dateFormatted = Arrays.copyOf(dateFormatted, newLength);
+        }
+        if (column > lastColumn) {
+            lastColumn = column;
+        }
+    }
+}
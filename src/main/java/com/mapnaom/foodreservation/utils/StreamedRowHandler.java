@@ -0,0 +1,37 @@
+package com.mapnaom.foodreservation.utils;
+
+import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+
+/**
+ * Callback invoked by a {@link RowSource} for every non-empty row of a sheet, in sheet order.
+ */
+@FunctionalInterface
+public interface StreamedRowHandler {
+
+    /**
+     * Handles one row. The passed instance is reused by the reader for the next row.
+     *
+     * @param row the current row
+     * @throws ExcelDataImportException if the row cannot be handled
+     */
+    void handleRow(StreamedRow row) throws ExcelDataImportException;
+
+    /**
+     * Lets the reader skip decoding cells the handler is not interested in.
+     *
+     * @param column the 0-based column index
+     * @return true if the value of the column should be decoded
+     */
+    default boolean wantsColumn(int column) {
+        return true;
+    }
+
+    /**
+     * Lets the handler end the read early, e.g. once a preview has seen enough rows. Checked after every row.
+     *
+     * @return true if the reader should stop without reading the remaining rows
+     */
+    default boolean isDone() {
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package com.mapnaom.foodreservation.utils;
+
+/**
+ * Bounded intern table for the text cells of one import, so a value that repeats on thousands of rows, such as a
+ * branch or food name, is held by all DTOs as a single {@code String} instance.
+ * <p>
+ * Lookups compare the characters of the (trimmed) cell in place, so a value that is already in the table costs no
+ * allocation at all. The table stops growing at {@code maxEntries}, and values longer than {@code maxLength} are
+ * never interned, because long free text rarely repeats; both simply get a new string as before.
+ * <p>
+ * Not thread-safe; readers keep one instance per read.
+ */
+public final class StringInterner {
+
+    public static final int DEFAULT_MAX_ENTRIES = 8192;
+    public static final int DEFAULT_MAX_LENGTH = 128;
+
+    private final int maxEntries;
+    private final int maxLength;
+    private String[] table;
+    private int size;
+
+    public StringInterner() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * @param maxEntries the maximum number of distinct values to keep
+     * @param maxLength  the maximum length of a value to intern
+     */
+    public StringInterner(int maxEntries, int maxLength) {
+        this.maxEntries = maxEntries;
+        this.maxLength = maxLength;
+        this.table = new String[64];
+    }
+
+    /**
+     * Returns the trimmed value, as the instance kept from an earlier equal value if there is one.
+     *
+     * @param value the value
+     * @return the trimmed, interned value
+     */
+    public String intern(String value) {
+        return intern(value, 0, value.length());
+    }
+
+    /**
+     * Returns the characters {@code start} to {@code end} of {@code chars}, trimmed like {@link String#trim()},
+     * as the instance kept from an earlier equal value if there is one.
+     *
+     * @param chars the characters, e.g. the reader's cell buffer
+     * @param start the first character
+     * @param end   the end of the value, exclusive
+     * @return the trimmed, interned value
+     */
+    public String intern(CharSequence chars, int start, int end) {
+        while (start < end && chars.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && chars.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int length = end - start;
+        if (length == 0) {
+            return "";
+        }
+        if (length > maxLength) {
+            return chars.subSequence(start, end).toString();
+        }
+
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        for (String candidate = table[slot]; candidate != null; candidate = table[slot]) {
+            if (candidate.hashCode() == hash && contentEquals(candidate, chars, start, length)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        String value = chars instanceof String text && start == 0 && end == text.length()
+                ? text
+                : chars.subSequence(start, end).toString();
+        if (size < maxEntries) {
+            table[slot] = value;
+            if (++size * 2 > table.length) {
+                grow();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return the number of distinct values kept
+     */
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        String[] old = table;
+        table = new String[old.length * 2];
+        int mask = table.length - 1;
+        for (String value : old) {
+            if (value != null) {
+                int slot = spread(value.hashCode()) & mask;
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+
+    private static boolean contentEquals(String candidate, CharSequence chars, int start, int length) {
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != chars.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,157 @@
+package com.mapnaom.foodreservation.utils;
+
+import org.apache.poi.ss.usermodel.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The cell styles and fonts of one workbook, interned by their attributes.
+ * <p>
+ * A workbook holds at most 64000 cell styles, and every style and font created is written to {@code styles.xml}
+ * whether it is used or not. Creating a style per cell therefore fails on large sheets and bloats small ones.
+ * This registry creates each distinct {@link Spec} (and each distinct font and number format) once per workbook and
+ * hands out the same instance afterwards, so an export uses a handful of styles however many cells it writes.
+ * <p>
+ * Styles handed out are shared and must not be modified; ask for a different {@link Spec} instead.
+ * A registry is not thread-safe, like the workbook it belongs to.
+ */
+public final class WorkbookStyles {
+
+    public static final String FONT_NAME = "B Nazanin";
+    public static final short FONT_HEIGHT_IN_POINTS = 11;
+    public static final String MONETARY_FORMAT = "#,##0";
+
+    /**
+     * The attributes of a cell style. Equal specs share one style in a workbook.
+     *
+     * @param fontName             the font name
+     * @param fontHeightInPoints   the font size
+     * @param bold                 whether the font is bold
+     * @param border               the style of all four borders
+     * @param alignment            the horizontal alignment
+     * @param verticalAlignment    the vertical alignment
+     * @param dataFormat           the number format, e.g. {@code #,##0}, or null for the general format
+     * @param fillColor            the solid fill color, or null for no fill
+     */
+    public record Spec(String fontName, short fontHeightInPoints, boolean bold, BorderStyle border,
+                       HorizontalAlignment alignment, VerticalAlignment verticalAlignment, String dataFormat,
+                       IndexedColors fillColor) {
+
+        public Spec withBold(boolean bold) {
+            return new Spec(fontName, fontHeightInPoints, bold, border, alignment, verticalAlignment, dataFormat, fillColor);
+        }
+
+        public Spec withDataFormat(String dataFormat) {
+            return new Spec(fontName, fontHeightInPoints, bold, border, alignment, verticalAlignment, dataFormat, fillColor);
+        }
+
+        public Spec withFill(IndexedColors fillColor) {
+            return new Spec(fontName, fontHeightInPoints, bold, border, alignment, verticalAlignment, dataFormat, fillColor);
+        }
+    }
+
+    /**
+     * The named styles of the application's sheets.
+     */
+    public enum Theme {
+        /** Bold, centered, on a light blue fill. */
+        HEADER(bodySpec().withBold(true).withFill(IndexedColors.LIGHT_BLUE)),
+        /** Centered, with thin borders. */
+        BODY(bodySpec()),
+        /** A body cell with thousands separators and no decimals. */
+        MONETARY(bodySpec().withDataFormat(MONETARY_FORMAT)),
+        /** A body cell holding a Jalali date as text, e.g. {@code 1402/10/15}, which Excel must not parse. */
+        JALALI_DATE(bodySpec().withDataFormat("@"));
+
+        private final Spec spec;
+
+        Theme(Spec spec) {
+            this.spec = spec;
+        }
+
+        public Spec getSpec() {
+            return spec;
+        }
+    }
+
+    private record FontKey(String name, short heightInPoints, boolean bold) {
+    }
+
+    private final Workbook workbook;
+    private final Map<Spec, CellStyle> styles = new HashMap<>();
+    private final Map<FontKey, Font> fonts = new HashMap<>();
+    private DataFormat dataFormat;
+
+    public WorkbookStyles(Workbook workbook) {
+        this.workbook = workbook;
+    }
+
+    public Workbook getWorkbook() {
+        return workbook;
+    }
+
+    /**
+     * @param theme the theme
+     * @return the shared style of the theme in this workbook
+     */
+    public CellStyle style(Theme theme) {
+        return style(theme.spec);
+    }
+
+    /**
+     * @param spec the style attributes
+     * @return the shared style with these attributes, created on first use
+     */
+    public CellStyle style(Spec spec) {
+        CellStyle style = styles.get(spec);
+        if (style == null) {
+            style = createStyle(spec);
+            styles.put(spec, style);
+        }
+        return style;
+    }
+
+    /**
+     * @param name           the font name
+     * @param heightInPoints the font size
+     * @param bold           whether the font is bold
+     * @return the shared font with these attributes, created on first use
+     */
+    public Font font(String name, short heightInPoints, boolean bold) {
+        return fonts.computeIfAbsent(new FontKey(name, heightInPoints, bold), key -> {
+            Font font = workbook.createFont();
+            font.setFontName(key.name());
+            font.setFontHeightInPoints(key.heightInPoints());
+            font.setBold(key.bold());
+            return font;
+        });
+    }
+
+    private CellStyle createStyle(Spec spec) {
+        CellStyle style = workbook.createCellStyle();
+        style.setAlignment(spec.alignment());
+        style.setVerticalAlignment(spec.verticalAlignment());
+        style.setFont(font(spec.fontName(), spec.fontHeightInPoints(), spec.bold()));
+        style.setBorderTop(spec.border());
+        style.setBorderBottom(spec.border());
+        style.setBorderLeft(spec.border());
+        style.setBorderRight(spec.border());
+        if (spec.dataFormat() != null) {
+            if (dataFormat == null) {
+                dataFormat = workbook.createDataFormat();
+            }
+            style.setDataFormat(dataFormat.getFormat(spec.dataFormat()));
+        }
+        if (spec.fillColor() != null) {
+            style.setFillForegroundColor(spec.fillColor().getIndex());
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        }
+        return style;
+    }
+
+    private static Spec bodySpec() {
+        return new Spec(FONT_NAME, FONT_HEIGHT_IN_POINTS, false, BorderStyle.THIN, HorizontalAlignment.CENTER,
+                VerticalAlignment.CENTER, null, null);
+    }
+}
@@ -0,0 +1,265 @@
+package com.mapnaom.foodreservation.utils;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.util.RecordFormatException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads one sheet of a legacy XLS (BIFF8) file with the HSSF event model, by default the first. Records are parsed
+ * one at a time from the memory-mapped file and only the shared-strings table is kept, so memory use does not grow
+ * with the row count, as with {@link XlsxStreamingReader}.
+ * <p>
+ * Cells are collected into a row until a cell of the next row arrives; rows without cells are not emitted. Text cells
+ * are deduplicated the same way as in the XLSX reader.
+ */
+public class XlsStreamingReader implements RowSource {
+
+    private static final short CONTINUE = 0;
+    private static final short ABORT = 1;
+
+    private final Path path;
+    private final String sheetName;
+
+    public XlsStreamingReader(Path path) {
+        this(path, null);
+    }
+
+    /**
+     * @param path      the XLS file
+     * @param sheetName the sheet to read, compared ignoring case, or null for the first sheet
+     */
+    public XlsStreamingReader(Path path, String sheetName) {
+        this.path = path;
+        this.sheetName = sheetName;
+    }
+
+    /**
+     * Lists the sheet names of an XLS file in workbook order, without parsing any sheet.
+     *
+     * @param path the XLS file
+     * @return the sheet names
+     * @throws IOException if the file cannot be read
+     */
+    public static List<String> sheetNames(Path path) throws IOException {
+        List<String> names = new ArrayList<>();
+        process(path, new AbortableHSSFListener() {
+            @Override
+            public short abortableProcessRecord(Record record) {
+                if (record instanceof BoundSheetRecord sheet) {
+                    names.add(sheet.getSheetname());
+                }
+                // The sheet list is complete once the workbook globals end
+                return record instanceof EOFRecord ? ABORT : CONTINUE;
+            }
+        });
+        return names;
+    }
+
+    @Override
+    public void read(StreamedRowHandler handler) throws IOException {
+        process(path, new SheetListener(sheetName, handler));
+    }
+
+    private static void process(Path path, AbortableHSSFListener listener) throws IOException {
+        try (POIFSFileSystem fileSystem = new POIFSFileSystem(path.toFile(), true)) {
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(listener);
+            new HSSFEventFactory().abortableProcessWorkbookEvents(request, fileSystem);
+        } catch (HSSFUserException | RecordFormatException | IllegalArgumentException e) {
+            throw new IOException("Failed to parse XLS file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Record listener for the whole workbook stream. Collects the sheet list and the shared strings from the workbook
+     * globals, then decodes the cells of the wanted sheet only and stops at its end.
+     */
+    private static final class SheetListener extends AbortableHSSFListener {
+
+        private final String sheetName;
+        private final StreamedRowHandler handler;
+        private final StreamedRow row = new StreamedRow();
+        private final StringInterner interner = new StringInterner();
+        // Tracks number formats, so numeric cells can be told apart from dates; fed by this listener
+        private final FormatTrackingHSSFListener formats = new FormatTrackingHSSFListener(null);
+        private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+
+        private BoundSheetRecord[] sheetsInStreamOrder;
+        private SSTRecord sharedStrings;
+        private String[] sharedStringCache;
+        // Cached "is a date format" flag per extended format index: 0 = unknown, 1 = date, 2 = not a date
+        private byte[] dateFormats = new byte[64];
+
+        /** Nesting of BOF/EOF substreams; sheets are at depth 1, charts embedded in them deeper. */
+        private int depth;
+        private int sheetIndex = -1;
+        private boolean inWantedSheet;
+        private int currentRow = -1;
+        /** Column of a string formula whose value follows in a StringRecord, or -1. */
+        private int pendingStringColumn = -1;
+
+        SheetListener(String sheetName, StreamedRowHandler handler) {
+            this.sheetName = sheetName;
+            this.handler = handler;
+        }
+
+        @Override
+        public short abortableProcessRecord(Record record) {
+            formats.processRecordInternally(record);
+            if (record instanceof BOFRecord bof) {
+                depth++;
+                if (depth == 1 && bof.getType() != BOFRecord.TYPE_WORKBOOK) {
+                    sheetIndex++;
+                    inWantedSheet = isWanted(currentSheetName());
+                }
+            } else if (record instanceof EOFRecord) {
+                depth--;
+                if (depth == 0 && inWantedSheet) {
+                    flushRow();
+                    return ABORT;
+                }
+            } else if (record instanceof BoundSheetRecord sheet) {
+                boundSheets.add(sheet);
+            } else if (record instanceof SSTRecord sst) {
+                sharedStrings = sst;
+                sharedStringCache = new String[sst.getNumUniqueStrings()];
+            } else if (inWantedSheet && depth == 1) {
+                return processCell(record);
+            }
+            return CONTINUE;
+        }
+
+        private short processCell(Record record) {
+            if (record instanceof StringRecord string) {
+                // Cached text result of the string formula just before it
+                if (pendingStringColumn >= 0) {
+                    row.setString(pendingStringColumn, interner.intern(string.getString()));
+                    pendingStringColumn = -1;
+                }
+                return CONTINUE;
+            }
+            if (!(record instanceof CellValueRecordInterface cell)) {
+                return CONTINUE;
+            }
+            pendingStringColumn = -1;
+            if (cell.getRow() != currentRow) {
+                if (flushRow() == ABORT) {
+                    return ABORT;
+                }
+                currentRow = cell.getRow();
+                row.reset(currentRow);
+            }
+            int column = cell.getColumn();
+            if (!handler.wantsColumn(column)) {
+                return CONTINUE;
+            }
+            if (record instanceof LabelSSTRecord label) {
+                row.setString(column, sharedString(label.getSSTIndex()));
+            } else if (record instanceof LabelRecord label) {
+                row.setString(column, interner.intern(label.getValue()));
+            } else if (record instanceof NumberRecord number) {
+                row.setNumeric(column, number.getValue(), isDateFormat(cell));
+            } else if (record instanceof BoolErrRecord boolErr) {
+                if (boolErr.isBoolean()) {
+                    row.setBoolean(column, boolErr.getBooleanValue());
+                } else {
+                    row.setError(column, FormulaError.forInt(boolErr.getErrorValue()).getString());
+                }
+            } else if (record instanceof FormulaRecord formula) {
+                decodeFormula(formula, column);
+            }
+            // Blank cells stay blank
+            return CONTINUE;
+        }
+
+        private void decodeFormula(FormulaRecord formula, int column) {
+            switch (formula.getCachedResultTypeEnum()) {
+                case NUMERIC -> row.setNumeric(column, formula.getValue(), isDateFormat(formula));
+                case BOOLEAN -> row.setBoolean(column, formula.getCachedBooleanValue());
+                case ERROR -> row.setError(column, FormulaError.forInt(formula.getCachedErrorValue()).getString());
+                case STRING -> pendingStringColumn = column;
+                default -> {
+                    // Empty result
+                }
+            }
+        }
+
+        /**
+         * Emits the collected row, if any.
+         *
+         * @return {@link #ABORT} if the handler needs no more rows
+         */
+        private short flushRow() {
+            if (currentRow < 0) {
+                return CONTINUE;
+            }
+            currentRow = -1;
+            handler.handleRow(row);
+            return handler.isDone() ? ABORT : CONTINUE;
+        }
+
+        private String currentSheetName() {
+            if (sheetsInStreamOrder == null) {
+                // Sheets follow the workbook globals in the order of their BOF offsets, not of the sheet list
+                sheetsInStreamOrder = BoundSheetRecord.orderByBofPosition(boundSheets);
+            }
+            return sheetIndex < sheetsInStreamOrder.length ? sheetsInStreamOrder[sheetIndex].getSheetname() : null;
+        }
+
+        private boolean isWanted(String name) {
+            if (sheetName != null) {
+                return sheetName.equalsIgnoreCase(name);
+            }
+            // Without a name, read the first sheet in workbook order
+            return !boundSheets.isEmpty() && boundSheets.get(0).getSheetname().equals(name);
+        }
+
+        private String sharedString(int index) {
+            if (index >= sharedStringCache.length) {
+                return interner.intern(sharedStrings.getString(index).getString());
+            }
+            String text = sharedStringCache[index];
+            if (text == null) {
+                text = interner.intern(sharedStrings.getString(index).getString());
+                sharedStringCache[index] = text;
+            }
+            return text;
+        }
+
+        private boolean isDateFormat(CellValueRecordInterface cell) {
+            int index = cell.getXFIndex();
+            if (index >= dateFormats.length) {
+                dateFormats = Arrays.copyOf(dateFormats, Math.max(index + 1, dateFormats.length * 2));
+            }
+            if (dateFormats[index] == 0) {
+                boolean date = DateUtil.isADateFormat(formats.getFormatIndex(cell), formats.getFormatString(cell));
+                dateFormats[index] = date ? (byte) 1 : (byte) 2;
+            }
+            return dateFormats[index] == 1;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.mapnaom.foodreservation.utils;
+
+import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads one sheet of an XLSX file with the XSSF event model, by default the first. Only the shared-strings
+ * table is kept in memory; sheet rows are parsed one at a time, so memory use does not grow with the row count.
+ * <p>
+ * Text cells are deduplicated for the whole read: a shared string is decoded once per shared-strings index and the
+ * same instance is handed out for every cell that refers to it, and inline strings go through a
+ * {@link StringInterner}, so a value repeated on thousands of rows is held by the DTOs only once.
+ */
+public class XlsxStreamingReader implements RowSource {
+
+    private final Path path;
+    private final String sheetName;
+
+    public XlsxStreamingReader(Path path) {
+        this(path, null);
+    }
+
+    /**
+     * @param path      the XLSX file
+     * @param sheetName the sheet to read, compared ignoring case, or null for the first sheet
+     */
+    public XlsxStreamingReader(Path path, String sheetName) {
+        this.path = path;
+        this.sheetName = sheetName;
+    }
+
+    /**
+     * Lists the sheet names of an XLSX file in workbook order, without parsing any sheet.
+     *
+     * @param path the XLSX file
+     * @return the sheet names
+     * @throws IOException if the file cannot be read
+     */
+    public static List<String> sheetNames(Path path) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(path.toFile(), PackageAccess.READ)) {
+            List<String> names = new ArrayList<>();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                names.add(sheets.getSheetName());
+            }
+            return names;
+        } catch (OpenXML4JException e) {
+            throw new IOException("Failed to parse XLSX file: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void read(StreamedRowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(path.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    if (sheetName != null && !sheetName.equalsIgnoreCase(sheets.getSheetName())) {
+                        continue;
+                    }
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new SheetHandler(sharedStrings, styles, handler));
+                    parser.parse(new InputSource(sheet));
+                    return;
+                } catch (StopReading e) {
+                    return;
+                }
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            if (e.getCause() instanceof ExcelDataImportException importException) {
+                throw importException;
+            }
+            throw new IOException("Failed to parse XLSX file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * SAX handler for a worksheet part. Decodes only the cells the row handler asks for.
+     */
+    private static final class SheetHandler extends DefaultHandler {
+
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final StreamedRowHandler handler;
+        private final StreamedRow row = new StreamedRow();
+        private final StringBuilder value = new StringBuilder();
+        private final StringInterner interner = new StringInterner();
+
+        // Trimmed shared strings by index, decoded on first use
+        private String[] sharedStringCache;
+
+        // Cached "is a date format" flag per style index: 0 = unknown, 1 = date, 2 = not a date
+        private byte[] dateStyles = new byte[64];
+
+        private int nextRowNum;
+        private int column;
+        private String cellType;
+        private int styleIndex;
+        private boolean wanted;
+        private boolean capturing;
+
+        SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, StreamedRowHandler handler) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attributes.getValue("r");
+                    int rowNum = r != null ? Integer.parseInt(r) - 1 : nextRowNum;
+                    nextRowNum = rowNum + 1;
+                    row.reset(rowNum);
+                    column = -1;
+                }
+                case "c" -> {
+                    String ref = attributes.getValue("r");
+                    column = ref != null ? columnIndex(ref) : column + 1;
+                    cellType = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    styleIndex = s != null ? Integer.parseInt(s) : 0;
+                    wanted = handler.wantsColumn(column);
+                    value.setLength(0);
+                }
+                case "v", "t" -> capturing = wanted;
+                default -> {
+                    // Other elements (formulas, rich-text runs, etc.) carry nothing we need
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (capturing) {
+                value.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v", "t" -> capturing = false;
+                case "c" -> {
+                    if (wanted && !value.isEmpty()) {
+                        decodeCell();
+                    }
+                }
+                case "row" -> {
+                    try {
+                        handler.handleRow(row);
+                    } catch (ExcelDataImportException e) {
+                        throw new SAXException(e);
+                    }
+                    if (handler.isDone()) {
+                        throw new StopReading();
+                    }
+                }
+                default -> {
+                    // Nothing to do
+                }
+            }
+        }
+
+        private void decodeCell() {
+            if (cellType == null || "n".equals(cellType)) {
+                row.setNumeric(column, Double.parseDouble(value.toString()), isDateStyle(styleIndex));
+                return;
+            }
+            switch (cellType) {
+                case "s" -> row.setString(column, sharedString(sharedStringIndex()));
+                case "inlineStr", "str" -> row.setString(column, interner.intern(value, 0, value.length()));
+                case "b" -> row.setBoolean(column, value.charAt(0) == '1');
+                case "e" -> row.setError(column, value.toString());
+                default -> row.setString(column, interner.intern(value, 0, value.length()));
+            }
+        }
+
+        private String sharedString(int index) {
+            if (sharedStringCache == null) {
+                sharedStringCache = new String[Math.max(sharedStrings.getUniqueCount(), 0)];
+            }
+            if (index >= sharedStringCache.length) {
+                // Table smaller than the cells claim; decode without caching and let POI report a bad index
+                return sharedStrings.getItemAt(index).getString().trim();
+            }
+            String text = sharedStringCache[index];
+            if (text == null) {
+                text = interner.intern(sharedStrings.getItemAt(index).getString());
+                sharedStringCache[index] = text;
+            }
+            return text;
+        }
+
+        /**
+         * Parses the captured value as a shared-strings index without creating a string for it.
+         */
+        private int sharedStringIndex() {
+            int index = 0;
+            for (int i = 0; i < value.length(); i++) {
+                int digit = value.charAt(i) - '0';
+                if (digit < 0 || digit > 9 || index > (Integer.MAX_VALUE - digit) / 10) {
+                    throw new NumberFormatException("Invalid shared string index: " + value);
+                }
+                index = index * 10 + digit;
+            }
+            return index;
+        }
+
+        private boolean isDateStyle(int index) {
+            if (index >= dateStyles.length) {
+                dateStyles = Arrays.copyOf(dateStyles, Math.max(index + 1, dateStyles.length * 2));
+            }
+            if (dateStyles[index] == 0) {
+                boolean isDate = false;
+                if (styles != null && index < styles.getNumCellStyles()) {
+                    XSSFCellStyle style = styles.getStyleAt(index);
+                    String format = style.getDataFormatString();
+                    isDate = format != null && DateUtil.isADateFormat(style.getDataFormat(), format);
+                }
+                dateStyles[index] = (byte) (isDate ? 1 : 2);
+            }
+            return dateStyles[index] == 1;
+        }
+
+        /**
+         * Converts the letters of a cell reference such as "AB12" into a 0-based column index.
+         */
+        private static int columnIndex(String ref) {
+            int index = 0;
+            for (int i = 0; i < ref.length(); i++) {
+                char c = ref.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                index = index * 26 + (c - 'A' + 1);
+            }
+            return index - 1;
+        }
+    }
+
+    /**
+     * Thrown out of the SAX parser to stop reading once the row handler {@link StreamedRowHandler#isDone() is done}.
+     */
+    private static final class StopReading extends SAXException {
+    }
+}
@@ -0,0 +1,72 @@
+-- PostgreSQL stand-in for the HR database, for running the employee sync locally.
+-- Creates EMPLOYEES_DATA_VIEW with the same column labels as DATA_VIEW.SQL over one sample table,
+-- and fills it with generated employees. Point hr.datasource.url at the database this runs in.
+
+DROP VIEW IF EXISTS employees_data_view;
+DROP TABLE IF EXISTS hr_employee_sample;
+
+CREATE TABLE hr_employee_sample
+(
+    employee_code          VARCHAR(20) PRIMARY KEY,
+    first_name             VARCHAR(100),
+    last_name              VARCHAR(100),
+    last_name_en           VARCHAR(100),
+    father_name            VARCHAR(100),
+    national_id            VARCHAR(10),
+    manager_national_id    VARCHAR(10),
+    birth_date             VARCHAR(10),
+    birth_place            VARCHAR(100),
+    id_number              VARCHAR(20),
+    issuance_date          VARCHAR(10),
+    gender                 VARCHAR(10),
+    marital_status         VARCHAR(10),
+    mobile                 VARCHAR(20),
+    email                  VARCHAR(100),
+    post_title             VARCHAR(200),
+    employment_type        VARCHAR(50),
+    work_location_code     VARCHAR(20),
+    work_location          VARCHAR(100),
+    job                    VARCHAR(100),
+    department_code        VARCHAR(20),
+    department             VARCHAR(100),
+    username               VARCHAR(100)
+);
+
+CREATE VIEW employees_data_view AS
+SELECT employee_code       AS "کد کارمندی",
+       first_name          AS "نام کارمند",
+       last_name           AS "نام خانوادگی کارمند",
+       last_name_en        AS "نام خانوادگی کارمند (انگلیسی)",
+       father_name         AS "نام پدر",
+       national_id         AS "کد ملی کارمند",
+       manager_national_id AS "کد ملی مدیر بالادستی",
+       birth_date          AS "تاریخ تولد",
+       birth_place         AS "محل تولد",
+       id_number           AS "شماره شناسنامه",
+       issuance_date       AS "تاریخ صدور",
+       gender              AS "جنسیت",
+       marital_status      AS "وضعیت تاهل",
+       mobile              AS "شماره موبایل",
+       email               AS "ایمیل کارمند",
+       post_title          AS "عنوان پست",
+       employment_type     AS "نوع استخدام",
+       work_location_code  AS "کد محل خدمت",
+       work_location       AS "محل خدمت",
+       job                 AS "شغل",
+       department_code     AS "کد بخش",
+       department          AS "بخش",
+       username            AS "نام کاربری"
+FROM hr_employee_sample;
+
+-- 100,000 employees spread over 20 work locations; change the series for larger runs
+INSERT INTO hr_employee_sample (employee_code, first_name, last_name, gender, marital_status,
+                                work_location_code, work_location, username)
+SELECT lpad(n::text, 7, '0'),
+       'نام ' || n,
+       'نام خانوادگی ' || n,
+       CASE WHEN n % 2 = 0 THEN 'مرد' ELSE 'زن' END,
+       CASE WHEN n % 3 = 0 THEN 'مجرد' ELSE 'متاهل' END,
+       (n % 20 + 1)::text,
+       'محل خدمت ' || (n % 20 + 1),
+       'user' || n
+FROM generate_series(1, 100000) AS n;
@@ -0,0 +1,133 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.dtos.UploadDto;
+import com.mapnaom.foodreservation.dtos.UploadRequestDto;
+import com.mapnaom.foodreservation.exceptions.UploadException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChunkedUploadServiceTest {
+
+    private final ChunkedUploadService service = new ChunkedUploadService(DataSize.ofMegabytes(1), Duration.ofHours(1));
+    private final List<String> uploads = new ArrayList<>();
+
+    @AfterEach
+    void deleteUploads() {
+        uploads.forEach(service::cancel);
+    }
+
+    @Test
+    void chunksAreWrittenToTheirRange() throws NoSuchAlgorithmException {
+        String id = create(10);
+
+        service.writeChunk(id, "bytes 5-9/10", body("56789"));
+        UploadDto dto = service.writeChunk(id, "bytes 0-4/10", body("01234"));
+
+        assertThat(dto.getReceivedBytes()).isEqualTo(10);
+        assertThat(dto.getMissingRanges()).isEmpty();
+        // Completion verifies the checksum of the staged file
+        assertThat(service.complete(id, sha256("0123456789")).isComplete()).isTrue();
+    }
+
+    @Test
+    void bodyLongerThanItsRangeIsRejected() {
+        String id = create(10);
+
+        assertThatThrownBy(() -> service.writeChunk(id, "bytes 0-4/10", body("0123456")))
+                .isInstanceOfSatisfying(UploadException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+
+        UploadDto dto = service.getStatus(id);
+        assertThat(dto.getReceivedBytes()).isZero();
+        assertThat(dto.getMissingRanges()).containsExactly("0-9");
+    }
+
+    @Test
+    void bodyLongerThanItsRangeIsRejectedAfterTheFirstBuffer() {
+        String id = create(200_000);
+        byte[] chunk = new byte[150_001];
+        Arrays.fill(chunk, (byte) 'x');
+
+        assertThatThrownBy(() -> service.writeChunk(id, "bytes 0-149999/200000", new ByteArrayInputStream(chunk)))
+                .isInstanceOf(UploadException.class);
+
+        // The buffers written before the overflow are kept, and nothing past the range
+        UploadDto dto = service.getStatus(id);
+        assertThat(dto.getReceivedBytes()).isPositive().isLessThanOrEqualTo(150_000);
+        assertThat(dto.getMissingRanges()).containsExactly(dto.getReceivedBytes() + "-199999");
+    }
+
+    @Test
+    void shortBodyKeepsTheBytesThatArrived() {
+        String id = create(10);
+
+        UploadDto dto = service.writeChunk(id, "bytes 0-9/10", body("0123"));
+
+        assertThat(dto.getReceivedBytes()).isEqualTo(4);
+        assertThat(dto.getMissingRanges()).containsExactly("4-9");
+    }
+
+    @Test
+    void droppedConnectionKeepsTheBytesThatArrived() {
+        String id = create(10);
+        InputStream dropping = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == 6) {
+                    throw new IOException("Connection reset");
+                }
+                return '0' + position++;
+            }
+        };
+
+        UploadDto dto = service.writeChunk(id, "bytes 0-9/10", dropping);
+
+        assertThat(dto.getReceivedBytes()).isEqualTo(6);
+        assertThat(dto.getMissingRanges()).containsExactly("6-9");
+    }
+
+    @Test
+    void rangesOutsideTheFileAreRejected() {
+        String id = create(10);
+
+        assertThatThrownBy(() -> service.writeChunk(id, "bytes 5-10/10", body("012345")))
+                .isInstanceOfSatisfying(UploadException.class,
+                        e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE));
+        assertThatThrownBy(() -> service.writeChunk(id, "bytes 0-4/11", body("01234")))
+                .isInstanceOf(UploadException.class);
+        assertThatThrownBy(() -> service.writeChunk(id, "bytes 4-0/10", body("")))
+                .isInstanceOf(UploadException.class);
+    }
+
+    private String create(long size) {
+        UploadDto dto = service.create(new UploadRequestDto("menu.csv", null, size, null));
+        uploads.add(dto.getId());
+        return dto.getId();
+    }
+
+    private static String sha256(String text) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes()));
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes());
+    }
+}
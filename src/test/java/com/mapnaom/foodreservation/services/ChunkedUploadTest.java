@@ -0,0 +1,94 @@
+package com.mapnaom.foodreservation.services;
+
+import com.mapnaom.foodreservation.dtos.UploadDto;
+import com.mapnaom.foodreservation.enums.ImportFormat;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class ChunkedUploadTest {
+
+    private final ChunkedUpload upload = new ChunkedUpload("id", "menu.csv", ImportFormat.CSV, 100, Path.of("menu.csv"), null);
+
+    @Test
+    void overlappingRangesAreMerged() {
+        write(10, 30);
+        write(20, 50);
+        write(0, 15);
+
+        assertReceived(50, "50-99");
+    }
+
+    @Test
+    void adjacentRangesAreMerged() {
+        write(0, 25);
+        write(25, 50);
+        write(50, 75);
+
+        assertReceived(75, "75-99");
+        assertThat(upload.getReceived()).containsOnlyKeys(0L);
+    }
+
+    @Test
+    void outOfOrderRangesLeaveGapsUntilTheyAreFilled() {
+        write(80, 100);
+        write(40, 60);
+        write(0, 20);
+        assertReceived(60, "20-39", "60-79");
+
+        write(20, 40);
+        assertReceived(80, "60-79");
+
+        write(60, 80);
+        assertReceived(100);
+        assertThat(upload.getReceived()).containsExactly(entry(0L, 100L));
+    }
+
+    @Test
+    void rangeSpanningSeveralRangesReplacesThem() {
+        write(10, 20);
+        write(30, 40);
+        write(50, 60);
+        write(15, 55);
+
+        assertReceived(50, "0-9", "60-99");
+    }
+
+    @Test
+    void repeatedAndEmptyRangesAddNothing() {
+        write(0, 40);
+        write(10, 30);
+        write(0, 40);
+        write(70, 70);
+
+        assertReceived(40, "40-99");
+    }
+
+    @Test
+    void bytesCountOnlyOnceCompletionSucceeds() {
+        write(0, 60);
+        assertThat(upload.beginCompletion()).isFalse();
+
+        write(50, 100);
+        assertThat(upload.beginCompletion()).isTrue();
+        upload.endCompletion(false);
+
+        // A file that failed its checksum has to be sent again
+        assertReceived(0, "0-99");
+    }
+
+    private void write(long start, long end) {
+        assertThat(upload.beginWrite()).isTrue();
+        upload.endWrite(start, end);
+    }
+
+    private void assertReceived(long bytes, String... missingRanges) {
+        UploadDto dto = upload.toDto(Duration.ofHours(1));
+        assertThat(dto.getReceivedBytes()).isEqualTo(bytes);
+        assertThat(dto.getMissingRanges()).containsExactly(missingRanges);
+    }
+}
@@ -0,0 +1,120 @@
+package com.mapnaom.foodreservation.utils;
+
+import com.mapnaom.foodreservation.enums.ImportJobState;
+import com.mapnaom.foodreservation.exceptions.ExcelDataImportException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CellConvertersTest {
+
+    @Test
+    void jalaliDatesConvertToGregorian() throws Exception {
+        assertThat(convertText(LocalDate.class, "1357/11/22")).isEqualTo(LocalDate.of(1979, 2, 11));
+        assertThat(convertText(LocalDate.class, "1402/01/01")).isEqualTo(LocalDate.of(2023, 3, 21));
+        assertThat(convertText(LocalDate.class, "1403/01/01")).isEqualTo(LocalDate.of(2024, 3, 20));
+        assertThat(convertText(LocalDate.class, "1403/10/15")).isEqualTo(LocalDate.of(2025, 1, 4));
+        assertThat(convertText(LocalDate.class, "1404-07-01")).isEqualTo(LocalDate.of(2025, 9, 23));
+        assertThat(convertText(LocalDate.class, "1403.06.31")).isEqualTo(LocalDate.of(2024, 9, 21));
+    }
+
+    @Test
+    void lastDayOfEsfandExistsOnlyInLeapYears() throws Exception {
+        // 1399 and 1403 are leap years; the next one is 1408, five years later
+        assertThat(convertText(LocalDate.class, "1399/12/30")).isEqualTo(LocalDate.of(2021, 3, 20));
+        assertThat(convertText(LocalDate.class, "1403/12/30")).isEqualTo(LocalDate.of(2025, 3, 20));
+        assertThat(convertText(LocalDate.class, "1408/12/30")).isEqualTo(LocalDate.of(2030, 3, 20));
+        assertThat(convertText(LocalDate.class, "1409/01/01")).isEqualTo(LocalDate.of(2030, 3, 21));
+
+        assertThatThrownBy(() -> convertText(LocalDate.class, "1402/12/30")).isInstanceOf(ExcelDataImportException.class);
+        assertThatThrownBy(() -> convertText(LocalDate.class, "1407/12/30")).isInstanceOf(ExcelDataImportException.class);
+        assertThatThrownBy(() -> convertText(LocalDate.class, "1403/07/31")).isInstanceOf(ExcelDataImportException.class);
+    }
+
+    @Test
+    void jalaliYearsFollowEachOtherAcrossBreakYears() throws Exception {
+        // The leap pattern shifts at the break years of the cycle; Nowruz must still follow the last day of the year
+        for (int year : new int[]{1111, 1181, 1210, 1635}) {
+            for (int jy = year - 40; jy <= year + 40; jy++) {
+                LocalDate nowruz = (LocalDate) convertText(LocalDate.class, (jy + 1) + "/01/01");
+                LocalDate lastDay = (LocalDate) convertText(LocalDate.class, jy + "/12/29");
+                boolean leap = isValidDate(jy + "/12/30");
+                assertThat(lastDay.plusDays(leap ? 2 : 1)).as("end of %d", jy).isEqualTo(nowruz);
+            }
+        }
+    }
+
+    @Test
+    void gregorianDatesAreCheckedAgainstTheirMonthLength() throws Exception {
+        assertThat(convertText(LocalDate.class, "2024-02-29")).isEqualTo(LocalDate.of(2024, 2, 29));
+        assertThat(convertText(LocalDate.class, "1900-01-01")).isEqualTo(LocalDate.of(1900, 1, 1));
+        assertThatThrownBy(() -> convertText(LocalDate.class, "2023-02-29")).isInstanceOf(ExcelDataImportException.class);
+        assertThatThrownBy(() -> convertText(LocalDate.class, "1900-02-29")).isInstanceOf(ExcelDataImportException.class);
+        assertThatThrownBy(() -> convertText(LocalDate.class, "2024-04-31")).isInstanceOf(ExcelDataImportException.class);
+        assertThatThrownBy(() -> convertText(LocalDate.class, "24-04-01")).isInstanceOf(ExcelDataImportException.class);
+    }
+
+    @Test
+    void persianDigitsAreParsed() throws Exception {
+        assertThat(convertText(LocalDate.class, "۱۴۰۳/۰۱/۰۱")).isEqualTo(LocalDate.of(2024, 3, 20));
+        assertThat(convertText(LocalDateTime.class, "۱۴۰۳/۰۱/۰۱ ۰۸:۳۰"))
+                .isEqualTo(LocalDateTime.of(2024, 3, 20, 8, 30));
+        assertThat(convertText(Integer.class, "۱۲٬۳۴۵")).isEqualTo(12345);
+        assertThat(convertText(Integer.class, "٤٢")).isEqualTo(42);
+        assertThat(convertText(Long.class, " ۱,۰۰۰,۰۰۰ ")).isEqualTo(1_000_000L);
+        assertThat(convertText(BigDecimal.class, "۱۲٫۵")).isEqualTo(new BigDecimal("12.5"));
+        assertThat(convertText(Double.class, "۳٫۲۵")).isEqualTo(3.25);
+    }
+
+    @Test
+    void integralValuesOutOfRangeAreRejected() throws Exception {
+        assertThat(convertText(Byte.class, "127")).isEqualTo((byte) 127);
+        assertThat(convertNumber(Short.class, -32768)).isEqualTo((short) -32768);
+        assertThat(convertText(Integer.class, "2147483647")).isEqualTo(Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> convertText(Byte.class, "128")).isInstanceOf(ExcelDataImportException.class);
+        assertThatThrownBy(() -> convertText(byte.class, "-129")).isInstanceOf(ExcelDataImportException.class);
+        assertThatThrownBy(() -> convertNumber(Short.class, 40000)).isInstanceOf(ExcelDataImportException.class);
+        assertThatThrownBy(() -> convertText(Integer.class, "2147483648")).isInstanceOf(ExcelDataImportException.class);
+        assertThatThrownBy(() -> convertNumber(int.class, -3e9)).isInstanceOf(ExcelDataImportException.class);
+    }
+
+    @Test
+    void enumsAreBoundByOrdinalOrName() throws Exception {
+        assertThat(convertNumber(ImportJobState.class, 0)).isEqualTo(ImportJobState.QUEUED);
+        assertThat(convertNumber(ImportJobState.class, 3)).isEqualTo(ImportJobState.FAILED);
+        assertThat(convertText(ImportJobState.class, " running ")).isEqualTo(ImportJobState.RUNNING);
+
+        assertThatThrownBy(() -> convertNumber(ImportJobState.class, 4)).isInstanceOf(ExcelDataImportException.class);
+        assertThatThrownBy(() -> convertNumber(ImportJobState.class, -1)).isInstanceOf(ExcelDataImportException.class);
+        assertThatThrownBy(() -> convertText(ImportJobState.class, "DONE")).isInstanceOf(ExcelDataImportException.class);
+    }
+
+    private static Object convertText(Class<?> type, String text) throws Exception {
+        StreamedRow row = new StreamedRow();
+        row.reset(1);
+        row.setString(0, text);
+        return CellConverters.forType(type).convert(row, 0);
+    }
+
+    private static Object convertNumber(Class<?> type, double value) throws Exception {
+        StreamedRow row = new StreamedRow();
+        row.reset(1);
+        row.setNumeric(0, value, false);
+        return CellConverters.forType(type).convert(row, 0);
+    }
+
+    private static boolean isValidDate(String text) {
+        try {
+            convertText(LocalDate.class, text);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.mapnaom.foodreservation.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DelimitedTextReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void quotedFieldsMayContainDelimitersAndLineBreaks() throws IOException {
+        List<Row> rows = read("a,\"b,c\",\"line 1\nline 2\"\r\nd,\"e\r\nf\",g\n");
+
+        assertThat(rows).containsExactly(
+                new Row(0, "a", "b,c", "line 1\nline 2"),
+                new Row(1, "d", "e\r\nf", "g"));
+    }
+
+    @Test
+    void doubledQuotesInQuotedFieldsAreOneQuote() throws IOException {
+        List<Row> rows = read("\"say \"\"hi\"\"\",\"\"\"\",\"\"\n");
+
+        assertThat(rows).containsExactly(new Row(0, "say \"hi\"", "\""));
+    }
+
+    @Test
+    void byteOrderMarkIsSkipped() throws IOException {
+        byte[] text = "name,code\nشعبه مرکزی,1\n".getBytes(StandardCharsets.UTF_8);
+        byte[] withBom = new byte[text.length + 3];
+        withBom[0] = (byte) 0xEF;
+        withBom[1] = (byte) 0xBB;
+        withBom[2] = (byte) 0xBF;
+        System.arraycopy(text, 0, withBom, 3, text.length);
+
+        List<Row> rows = read(withBom, ',', Integer.MAX_VALUE);
+
+        assertThat(rows).containsExactly(new Row(0, "name", "code"), new Row(1, "شعبه مرکزی", "1"));
+    }
+
+    @Test
+    void linesMayEndWithLfCrOrCrLf() throws IOException {
+        List<Row> rows = read("a\rb\r\nc\nd");
+
+        assertThat(rows).containsExactly(new Row(0, "a"), new Row(1, "b"), new Row(2, "c"), new Row(3, "d"));
+    }
+
+    @Test
+    void blankLinesAreSkippedButCounted() throws IOException {
+        List<Row> rows = read("header\n\n\r\nx\r\r\ny\n\n");
+
+        assertThat(rows).containsExactly(new Row(0, "header"), new Row(3, "x"), new Row(5, "y"));
+    }
+
+    @Test
+    void quotedLineBreaksDoNotCountAsLines() throws IOException {
+        List<Row> rows = read("\"a\nb\"\nc\n");
+
+        assertThat(rows).containsExactly(new Row(0, "a\nb"), new Row(1, "c"));
+    }
+
+    @Test
+    void emptyFieldsAreBlankCells() throws IOException {
+        List<Row> rows = read("a,,c,\n,b\n");
+
+        assertThat(rows).containsExactly(new Row(0, "a", null, "c"), new Row(1, null, "b"));
+    }
+
+    @Test
+    void valuesAreTrimmedLikeExcelCells() throws IOException {
+        List<Row> rows = read(" a ,\"  b c  \",\"   \",d\n");
+
+        assertThat(rows).containsExactly(new Row(0, "a", "b c", null, "d"));
+    }
+
+    @Test
+    void tabSeparatedFieldsKeepCommas() throws IOException {
+        List<Row> rows = read("1,5\t\"x\ty\"\n".getBytes(StandardCharsets.UTF_8), '\t', Integer.MAX_VALUE);
+
+        assertThat(rows).containsExactly(new Row(0, "1,5", "x\ty"));
+    }
+
+    @Test
+    void unwantedColumnsAreSkipped() throws IOException {
+        List<Row> rows = read("a,\"b,\"\"c\"\"\",c\nd,e,f\n".getBytes(StandardCharsets.UTF_8), ',', 1);
+
+        assertThat(rows).containsExactly(new Row(0, "a"), new Row(1, "d"));
+    }
+
+    private List<Row> read(String text) throws IOException {
+        return read(text.getBytes(StandardCharsets.UTF_8), ',', Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param wantedColumns the number of leading columns the handler wants
+     */
+    private List<Row> read(byte[] content, char delimiter, int wantedColumns) throws IOException {
+        Path file = Files.write(dir.resolve("rows.csv"), content);
+        List<Row> rows = new ArrayList<>();
+        new DelimitedTextReader(file, delimiter).read(new StreamedRowHandler() {
+            @Override
+            public void handleRow(StreamedRow row) {
+                String[] cells = new String[row.getLastColumn() + 1];
+                for (int i = 0; i < cells.length; i++) {
+                    cells[i] = row.getString(i);
+                }
+                rows.add(new Row(row.getRowNum(), cells));
+            }
+
+            @Override
+            public boolean wantsColumn(int column) {
+                return column < wantedColumns;
+            }
+        });
+        return rows;
+    }
+
+    private record Row(int rowNum, String... cells) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Row row && rowNum == row.rowNum && Arrays.equals(cells, row.cells);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * rowNum + Arrays.hashCode(cells);
+        }
+
+        @Override
+        public String toString() {
+            return rowNum + ":" + Arrays.toString(cells);
+        }
+    }
+}